@@ -3,21 +3,26 @@ package ru.practicum.shareit.booking;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
 
+import java.util.List;
+
 /**
  * The type Booking client.
  */
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     /**
      * Instantiates a new Booking client.
@@ -40,15 +45,24 @@ public class BookingClient extends BaseClient {
      *
      * @param userId the user id
      * @param state  the state
+     * @param itemId the item id filter
      * @param from   the from
      * @param size   the size
+     * @param cursor the cursor of the next page
      * @return the bookings
      */
-    public ResponseEntity<Object> getBookings(Long userId, BookingState state, Integer from, Integer size) {
+    public ResponseEntity<Object> getBookings(Long userId, BookingState state, Long itemId, Integer from,
+                                              Integer size, String cursor) {
         String path = "?state=" + state.name() + "&from=" + from;
         if (size != null) {
             path += "&size=" + size;
         }
+        if (itemId != null) {
+            path += "&itemId=" + itemId;
+        }
+        if (cursor != null) {
+            path += "&cursor=" + cursor;
+        }
         return get(path, userId, null);
     }
 
@@ -57,18 +71,67 @@ public class BookingClient extends BaseClient {
      *
      * @param userId the user id
      * @param state  the state
-     * @param from   the form
+     * @param itemId the item id filter
+     * @param from   the from
      * @param size   the size
+     * @param cursor the cursor of the next page
      * @return the bookings owner
      */
-    public ResponseEntity<Object> getBookingsOwner(Long userId, BookingState state, Integer from, Integer size) {
+    public ResponseEntity<Object> getBookingsOwner(Long userId, BookingState state, Long itemId, Integer from,
+                                                   Integer size, String cursor) {
         String path = "/owner?state=" + state.name() + "&from=" + from;
         if (size != null) {
             path += "&size=" + size;
         }
+        if (itemId != null) {
+            path += "&itemId=" + itemId;
+        }
+        if (cursor != null) {
+            path += "&cursor=" + cursor;
+        }
         return get(path, userId, null);
     }
 
+    /**
+     * Gets the number of bookings made by the user in each state.
+     *
+     * @param userId the user id
+     * @return the stats
+     */
+    public ResponseEntity<Object> getStats(Long userId) {
+        return get("/stats", userId);
+    }
+
+    /**
+     * Gets the number of bookings of the items owned by the user in each state.
+     *
+     * @param userId the user id
+     * @return the stats
+     */
+    public ResponseEntity<Object> getStatsOwner(Long userId) {
+        return get("/owner/stats", userId);
+    }
+
+    /**
+     * Gets the booking change feed.
+     *
+     * @param after the offset of the last event already read
+     * @param limit the maximum number of events
+     * @return the events
+     */
+    public ResponseEntity<Object> getEvents(Long after, Integer limit) {
+        return get("/events?after=" + after + "&limit=" + limit);
+    }
+
+    /**
+     * Streams the export of the owner bookings.
+     *
+     * @param userId the user id
+     * @return the response entity
+     */
+    public ResponseEntity<StreamingResponseBody> exportBookingsOwner(Long userId) {
+        return stream("/owner/export", userId, NDJSON);
+    }
 
     /**
      * Create response entity.
@@ -81,6 +144,17 @@ public class BookingClient extends BaseClient {
         return post("", userId, requestDto);
     }
 
+    /**
+     * Create bookings in bulk.
+     *
+     * @param userId      the user id
+     * @param requestDtos the request dtos
+     * @return the response entity
+     */
+    public ResponseEntity<Object> createAll(Long userId, List<BookItemRequestDto> requestDtos) {
+        return post("/batch", userId, requestDtos);
+    }
+
     /**
      * Gets booking.
      *
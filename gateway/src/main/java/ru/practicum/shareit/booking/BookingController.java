@@ -1,7 +1,12 @@
 package ru.practicum.shareit.booking;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -9,9 +14,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 
+import java.util.List;
+
 /**
  * The type Booking controller.
  */
@@ -24,26 +32,36 @@ public class BookingController {
     private static final String USER_ID = "X-Sharer-User-Id";
     private final BookingClient bookingClient;
     private static final String BOOKING_ID = "{booking-id}";
+    private static final String CURSOR_PATTERN = "[A-Za-z0-9_-]+";
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int MAX_EVENTS = 1000;
+    private static final int MAX_OFFSET = 1000;
+    private static final String NDJSON = "application/x-ndjson";
 
     /**
      * Gets bookings.
      *
      * @param userId     the user id
      * @param stateParam the state param
+     * @param itemId     the item id filter
      * @param from       the from
      * @param size       the size
+     * @param cursor     the cursor of the next page
      * @return the bookings
      */
     @GetMapping
     public ResponseEntity<Object> getBookings(@RequestHeader(USER_ID) Long userId,
                                               @RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                              @PositiveOrZero @RequestParam(name = "from", defaultValue = "0")
-                                              Integer from,
-                                              @RequestParam(required = false) Integer size) {
+                                              @RequestParam(required = false) Long itemId,
+                                              @PositiveOrZero @Max(MAX_OFFSET)
+                                              @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                              @RequestParam(required = false) Integer size,
+                                              @Pattern(regexp = CURSOR_PATTERN) @RequestParam(required = false)
+                                              String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
         log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getBookings(userId, state, from, size);
+        return bookingClient.getBookings(userId, state, itemId, from, size, cursor);
     }
 
     /**
@@ -51,21 +69,78 @@ public class BookingController {
      *
      * @param stateParam the state param
      * @param userId     the user id
+     * @param itemId     the item id filter
      * @param from       the from
      * @param size       the size
+     * @param cursor     the cursor of the next page
      * @return the bookings owner
      */
     @GetMapping("/owner")
     public ResponseEntity<Object> getBookingsOwner(@RequestParam(name = "state", defaultValue = "all")
                                                    String stateParam,
                                                    @RequestHeader(USER_ID) Long userId,
-                                                   @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                   @RequestParam(required = false) Integer size) {
+                                                   @RequestParam(required = false) Long itemId,
+                                                   @PositiveOrZero @Max(MAX_OFFSET)
+                                                   @RequestParam(defaultValue = "0") Integer from,
+                                                   @RequestParam(required = false) Integer size,
+                                                   @Pattern(regexp = CURSOR_PATTERN)
+                                                   @RequestParam(required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
         log.info("Получен GET-запрос к эндпоинту: '/bookings/owner' на получение " +
                 "списка всех бронирований вещей пользователя с ID={} с параметром STATE={}", userId, state);
-        return bookingClient.getBookingsOwner(userId, state, from, size);
+        return bookingClient.getBookingsOwner(userId, state, itemId, from, size, cursor);
+    }
+
+    /**
+     * Export bookings owner as newline delimited JSON streamed from the server.
+     *
+     * @param userId the user id
+     * @return the streaming body
+     */
+    @GetMapping(value = "/owner/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportBookingsOwner(@RequestHeader(USER_ID) Long userId) {
+        log.info("Export bookings of owner userId={}", userId);
+        return bookingClient.exportBookingsOwner(userId);
+    }
+
+    /**
+     * Gets the number of bookings made by the user in each state.
+     *
+     * @param userId the user id
+     * @return the stats
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Object> getStats(@RequestHeader(USER_ID) Long userId) {
+        log.info("Get booking stats, userId={}", userId);
+        return bookingClient.getStats(userId);
+    }
+
+    /**
+     * Gets the number of bookings of the items owned by the user in each state.
+     *
+     * @param userId the user id
+     * @return the stats
+     */
+    @GetMapping("/owner/stats")
+    public ResponseEntity<Object> getStatsOwner(@RequestHeader(USER_ID) Long userId) {
+        log.info("Get owner booking stats, userId={}", userId);
+        return bookingClient.getStatsOwner(userId);
+    }
+
+    /**
+     * Gets the booking change feed after the offset.
+     *
+     * @param after the offset of the last event already read
+     * @param limit the maximum number of events
+     * @return the events
+     */
+    @GetMapping("/events")
+    public ResponseEntity<Object> getEvents(@PositiveOrZero @RequestParam(defaultValue = "0") Long after,
+                                            @Positive @Max(MAX_EVENTS) @RequestParam(defaultValue = "100")
+                                            Integer limit) {
+        log.info("Get booking events after {}, limit={}", after, limit);
+        return bookingClient.getEvents(after, limit);
     }
 
     /**
@@ -82,6 +157,22 @@ public class BookingController {
         return bookingClient.create(userId, requestDto);
     }
 
+    /**
+     * Create bookings in bulk. Entries are validated one by one on the server, so a bad entry
+     * does not reject the whole batch.
+     *
+     * @param userId      the user id
+     * @param requestDtos the request dtos
+     * @return the result of every entry
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Object> createAll(@RequestHeader(USER_ID) Long userId,
+                                            @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                            List<BookItemRequestDto> requestDtos) {
+        log.info("Creating {} bookings, userId={}", requestDtos.size(), userId);
+        return bookingClient.createAll(userId, requestDtos);
+    }
+
     /**
      * Gets booking.
      *
@@ -17,7 +17,9 @@ public enum BookingState {
     // Отклоненные
     REJECTED,
     // Ожидающие подтверждения
-    WAITING;
+    WAITING,
+    // Не подтвержденные до начала
+    EXPIRED;
 
     /**
      * From optional.
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.client;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -8,9 +9,14 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * The type Base client.
@@ -213,6 +219,51 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    /**
+     * Sends a GET request and streams the body of a successful response as it arrives, without buffering it.
+     * The response is only committed once the server has answered, so an error of the server is passed on
+     * with its status and body instead of a successful status with a cut off body.
+     *
+     * @param path      the path
+     * @param userId    the user id
+     * @param mediaType the accepted media type
+     * @return the response entity
+     */
+    protected ResponseEntity<StreamingResponseBody> stream(String path, long userId, MediaType mediaType) {
+        ClientHttpResponse response;
+        try {
+            ClientHttpRequest request = rest.getRequestFactory()
+                    .createRequest(rest.getUriTemplateHandler().expand(path), HttpMethod.GET);
+            request.getHeaders().setAccept(List.of(mediaType));
+            request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+            response = request.execute();
+        } catch (IOException e) {
+            throw new ResourceAccessException("GET request for \"" + path + "\" failed: " + e.getMessage(), e);
+        }
+        try {
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                try (response) {
+                    byte[] body = StreamUtils.copyToByteArray(response.getBody());
+                    ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+                    if (response.getHeaders().getContentType() != null) {
+                        responseBuilder.contentType(response.getHeaders().getContentType());
+                    }
+                    return responseBuilder.body(outputStream -> outputStream.write(body));
+                }
+            }
+        } catch (IOException e) {
+            response.close();
+            throw new ResourceAccessException("GET request for \"" + path + "\" failed: " + e.getMessage(), e);
+        }
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(outputStream -> {
+                    try (response) {
+                        StreamUtils.copy(response.getBody(), outputStream);
+                    }
+                });
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
 
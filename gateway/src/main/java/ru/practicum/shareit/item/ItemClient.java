@@ -11,6 +11,13 @@ import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
 /**
  * The type Item client.
  */
@@ -18,20 +25,30 @@ import ru.practicum.shareit.item.dto.ItemDto;
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
+    private final long suggestTtlNanos;
+    private final int suggestMaxEntries;
+    private final Map<String, CachedResponse> suggestions = new ConcurrentHashMap<>();
+
     /**
      * Instantiates a new Item client.
      *
-     * @param serverUrl the server url
-     * @param builder   the builder
+     * @param serverUrl         the server url
+     * @param builder           the builder
+     * @param suggestTtlMillis  the time suggestions are served from the cache
+     * @param suggestMaxEntries the maximum number of cached suggestion responses
      */
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      @Value("${shareit.suggest.cache.ttl-ms:2000}") long suggestTtlMillis,
+                      @Value("${shareit.suggest.cache.max-entries:10000}") int suggestMaxEntries) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
                         .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
                         .build()
         );
+        this.suggestTtlNanos = TimeUnit.MILLISECONDS.toNanos(suggestTtlMillis);
+        this.suggestMaxEntries = suggestMaxEntries;
     }
 
     /**
@@ -98,19 +115,93 @@ public class ItemClient extends BaseClient {
     /**
      * Gets items by search query.
      *
-     * @param text the text
-     * @param from the from
-     * @param size the size
+     * @param text  the text
+     * @param from  the from
+     * @param size  the size
+     * @param fuzzy whether to match words with typos
+     * @param start the first day the items have to be free on, or null
+     * @param end   the last day the items have to be free on, or null
      * @return the items by search query
      */
-    public ResponseEntity<Object> getItemsBySearchQuery(String text, Integer from, Integer size) {
+    public ResponseEntity<Object> getItemsBySearchQuery(String text, Integer from, Integer size, boolean fuzzy,
+                                                        LocalDate start, LocalDate end) {
         String path = "/search?text=" + text + "&from=" + from;
         if (size != null) {
             path += "&size=" + size;
         }
+        if (fuzzy) {
+            path += "&fuzzy=true";
+        }
+        if (start != null) {
+            path += "&start=" + start;
+        }
+        if (end != null) {
+            path += "&end=" + end;
+        }
         return get(path);
     }
 
+    /**
+     * Gets the completions of the item name prefix. Successful responses are reused for the same prefix and
+     * limit for a short time, as every keystroke of a user asks for them.
+     *
+     * @param prefix the prefix
+     * @param limit  the limit
+     * @return the suggestions
+     */
+    public ResponseEntity<Object> getSuggestions(String prefix, Integer limit) {
+        String key = prefix.toLowerCase(Locale.ROOT) + '\n' + limit;
+        long now = System.nanoTime();
+        CachedResponse cached = suggestions.get(key);
+        if (cached != null && now - cached.created < suggestTtlNanos) {
+            return cached.response;
+        }
+        ResponseEntity<Object> response = get("/suggest?prefix={prefix}&limit={limit}", null,
+                Map.of("prefix", prefix, "limit", limit));
+        if (response.getStatusCode().is2xxSuccessful()) {
+            if (suggestions.size() >= suggestMaxEntries) {
+                suggestions.values().removeIf(entry -> now - entry.created >= suggestTtlNanos);
+                if (suggestions.size() >= suggestMaxEntries) {
+                    suggestions.clear();
+                }
+            }
+            suggestions.put(key, new CachedResponse(now, response));
+        }
+        return response;
+    }
+
+    /**
+     * Gets free slots of the item inside the window.
+     *
+     * @param itemId the item id
+     * @param from   the from
+     * @param to     the to
+     * @return the availability
+     */
+    public ResponseEntity<Object> getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", null, parameters);
+    }
+
+    /**
+     * Gets a page of the comments of the item, newest first.
+     *
+     * @param itemId the item id
+     * @param cursor the cursor of the next page
+     * @param limit  the limit
+     * @return the comments
+     */
+    public ResponseEntity<Object> getComments(Long itemId, String cursor, Integer limit) {
+        String path = "/" + itemId + "/comments?limit=" + limit;
+        if (cursor != null) {
+            path += "&cursor=" + cursor;
+        }
+        return get(path, null, null);
+    }
+
     /**
      * Create comment response entity.
      *
@@ -122,4 +213,14 @@ public class ItemClient extends BaseClient {
     public ResponseEntity<Object> createComment(CommentDto commentDto, Long itemId, Long userId) {
         return post("/" + itemId + "/comment", userId, commentDto);
     }
-}
\ No newline at end of file
+
+    private static final class CachedResponse {
+        private final long created;
+        private final ResponseEntity<Object> response;
+
+        CachedResponse(long created, ResponseEntity<Object> response) {
+            this.created = created;
+            this.response = response;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package ru.practicum.shareit.item;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -11,6 +15,8 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 /**
  * The type Item controller.
@@ -24,6 +30,7 @@ public class ItemController {
     private static final String USER_ID = "X-Sharer-User-Id";
     private final ItemClient itemClient;
     private static final String ITEM_ID = "{item-id}";
+    private static final String CURSOR_PATTERN = "[A-Za-z0-9_-]+";
 
 
     /**
@@ -102,17 +109,78 @@ public class ItemController {
     /**
      * Gets items by search query.
      *
-     * @param text the text
-     * @param from the from
-     * @param size the size
+     * @param text  the text
+     * @param from  the from
+     * @param size  the size
+     * @param fuzzy whether to match words with typos
+     * @param start the first day the items have to be free on
+     * @param end   the last day the items have to be free on
      * @return the items by search query
      */
     @GetMapping("/search")
     public ResponseEntity<Object> getItemsBySearchQuery(@RequestParam String text,
                                                         @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                        @RequestParam(required = false) Integer size) {
+                                                        @RequestParam(required = false) Integer size,
+                                                        @RequestParam(defaultValue = "false") Boolean fuzzy,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
         log.info("Получен GET-запрос к эндпоинту: '/items/search' на поиск вещи с текстом={}", text);
-        return itemClient.getItemsBySearchQuery(text, from, size);
+        return itemClient.getItemsBySearchQuery(text, from, size, fuzzy, start, end);
+    }
+
+    /**
+     * Gets the completions of the item name prefix.
+     *
+     * @param prefix the prefix
+     * @param limit  the limit
+     * @return the suggestions
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<Object> getSuggestions(@RequestParam String prefix,
+                                                 @Positive @Max(100) @RequestParam(defaultValue = "10") Integer limit) {
+        log.info("Получен GET-запрос к эндпоинту: '/items/suggest' на подсказки для префикса={}", prefix);
+        return itemClient.getSuggestions(prefix, limit);
+    }
+
+    /**
+     * Gets free slots of the item inside the window.
+     *
+     * @param itemId the item id
+     * @param from   the from
+     * @param to     the to
+     * @return the availability
+     */
+    @GetMapping("/{item-id}/availability")
+    public ResponseEntity<Object> getAvailability(@PathVariable("item-id") Long itemId,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime to) {
+        log.info("Получен GET-запрос к эндпоинту: '/items/availability' на получение свободных периодов " +
+                "вещи с ID={} с {} по {}", itemId, from, to);
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Начало периода должно быть раньше его окончания!");
+        }
+        return itemClient.getAvailability(itemId, from, to);
+    }
+
+    /**
+     * Gets a page of the comments of the item, newest first.
+     *
+     * @param itemId the item id
+     * @param cursor the cursor of the next page
+     * @param limit  the limit
+     * @return the comments
+     */
+    @GetMapping("/{item-id}/comments")
+    public ResponseEntity<Object> getComments(@PathVariable("item-id") Long itemId,
+                                              @Pattern(regexp = CURSOR_PATTERN) @RequestParam(required = false)
+                                              String cursor,
+                                              @Positive @Max(100) @RequestParam(defaultValue = "20") Integer limit) {
+        log.info("Получен GET-запрос к эндпоинту: '/items/comments' на получение отзывов вещи с ID={}", itemId);
+        return itemClient.getComments(itemId, cursor, limit);
     }
 
     /**
@@ -0,0 +1,27 @@
+#!/bin/bash
+# 200 concurrent bookings of one item, each for its own non-overlapping day, against a running server.
+# Run once with shareit.booking.lanes.enabled=true and once with false and compare the wall time.
+# Usage: ./booking-lanes.sh [server url] [threads]
+set -euo pipefail
+
+SERVER=${1:-http://localhost:9090}
+THREADS=${2:-200}
+REQUESTS=$((THREADS * 10))
+
+owner=$(curl -s -X POST "$SERVER/users" -H 'Content-Type: application/json' \
+  -d "{\"name\":\"owner\",\"email\":\"owner-$RANDOM$RANDOM@bench.test\"}" | sed 's/.*"id":\([0-9]*\).*/\1/')
+booker=$(curl -s -X POST "$SERVER/users" -H 'Content-Type: application/json' \
+  -d "{\"name\":\"booker\",\"email\":\"booker-$RANDOM$RANDOM@bench.test\"}" | sed 's/.*"id":\([0-9]*\).*/\1/')
+item=$(curl -s -X POST "$SERVER/items" -H 'Content-Type: application/json' -H "X-Sharer-User-Id: $owner" \
+  -d '{"name":"bench","description":"bench","available":true}' | sed 's/.*"id":\([0-9]*\).*/\1/')
+
+start=$(date +%s.%N)
+seq 1 "$REQUESTS" | xargs -P "$THREADS" -I{} sh -c "
+  day=\$(date -u -d \"+{} days\" +%Y-%m-%d)
+  curl -s -o /dev/null -w '%{http_code}\n' -X POST '$SERVER/bookings' -H 'Content-Type: application/json' \
+    -H 'X-Sharer-User-Id: $booker' \
+    -d \"{\\\"itemId\\\":$item,\\\"start\\\":\\\"\${day}T10:00:00\\\",\\\"end\\\":\\\"\${day}T11:00:00\\\"}\"
+" | sort | uniq -c
+end=$(date +%s.%N)
+
+echo "$REQUESTS bookings with $THREADS threads in $(echo "$end - $start" | bc) s"
@@ -0,0 +1,71 @@
+-- CURRENT/FUTURE booking listings on a plain and on a partitioned bookings table with 10M rows.
+-- Run against an empty PostgreSQL database: psql -d shareit_bench -f bookings-partitioning.sql
+-- The rows span ten years of start dates; the queries are the SQL the booker listing produces.
+\timing on
+
+DROP TABLE IF EXISTS bench_bookings_plain, bench_bookings_part CASCADE;
+
+CREATE TABLE bench_bookings_plain (
+    id BIGINT NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date TIMESTAMP WITHOUT TIME ZONE,
+    item_id BIGINT NOT NULL,
+    booker_id BIGINT NOT NULL,
+    status VARCHAR (25),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE bench_bookings_part (LIKE bench_bookings_plain INCLUDING DEFAULTS) PARTITION BY RANGE (start_date);
+ALTER TABLE bench_bookings_part ADD PRIMARY KEY (id, start_date);
+CREATE TABLE bench_bookings_part_default PARTITION OF bench_bookings_part DEFAULT;
+
+DO $$
+DECLARE
+    month DATE := DATE '2017-01-01';
+BEGIN
+    WHILE month < DATE '2027-07-01' LOOP
+        EXECUTE format('CREATE TABLE bench_bookings_part_%s PARTITION OF bench_bookings_part '
+                       'FOR VALUES FROM (%L) TO (%L)', to_char(month, 'YYYY_MM'), month, month + INTERVAL '1 month');
+        month := month + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO bench_bookings_plain
+SELECT g,
+       TIMESTAMP '2017-01-01' + (g * INTERVAL '31 seconds'),
+       TIMESTAMP '2017-01-01' + (g * INTERVAL '31 seconds') + INTERVAL '3 days',
+       g % 50000,
+       g % 100000,
+       CASE WHEN g % 10 = 0 THEN 'REJECTED' ELSE 'APPROVED' END
+FROM generate_series(1, 10000000) AS g;
+
+INSERT INTO bench_bookings_part SELECT * FROM bench_bookings_plain;
+
+CREATE INDEX ON bench_bookings_plain (booker_id, start_date DESC, id DESC);
+CREATE INDEX ON bench_bookings_part (booker_id, start_date DESC, id DESC);
+ANALYZE bench_bookings_plain;
+ANALYZE bench_bookings_part;
+
+-- FUTURE
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_bookings_plain
+WHERE booker_id = 4242 AND start_date > TIMESTAMP '2026-10-18 12:00'
+ORDER BY start_date DESC, id DESC LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_bookings_part
+WHERE booker_id = 4242 AND start_date > TIMESTAMP '2026-10-18 12:00'
+ORDER BY start_date DESC, id DESC LIMIT 20;
+
+-- CURRENT
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_bookings_plain
+WHERE booker_id = 4242 AND start_date < TIMESTAMP '2026-10-18 12:00' AND end_date > TIMESTAMP '2026-10-18 12:00'
+ORDER BY start_date DESC, id DESC LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_bookings_part
+WHERE booker_id = 4242 AND start_date < TIMESTAMP '2026-10-18 12:00' AND end_date > TIMESTAMP '2026-10-18 12:00'
+ORDER BY start_date DESC, id DESC LIMIT 20;
+
+DROP TABLE bench_bookings_plain, bench_bookings_part CASCADE;
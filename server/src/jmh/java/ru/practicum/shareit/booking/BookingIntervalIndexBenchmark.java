@@ -0,0 +1,146 @@
+package ru.practicum.shareit.booking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
+import ru.practicum.shareit.item.Item;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the booking interval index on one item with many bookings.
+ * <p>
+ * Every booking of the item takes two hours and leaves a free hour before the next one. isFree checks a random
+ * hour, freeSlots sweeps the whole calendar, insert books a free hour and releases it again, and load reads the
+ * intervals of the item from the repository into a new index.
+ * <p>
+ * Compile with mvn -P benchmark -pl server test-compile and start the main method on the test classpath.
+ * The number of bookings of the item is the bookings parameter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingIntervalIndexBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final Long ITEM_ID = 1L;
+    private static final int QUERY_COUNT = 1_024;
+
+    @Param({"10000"})
+    public int bookings;
+
+    private BookingRepository repository;
+    private BookingIntervalIndex index;
+    private long[] hours;
+    private int next;
+
+    /**
+     * Generates the bookings of the item and loads them into the index.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<BookingInterval> intervals = new ArrayList<>(bookings);
+        for (int i = 0; i < bookings; i++) {
+            intervals.add(new BookingInterval((long) i, hour(i * 3L), hour(i * 3L + 2)));
+        }
+        repository = (BookingRepository) Proxy.newProxyInstance(
+                BookingRepository.class.getClassLoader(), new Class<?>[]{BookingRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findIntervalsByItemIdAndStatusIn")) {
+                        return intervals;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        index = new BookingIntervalIndex(repository);
+        index.isFree(ITEM_ID, hour(0), hour(1));
+        Random random = new Random(42);
+        hours = new long[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            hours[i] = random.nextInt(bookings * 3);
+        }
+    }
+
+    /**
+     * Checks the next random hour.
+     *
+     * @return whether the hour is free
+     */
+    @Benchmark
+    public boolean isFree() {
+        long start = hours[next++ & (QUERY_COUNT - 1)];
+        return index.isFree(ITEM_ID, hour(start), hour(start + 1));
+    }
+
+    /**
+     * Lists the free slots of the whole calendar.
+     *
+     * @return the free slots
+     */
+    @Benchmark
+    public List<FreeSlotDto> freeSlots() {
+        return index.getFreeSlots(ITEM_ID, hour(0), hour(bookings * 3L));
+    }
+
+    /**
+     * Books the free hour after a random booking and releases it.
+     *
+     * @return the saved booking
+     */
+    @Benchmark
+    public Booking insert() {
+        long gap = hours[next++ & (QUERY_COUNT - 1)] / 3 * 3 + 2;
+        Item item = new Item();
+        item.setId(ITEM_ID);
+        Booking saved = index.saveIfFree(new Booking(null, hour(gap), hour(gap + 1), item, null,
+                BookingStatus.WAITING), booking -> {
+            booking.setId(-gap);
+            return booking;
+        });
+        index.remove(ITEM_ID, saved.getId());
+        return saved;
+    }
+
+    /**
+     * Loads the intervals of the item into a new index.
+     *
+     * @return whether the first hour is free
+     */
+    @Benchmark
+    public boolean load() {
+        return new BookingIntervalIndex(repository).isFree(ITEM_ID, hour(0), hour(1));
+    }
+
+    /**
+     * Starts the benchmark.
+     *
+     * @param args the args
+     * @throws RunnerException if the run fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BookingIntervalIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static LocalDateTime hour(long hour) {
+        return BASE.plusHours(hour);
+    }
+}
@@ -0,0 +1,142 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.CommentDto;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemShortDto;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.UserShortDto;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization time of a page of bookings as the response body.
+ * <p>
+ * slim is the booking dto carrying the item and the booker as ids and names, full is the former shape carrying
+ * the whole item dto with its latest comments and the whole user dto. The payload size of a page is printed on
+ * setup.
+ * <p>
+ * Compile with mvn -P benchmark -pl server test-compile and start the main method on the test classpath.
+ * The page size is the bookings parameter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingSerializationBenchmark {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Param({"slim", "full"})
+    public String shape;
+
+    @Param({"50"})
+    public int bookings;
+
+    @Param({"10"})
+    public int comments;
+
+    private ObjectMapper mapper;
+    private List<Object> page;
+
+    /**
+     * Builds the page and prints its payload size.
+     *
+     * @throws JsonProcessingException if the page cannot be serialized
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        mapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        page = new ArrayList<>(bookings);
+        UserDto booker = new UserDto(10L, "booker@mail.ru", "Booker", Instant.parse("2029-01-01T00:00:00Z"));
+        for (long id = 1; id <= bookings; id++) {
+            page.add(switch (shape) {
+                case "slim" -> new BookingDto(id, NOW.plusDays(id), NOW.plusDays(id + 1),
+                        new ItemShortDto(id, "Item " + id, 1L), new UserShortDto(booker.getId(), booker.getName()),
+                        BookingStatus.APPROVED);
+                case "full" -> new FullBookingDto(id, NOW.plusDays(id), NOW.plusDays(id + 1), item(id, booker),
+                        booker, BookingStatus.APPROVED);
+                default -> throw new IllegalArgumentException(shape);
+            });
+        }
+        System.out.printf("%n%s page of %d bookings: %d bytes%n", shape, bookings,
+                mapper.writeValueAsBytes(page).length);
+    }
+
+    /**
+     * Serializes the page.
+     *
+     * @return the payload
+     * @throws JsonProcessingException if the page cannot be serialized
+     */
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    /**
+     * Starts the benchmark.
+     *
+     * @param args the args
+     * @throws RunnerException if the run fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BookingSerializationBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private ItemDto item(long id, UserDto author) {
+        List<CommentDto> latest = new ArrayList<>(comments);
+        for (long i = 0; i < comments; i++) {
+            latest.add(new CommentDto(id * comments + i, "Great item, worked well for the weekend, thanks!", id,
+                    author.getName(), NOW.minusHours(i)));
+        }
+        return new ItemDto(id, "Item " + id, "Cordless drill with two batteries and a case", true, 1L, null,
+                null, null, latest, (long) comments, NOW, null);
+    }
+
+    /**
+     * The booking response shape before the item and the booker were projected to short dtos.
+     */
+    public static class FullBookingDto {
+        public final Long id;
+        public final LocalDateTime start;
+        public final LocalDateTime end;
+        public final ItemDto item;
+        public final UserDto booker;
+        public final BookingStatus status;
+
+        FullBookingDto(Long id, LocalDateTime start, LocalDateTime end, ItemDto item, UserDto booker,
+                       BookingStatus status) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.item = item;
+            this.booker = booker;
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package ru.practicum.shareit.item;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Search latency of the item search engines on the same generated catalogue.
+ * <p>
+ * memory is the in-process inverted index, like, postgres and trigram are the SQL paths. Every query is one
+ * fragment of queryLength characters cut from a random word of the catalogue. The SQL engines run against
+ * -Dbenchmark.jdbc.url (an in-memory H2 by default; postgres needs a PostgreSQL url, user and password), which
+ * is recreated from the schema scripts and filled with the catalogue on setup.
+ * <p>
+ * Compile with mvn -P benchmark -pl server test-compile and start the main method on the test classpath.
+ * The catalogue size is the items parameter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemSearchBenchmark {
+    private static final int VOCABULARY_SIZE = 20_000;
+    private static final int QUERY_COUNT = 1_024;
+
+    @Param({"memory", "like", "postgres", "trigram"})
+    public String engine;
+
+    @Param({"1000000"})
+    public int items;
+
+    @Param({"1", "3", "8"})
+    public int queryLength;
+
+    private ItemSearchEngine searchEngine;
+    private String[] queries;
+    private int next;
+
+    /**
+     * Generates the catalogue and builds the engine.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        String[] vocabulary = IntStream.range(0, VOCABULARY_SIZE)
+                .mapToObj(i -> randomWord(random))
+                .toArray(String[]::new);
+        List<Object[]> rows = new ArrayList<>(items);
+        for (int id = 1; id <= items; id++) {
+            rows.add(new Object[]{(long) id, words(vocabulary, random, 3), words(vocabulary, random, 12),
+                    random.nextInt(10) != 0});
+        }
+        queries = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            String word = vocabulary[random.nextInt(VOCABULARY_SIZE)];
+            while (word.length() < queryLength) {
+                word = vocabulary[random.nextInt(VOCABULARY_SIZE)];
+            }
+            int start = random.nextInt(word.length() - queryLength + 1);
+            queries[i] = word.substring(start, start + queryLength);
+        }
+        searchEngine = switch (engine) {
+            case "memory" -> memoryEngine(rows);
+            case "like" -> new LikeItemSearchEngine(database(rows, false));
+            case "postgres" -> new PostgresItemSearchEngine(database(rows, true));
+            case "trigram" -> new TrigramItemSearchEngine(database(rows, true));
+            default -> throw new IllegalArgumentException(engine);
+        };
+    }
+
+    /**
+     * Runs the next query for the first page of twenty items.
+     *
+     * @return the item ids
+     */
+    @Benchmark
+    public List<Long> search() {
+        return searchEngine.search(queries[next++ & (QUERY_COUNT - 1)], 0, 20);
+    }
+
+    /**
+     * Runs the next query as a fuzzy search for the first page of twenty items.
+     *
+     * @return the scored item ids
+     */
+    @Benchmark
+    public List<ItemSearchHit> searchFuzzy() {
+        return searchEngine.searchFuzzy(queries[next++ & (QUERY_COUNT - 1)], 0, 20);
+    }
+
+    /**
+     * Starts the benchmark.
+     *
+     * @param args the args
+     * @throws RunnerException if the run fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ItemSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static ItemSearchEngine memoryEngine(List<Object[]> rows) {
+        ItemRepository repository = (ItemRepository) Proxy.newProxyInstance(ItemRepository.class.getClassLoader(),
+                new Class<?>[]{ItemRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("streamSearchRows")) {
+                        return rows.stream();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        InMemoryItemSearchEngine memoryEngine = new InMemoryItemSearchEngine(repository,
+                TransactionOperations.withoutTransaction());
+        memoryEngine.build();
+        return memoryEngine;
+    }
+
+    private static NamedParameterJdbcTemplate database(List<Object[]> rows, boolean postgres) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1"),
+                System.getProperty("benchmark.jdbc.user", "sa"),
+                System.getProperty("benchmark.jdbc.password", ""));
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+        if (postgres) {
+            populator.addScript(new ClassPathResource("schema-postgresql.sql"));
+        }
+        populator.execute(dataSource);
+        NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        jdbcTemplate.getJdbcTemplate().update("INSERT INTO users (id, name, email) VALUES (1, 'owner', 'o@b.ru')");
+        try (Stream<List<Object[]>> chunks = IntStream.range(0, (rows.size() + 9_999) / 10_000)
+                .mapToObj(chunk -> rows.subList(chunk * 10_000, Math.min(rows.size(), (chunk + 1) * 10_000)))) {
+            chunks.forEach(chunk -> jdbcTemplate.getJdbcTemplate().batchUpdate(
+                    "INSERT INTO items (id, name, description, available, owner_id) VALUES (?, ?, ?, ?, 1)", chunk));
+        }
+        return jdbcTemplate;
+    }
+
+    private static String words(String[] vocabulary, Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(i == 0 ? "" : " ").append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return text.toString();
+    }
+
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        int length = 5 + random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+}
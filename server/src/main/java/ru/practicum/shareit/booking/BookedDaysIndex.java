@@ -0,0 +1,230 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.practicum.shareit.util.Transactions;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of the days each item is booked on by an approved booking.
+ * <p>
+ * The days of an item form a bit set keyed by epoch day from the first booked day of the item, so checking a
+ * window of dates is one scan for a set bit and filtering the items matching a search needs no booking query.
+ * A day counts as booked if an approved booking covers any part of it. The sets are immutable and replaced on
+ * every change, so lookups take no lock.
+ * <p>
+ * The approved bookings that have not ended are loaded with one streamed query when the application is ready,
+ * or on the first lookup if that comes earlier. Status changes are applied once their transaction commits:
+ * an approval adds the days of the booking, and a cancellation of an approved booking rebuilds the set of its
+ * item from the other bookings already in the index, so an approval of the same item still in flight is kept.
+ * Every night the bookings that have ended and the days before today are pruned, so the sets only cover the
+ * days still to come.
+ */
+@Slf4j
+@Component
+public class BookedDaysIndex {
+    private final BookingRepository repository;
+    private final TransactionOperations transactionOperations;
+    private final ConcurrentMap<Long, BookedDays> items = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private volatile boolean built;
+
+    /**
+     * Instantiates a new Booked days index.
+     *
+     * @param repository            the booking repository
+     * @param transactionOperations the transaction operations
+     */
+    @Autowired
+    public BookedDaysIndex(BookingRepository repository, TransactionOperations transactionOperations) {
+        this.repository = repository;
+        this.transactionOperations = transactionOperations;
+    }
+
+    /**
+     * Loads the index when the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (built) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (built) {
+                return;
+            }
+            transactionOperations.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = repository.streamIntervals(BookingStatus.APPROVED, startOfToday())) {
+                    rows.forEach(row -> addDays((Long) row[1], (Long) row[0], (LocalDateTime) row[2],
+                            (LocalDateTime) row[3]));
+                }
+            });
+            built = true;
+            log.info("Загружен индекс занятых дней: {} вещей", items.size());
+        }
+    }
+
+    /**
+     * Prunes the bookings that have ended and the days before today.
+     */
+    @Scheduled(cron = "${shareit.booking.booked-days.prune-cron:0 5 0 * * *}")
+    public void prune() {
+        prune(LocalDate.now());
+    }
+
+    /**
+     * Prunes the bookings that have ended and the days before the day.
+     *
+     * @param today the first day to keep
+     * @return the number of items left without booked days
+     */
+    int prune(LocalDate today) {
+        long first = today.toEpochDay();
+        int removed = 0;
+        synchronized (writeLock) {
+            for (Long itemId : items.keySet()) {
+                if (items.computeIfPresent(itemId, (id, days) -> days.from(first)) == null) {
+                    removed++;
+                }
+            }
+        }
+        log.info("Индекс занятых дней очищен до {}: удалено {} вещей", today, removed);
+        return removed;
+    }
+
+    /**
+     * Finds the items having no approved booking on any day of the window.
+     *
+     * @param itemIds the item ids
+     * @param start   the first day of the window
+     * @param end     the last day of the window
+     * @return the free item ids
+     */
+    public Set<Long> findFree(Collection<Long> itemIds, LocalDate start, LocalDate end) {
+        build();
+        long first = start.toEpochDay();
+        long last = end.toEpochDay();
+        Set<Long> free = new HashSet<>();
+        for (Long itemId : itemIds) {
+            BookedDays days = items.get(itemId);
+            if (days == null || !days.intersects(first, last)) {
+                free.add(itemId);
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Updates the days of the item once the transaction changing the status of its booking commits.
+     *
+     * @param booking        the booking
+     * @param previousStatus the previous status
+     */
+    public void onStatusChanged(Booking booking, BookingStatus previousStatus) {
+        Long itemId = booking.getItem().getId();
+        Long bookingId = booking.getId();
+        LocalDateTime start = booking.getStart();
+        LocalDateTime end = booking.getEnd();
+        BookingStatus status = booking.getStatus();
+        Transactions.afterCommit(() -> {
+            synchronized (writeLock) {
+                if (status == BookingStatus.APPROVED) {
+                    addDays(itemId, bookingId, start, end);
+                } else if (previousStatus == BookingStatus.APPROVED) {
+                    items.computeIfPresent(itemId, (id, days) -> days.without(bookingId));
+                }
+            }
+        });
+    }
+
+    private void addDays(Long itemId, Long bookingId, LocalDateTime start, LocalDateTime end) {
+        if (!end.isAfter(start)) {
+            return;
+        }
+        long first = start.toLocalDate().toEpochDay();
+        // a booking ending at midnight leaves the day it ends on free
+        long last = end.minusNanos(1).toLocalDate().toEpochDay();
+        items.compute(itemId, (id, days) -> (days == null ? BookedDays.EMPTY : days).with(bookingId, first, last));
+    }
+
+    private static LocalDateTime startOfToday() {
+        return LocalDate.now().atStartOfDay();
+    }
+
+    // the days of the approved bookings of an item as a bit set from its first booked day
+    private static final class BookedDays {
+        static final BookedDays EMPTY = new BookedDays(Map.of(), 0, new BitSet());
+
+        private final Map<Long, long[]> bookings;
+        private final long base;
+        private final BitSet days;
+
+        private BookedDays(Map<Long, long[]> bookings, long base, BitSet days) {
+            this.bookings = bookings;
+            this.base = base;
+            this.days = days;
+        }
+
+        static BookedDays of(Map<Long, long[]> bookings) {
+            long base = bookings.values().stream().mapToLong(range -> range[0]).min().orElse(0);
+            BitSet days = new BitSet();
+            for (long[] range : bookings.values()) {
+                days.set(Math.toIntExact(range[0] - base), Math.toIntExact(range[1] - base + 1));
+            }
+            return new BookedDays(bookings, base, days);
+        }
+
+        BookedDays with(Long bookingId, long first, long last) {
+            Map<Long, long[]> changed = new HashMap<>(bookings);
+            changed.put(bookingId, new long[]{first, last});
+            return of(changed);
+        }
+
+        BookedDays without(Long bookingId) {
+            if (!bookings.containsKey(bookingId)) {
+                return this;
+            }
+            Map<Long, long[]> changed = new HashMap<>(bookings);
+            changed.remove(bookingId);
+            return changed.isEmpty() ? null : of(changed);
+        }
+
+        // the bookings clipped to the days from the first one, or null if none of them reaches it
+        BookedDays from(long first) {
+            if (base >= first) {
+                return this;
+            }
+            Map<Long, long[]> changed = new HashMap<>();
+            bookings.forEach((bookingId, range) -> {
+                if (range[1] >= first) {
+                    changed.put(bookingId, new long[]{Math.max(range[0], first), range[1]});
+                }
+            });
+            return changed.isEmpty() ? null : of(changed);
+        }
+
+        boolean intersects(long first, long last) {
+            if (last < base) {
+                return false;
+            }
+            int next = days.nextSetBit(Math.toIntExact(Math.max(0, first - base)));
+            return next >= 0 && next + base <= last;
+        }
+    }
+}
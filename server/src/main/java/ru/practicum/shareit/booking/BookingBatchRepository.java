@@ -0,0 +1,72 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts bookings with a single JDBC batch.
+ * <p>
+ * Hibernate does not batch inserts of entities with identity ids, so bulk creation bypasses the entity
+ * manager and reads the generated ids back from the batch statement.
+ */
+@Repository
+public class BookingBatchRepository {
+    private static final String INSERT = "INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Instantiates a new Booking batch repository.
+     *
+     * @param jdbcTemplate the jdbc template
+     */
+    @Autowired
+    public BookingBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the bookings in one transaction and sets their generated ids.
+     *
+     * @param bookings the bookings
+     * @return the same bookings with ids
+     */
+    @Transactional
+    public List<Booking> insertAll(List<Booking> bookings) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        Booking booking = bookings.get(i);
+                        statement.setTimestamp(1, Timestamp.valueOf(booking.getStart()));
+                        statement.setTimestamp(2, Timestamp.valueOf(booking.getEnd()));
+                        statement.setLong(3, booking.getItem().getId());
+                        statement.setLong(4, booking.getBooker().getId());
+                        statement.setString(5, booking.getStatus().name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return bookings.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < bookings.size(); i++) {
+            bookings.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+        return bookings;
+    }
+}
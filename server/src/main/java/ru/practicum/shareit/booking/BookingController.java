@@ -2,9 +2,16 @@ package ru.practicum.shareit.booking;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingStatsDto;
 
 import java.util.List;
 
@@ -18,6 +25,8 @@ public class BookingController {
     private static final String USER_ID = "X-Sharer-User-Id";
     private final BookingService service;
     private static final String BOOKING_ID = "{booking-id}";
+    private static final String NEXT_CURSOR = "X-Next-Cursor";
+    private static final String NDJSON = "application/x-ndjson";
 
     /**
      * Instantiates a new Booking controller.
@@ -45,6 +54,22 @@ public class BookingController {
         return service.create(bookingInputDto, bookerId);
     }
 
+    /**
+     * Create bookings in bulk.
+     *
+     * @param bookingInputDtos the booking input dtos
+     * @param bookerId         the booker id
+     * @return the result of every entry
+     */
+    @ResponseBody
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createAll(@RequestBody List<BookingInputDto> bookingInputDtos,
+                                                 @RequestHeader(USER_ID) Long bookerId) {
+        log.info("Получен POST-запрос к эндпоинту: '/bookings/batch' на создание {} бронирований " +
+                "от пользователя с ID={}", bookingInputDtos.size(), bookerId);
+        return service.createAll(bookingInputDtos, bookerId);
+    }
+
     /**
      * Update booking dto.
      *
@@ -79,14 +104,23 @@ public class BookingController {
      *
      * @param state  the state
      * @param userId the user id
+     * @param itemId the item id filter
+     * @param from   the from
+     * @param size   the size
+     * @param cursor the cursor of the next page
      * @return the bookings
      */
     @GetMapping
-    public List<BookingDto> getBookings(@RequestParam(name = "state", defaultValue = "ALL") String state,
-                                        @RequestHeader(USER_ID) Long userId) {
+    public ResponseEntity<List<BookingDto>> getBookings(@RequestParam(name = "state", defaultValue = "ALL")
+                                                        String state,
+                                                        @RequestHeader(USER_ID) Long userId,
+                                                        @RequestParam(required = false) Long itemId,
+                                                        @RequestParam(defaultValue = "0") Integer from,
+                                                        @RequestParam(required = false) Integer size,
+                                                        @RequestParam(required = false) String cursor) {
         log.info("Получен GET-запрос к эндпоинту: '/bookings' на получение " +
                 "списка всех бронирований пользователя с ID={} с параметром STATE={}", userId, state);
-        return service.getBookings(state, userId);
+        return toResponse(service.getBookings(state, userId, itemId, from, size, cursor));
     }
 
     /**
@@ -94,13 +128,87 @@ public class BookingController {
      *
      * @param state  the state
      * @param userId the user id
+     * @param itemId the item id filter
+     * @param from   the from
+     * @param size   the size
+     * @param cursor the cursor of the next page
      * @return the bookings owner
      */
     @GetMapping("/owner")
-    public List<BookingDto> getBookingsOwner(@RequestParam(name = "state", defaultValue = "ALL") String state,
-                                             @RequestHeader(USER_ID) Long userId) {
+    public ResponseEntity<List<BookingDto>> getBookingsOwner(@RequestParam(name = "state", defaultValue = "ALL")
+                                                             String state,
+                                                             @RequestHeader(USER_ID) Long userId,
+                                                             @RequestParam(required = false) Long itemId,
+                                                             @RequestParam(defaultValue = "0") Integer from,
+                                                             @RequestParam(required = false) Integer size,
+                                                             @RequestParam(required = false) String cursor) {
         log.info("Получен GET-запрос к эндпоинту: '/bookings/owner' на получение " +
                 "списка всех бронирований вещей пользователя с ID={} с параметром STATE={}", userId, state);
-        return service.getBookingsOwner(state, userId);
+        return toResponse(service.getBookingsOwner(state, userId, itemId, from, size, cursor));
+    }
+
+    /**
+     * Export bookings owner as newline delimited JSON.
+     *
+     * @param userId the user id
+     * @return the streaming body
+     */
+    @GetMapping(value = "/owner/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportBookingsOwner(@RequestHeader(USER_ID) Long userId) {
+        log.info("Получен GET-запрос к эндпоинту: '/bookings/owner/export' на выгрузку " +
+                "всех бронирований вещей пользователя с ID={}", userId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(service.exportBookingsOwner(userId));
+    }
+
+    /**
+     * Gets the number of bookings made by the user in each state.
+     *
+     * @param userId the user id
+     * @return the stats
+     */
+    @GetMapping("/stats")
+    public BookingStatsDto getStats(@RequestHeader(USER_ID) Long userId) {
+        log.info("Получен GET-запрос к эндпоинту: '/bookings/stats' на получение количества бронирований " +
+                "пользователя с ID={}", userId);
+        return service.getStats(userId);
+    }
+
+    /**
+     * Gets the number of bookings of the items owned by the user in each state.
+     *
+     * @param userId the user id
+     * @return the stats
+     */
+    @GetMapping("/owner/stats")
+    public BookingStatsDto getStatsOwner(@RequestHeader(USER_ID) Long userId) {
+        log.info("Получен GET-запрос к эндпоинту: '/bookings/owner/stats' на получение количества бронирований " +
+                "вещей пользователя с ID={}", userId);
+        return service.getStatsOwner(userId);
+    }
+
+    /**
+     * Gets the change feed of bookings: creations and status changes in the order they were relayed.
+     * A reader resumes by passing the offset of the last event it has processed.
+     *
+     * @param after the offset of the last event already read
+     * @param limit the maximum number of events
+     * @return the events
+     */
+    @GetMapping("/events")
+    public List<BookingEventDto> getEvents(@RequestParam(defaultValue = "0") Long after,
+                                           @RequestParam(defaultValue = "100") Integer limit) {
+        log.info("Получен GET-запрос к эндпоинту: '/bookings/events' на получение событий бронирований " +
+                "после смещения {}", after);
+        return service.getEvents(after, limit);
+    }
+
+    private ResponseEntity<List<BookingDto>> toResponse(BookingPageDto page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR, page.getNextCursor());
+        }
+        return response.body(page.getBookings());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.util.List;
+
+/**
+ * Drains the booking outbox to the configured {@link BookingEventSink} in batches.
+ * <p>
+ * Each batch gets the next consecutive feed offsets, is published and then has its offsets stored, which also
+ * marks it relayed. The relay is the only writer of offsets, so it must run on a single instance.
+ */
+@Slf4j
+@Component
+public class BookingEventRelay {
+    private final BookingEventRepository eventRepository;
+    private final BookingEventSink sink;
+    private final int batchSize;
+
+    /**
+     * Instantiates a new Booking event relay.
+     *
+     * @param eventRepository the booking event repository
+     * @param sink            the sink
+     * @param batchSize       the number of events published at once
+     */
+    @Autowired
+    public BookingEventRelay(BookingEventRepository eventRepository, BookingEventSink sink,
+                             @Value("${shareit.booking.events.relay-batch-size:500}") int batchSize) {
+        this.eventRepository = eventRepository;
+        this.sink = sink;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Relays all pending events.
+     *
+     * @return the number of relayed events
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking.events.relay-delay-ms:1000}")
+    public synchronized int relay() {
+        int relayed = 0;
+        long offset = eventRepository.getLastOffset();
+        List<BookingEventDto> events = eventRepository.findPending(batchSize);
+        while (!events.isEmpty()) {
+            for (BookingEventDto event : events) {
+                event.setOffset(++offset);
+            }
+            sink.publish(events);
+            eventRepository.saveOffsets(events);
+            relayed += events.size();
+            events = events.size() < batchSize ? List.of() : eventRepository.findPending(batchSize);
+        }
+        if (relayed > 0) {
+            log.debug("Передано {} событий бронирований", relayed);
+        }
+        return relayed;
+    }
+}
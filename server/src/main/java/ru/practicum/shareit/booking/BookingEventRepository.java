@@ -0,0 +1,139 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Outbox of booking events.
+ * <p>
+ * Events are appended in the transaction that changes the booking. The relay gives them consecutive feed offsets
+ * in the order it publishes them, so a reader resuming after an offset never skips an event committed late.
+ */
+@Repository
+public class BookingEventRepository {
+    private static final String COLUMNS = "id, feed_offset, booking_id, item_id, booker_id, status, start_date, " +
+            "end_date, created";
+    private static final String INSERT = "INSERT INTO booking_events (booking_id, item_id, booker_id, status, " +
+            "start_date, end_date, created) VALUES (:bookingId, :itemId, :bookerId, :status, :start, :end, :created)";
+    private static final String INSERT_BY_IDS = "INSERT INTO booking_events (booking_id, item_id, booker_id, " +
+            "status, start_date, end_date, created) SELECT id, item_id, booker_id, status, start_date, end_date, " +
+            ":created FROM bookings WHERE id IN (:ids) AND status = :status";
+    private static final RowMapper<BookingEventDto> ROW_MAPPER = (rs, rowNum) -> new BookingEventDto(
+            rs.getLong("id"),
+            rs.getObject("feed_offset", Long.class),
+            rs.getLong("booking_id"),
+            rs.getLong("item_id"),
+            rs.getLong("booker_id"),
+            BookingStatus.valueOf(rs.getString("status")),
+            toLocalDateTime(rs.getTimestamp("start_date")),
+            toLocalDateTime(rs.getTimestamp("end_date")),
+            toLocalDateTime(rs.getTimestamp("created")));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Instantiates a new Booking event repository.
+     *
+     * @param jdbcTemplate the named parameter jdbc template
+     */
+    @Autowired
+    public BookingEventRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Appends an event with the current state of every booking.
+     *
+     * @param bookings the bookings
+     * @param created  the time of the event
+     */
+    public void append(List<Booking> bookings, LocalDateTime created) {
+        jdbcTemplate.batchUpdate(INSERT, bookings.stream()
+                .map(booking -> new MapSqlParameterSource()
+                        .addValue("bookingId", booking.getId())
+                        .addValue("itemId", booking.getItem().getId())
+                        .addValue("bookerId", booking.getBooker().getId())
+                        .addValue("status", booking.getStatus().name())
+                        .addValue("start", Timestamp.valueOf(booking.getStart()))
+                        .addValue("end", Timestamp.valueOf(booking.getEnd()))
+                        .addValue("created", Timestamp.valueOf(created)))
+                .toArray(MapSqlParameterSource[]::new));
+    }
+
+    /**
+     * Appends an event for every booking of the ids that is in the status, reading the bookings in the same statement.
+     *
+     * @param ids     the booking ids
+     * @param status  the status
+     * @param created the time of the event
+     * @return the number of appended events
+     */
+    public int appendByIds(Collection<Long> ids, BookingStatus status, LocalDateTime created) {
+        return jdbcTemplate.update(INSERT_BY_IDS, new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("status", status.name())
+                .addValue("created", Timestamp.valueOf(created)));
+    }
+
+    /**
+     * Finds the events that have not been relayed yet in the order they were appended.
+     *
+     * @param limit the maximum number of events
+     * @return the events
+     */
+    public List<BookingEventDto> findPending(int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM booking_events WHERE feed_offset IS NULL " +
+                "ORDER BY id LIMIT :limit", new MapSqlParameterSource("limit", limit), ROW_MAPPER);
+    }
+
+    /**
+     * Finds the relayed events after the offset in feed order.
+     *
+     * @param after the offset of the last event already read
+     * @param limit the maximum number of events
+     * @return the events
+     */
+    public List<BookingEventDto> findAfter(long after, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM booking_events WHERE feed_offset > :after " +
+                "ORDER BY feed_offset LIMIT :limit", new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("limit", limit), ROW_MAPPER);
+    }
+
+    /**
+     * Gets the offset of the last relayed event.
+     *
+     * @return the offset, 0 if nothing has been relayed
+     */
+    public long getLastOffset() {
+        Long offset = jdbcTemplate.queryForObject("SELECT MAX(feed_offset) FROM booking_events",
+                new MapSqlParameterSource(), Long.class);
+        return offset == null ? 0 : offset;
+    }
+
+    /**
+     * Stores the feed offsets of the relayed events.
+     *
+     * @param events the events with offsets
+     */
+    public void saveOffsets(List<BookingEventDto> events) {
+        jdbcTemplate.batchUpdate("UPDATE booking_events SET feed_offset = :offset WHERE id = :id", events.stream()
+                .map(event -> new MapSqlParameterSource()
+                        .addValue("offset", event.getOffset())
+                        .addValue("id", event.getId()))
+                .toArray(MapSqlParameterSource[]::new));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
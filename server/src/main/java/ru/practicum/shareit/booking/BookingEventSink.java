@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.util.List;
+
+/**
+ * Destination the outbox relay publishes booking events to.
+ * Delivery is at least once: a batch may be published again if the relay stops before storing its offsets.
+ */
+public interface BookingEventSink {
+    /**
+     * Publishes the events in feed order.
+     *
+     * @param events the events
+     */
+    void publish(List<BookingEventDto> events);
+}
@@ -0,0 +1,193 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.practicum.shareit.util.TimingWheel;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves bookings that are still waiting for approval some time after their start to EXPIRED.
+ * <p>
+ * The start of every waiting booking is scheduled in a {@link TimingWheel} shifted by the grace period.
+ * The wheel is filled from the database on the first run and kept current by booking writes, and every run
+ * expires the due bookings with one guarded UPDATE per batch, writing their outbox events and
+ * counters in the same transaction.
+ */
+@Slf4j
+@Component
+public class BookingExpiryService {
+    private static final long TICK_MILLIS = 1_000;
+    private static final int WHEEL_SIZE = 64;
+    private static final int UPDATE_BATCH_SIZE = 500;
+
+    private final BookingRepository repository;
+    private final BookingIntervalIndex intervalIndex;
+    private final BookingEventRepository eventRepository;
+    private final BookingStatsService statsService;
+    private final TransactionOperations transactionOperations;
+    private final Duration grace;
+    private final Counter expiredCounter;
+    private final Set<Long> pending = new HashSet<>();
+    private final List<Long> overdue = new ArrayList<>();
+    private TimingWheel<Long> wheel;
+
+    /**
+     * Instantiates a new Booking expiry service.
+     *
+     * @param repository            the booking repository
+     * @param intervalIndex         the booking interval index
+     * @param eventRepository       the booking event repository
+     * @param statsService          the booking stats service
+     * @param transactionOperations the transaction operations
+     * @param meterRegistry         the meter registry
+     * @param graceMillis           the time after the start a booking may stay waiting
+     */
+    @Autowired
+    public BookingExpiryService(BookingRepository repository, BookingIntervalIndex intervalIndex,
+                                BookingEventRepository eventRepository, BookingStatsService statsService,
+                                TransactionOperations transactionOperations,
+                                MeterRegistry meterRegistry,
+                                @Value("${shareit.booking.expiry.grace-ms:300000}") long graceMillis) {
+        this.repository = repository;
+        this.intervalIndex = intervalIndex;
+        this.eventRepository = eventRepository;
+        this.statsService = statsService;
+        this.transactionOperations = transactionOperations;
+        this.grace = Duration.ofMillis(graceMillis);
+        this.expiredCounter = Counter.builder("shareit.bookings.expired")
+                .description("Bookings moved from WAITING to EXPIRED")
+                .register(meterRegistry);
+        Gauge.builder("shareit.bookings.expiry.pending", this, BookingExpiryService::getPendingCount)
+                .description("Waiting bookings scheduled for expiry")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Schedules the expiry of a new waiting booking.
+     *
+     * @param booking the booking
+     */
+    public synchronized void onCreated(Booking booking) {
+        if (wheel != null && booking.getStatus() == BookingStatus.WAITING) {
+            schedule(booking.getId(), booking.getStart());
+        }
+    }
+
+    /**
+     * Cancels the expiry of a booking that is no longer waiting.
+     *
+     * @param booking the booking
+     */
+    public synchronized void onStatusChanged(Booking booking) {
+        if (booking.getStatus() != BookingStatus.WAITING) {
+            pending.remove(booking.getId());
+        }
+    }
+
+    /**
+     * Gets the number of waiting bookings scheduled for expiry.
+     *
+     * @return the pending count
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Expires the due bookings.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.tick-ms:1000}")
+    public void expireDue() {
+        expireDue(LocalDateTime.now());
+    }
+
+    /**
+     * Expires the bookings that are still waiting a grace period after their start.
+     *
+     * @param now the now
+     * @return the number of expired bookings
+     */
+    int expireDue(LocalDateTime now) {
+        List<Long> due = collectDue(now);
+        int expired = 0;
+        for (int from = 0; from < due.size(); from += UPDATE_BATCH_SIZE) {
+            List<Long> batch = List.copyOf(due.subList(from, Math.min(from + UPDATE_BATCH_SIZE, due.size())));
+            List<BookingInterval> intervals;
+            try {
+                intervals = transactionOperations.execute(status -> {
+                    if (repository.expireWaiting(batch, now.minus(grace)) == 0) {
+                        return List.<BookingInterval>of();
+                    }
+                    eventRepository.appendByIds(batch, BookingStatus.EXPIRED, now);
+                    List<BookingInterval> expiredIntervals = repository.findIntervalsByIdInAndStatus(batch,
+                            BookingStatus.EXPIRED);
+                    statsService.onStatusChanged(expiredIntervals.stream().map(BookingInterval::getId).toList(),
+                            BookingStatus.WAITING, BookingStatus.EXPIRED);
+                    return expiredIntervals;
+                });
+            } catch (RuntimeException e) {
+                requeue(batch);
+                log.warn("Не удалось перевести {} бронирований в EXPIRED: {}", batch.size(), e.getMessage());
+                continue;
+            }
+            complete(batch);
+            for (BookingInterval interval : intervals) {
+                intervalIndex.remove(interval.getItemId(), interval.getId());
+            }
+            expired += intervals.size();
+        }
+        if (expired > 0) {
+            expiredCounter.increment(expired);
+            log.info("Истек срок подтверждения {} бронирований", expired);
+        }
+        return expired;
+    }
+
+    private synchronized List<Long> collectDue(LocalDateTime now) {
+        if (wheel == null) {
+            wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, toMillis(now));
+            for (BookingInterval interval : repository.findIntervalsByStatus(BookingStatus.WAITING)) {
+                schedule(interval.getId(), interval.getStart());
+            }
+        }
+        List<Long> due = new ArrayList<>(overdue);
+        overdue.clear();
+        due.addAll(wheel.advance(toMillis(now)));
+        // the ids stay pending until their batch commits, so a failed batch can be retried
+        due.removeIf(bookingId -> !pending.contains(bookingId));
+        return due;
+    }
+
+    private synchronized void complete(List<Long> batch) {
+        batch.forEach(pending::remove);
+    }
+
+    private synchronized void requeue(List<Long> batch) {
+        overdue.addAll(batch);
+    }
+
+    private void schedule(Long bookingId, LocalDateTime start) {
+        pending.add(bookingId);
+        if (!wheel.add(bookingId, toMillis(start.plus(grace)))) {
+            overdue.add(bookingId);
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
+
+/**
+ * Writes bookings as newline delimited JSON while they are read from the database.
+ * <p>
+ * Rows are selected as {@link BookingExportDto} projections through a forward-only cursor, so neither
+ * the persistence context nor the response buffer grows with the number of exported bookings.
+ */
+@Component
+public class BookingExporter {
+    private static final int LINE_SEPARATOR = '\n';
+
+    private final BookingRepository repository;
+    private final ObjectWriter writer;
+
+    /**
+     * Instantiates a new Booking exporter.
+     *
+     * @param repository   the booking repository
+     * @param objectMapper the object mapper
+     */
+    @Autowired
+    public BookingExporter(BookingRepository repository, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.writer = objectMapper.writerFor(BookingExportDto.class);
+    }
+
+    /**
+     * Writes all bookings of the owner items, one JSON object per line.
+     *
+     * @param ownerId      the owner id
+     * @param outputStream the output stream
+     * @throws IOException if the output stream fails
+     */
+    @Transactional(readOnly = true)
+    public void exportByItemOwner(Long ownerId, OutputStream outputStream) throws IOException {
+        try (Stream<BookingExportDto> bookings = repository.streamExportByItemOwnerId(ownerId)) {
+            bookings.forEach(booking -> writeLine(booking, outputStream));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        outputStream.flush();
+    }
+
+    private void writeLine(BookingExportDto booking, OutputStream outputStream) {
+        try {
+            outputStream.write(writer.writeValueAsBytes(booking));
+            outputStream.write(LINE_SEPARATOR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
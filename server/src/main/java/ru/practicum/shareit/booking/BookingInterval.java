@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * The type Booking interval.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BookingInterval {
+    Long id;
+    Long itemId;
+    LocalDateTime start;
+    LocalDateTime end;
+
+    /**
+     * Instantiates a new Booking interval of a known item.
+     *
+     * @param id    the id
+     * @param start the start
+     * @param end   the end
+     */
+    public BookingInterval(Long id, LocalDateTime start, LocalDateTime end) {
+        this(id, null, start, end);
+    }
+}
@@ -0,0 +1,387 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
+import ru.practicum.shareit.util.Transactions;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory index of the waiting and approved booking intervals of each item.
+ * <p>
+ * Intervals of an item are kept in arrays sorted by start together with the running maximum of their ends,
+ * so an overlap check is one binary search and free slots are found by sweeping only the intervals that
+ * intersect the requested window. An item is loaded with one indexed query on first access and is then kept
+ * current by booking writes. If the transaction of a write rolls back, the intervals it has added are removed
+ * again, while the intervals other transactions have added and not yet committed stay.
+ */
+@Component
+public class BookingIntervalIndex {
+    private static final List<BookingStatus> ACTIVE_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final BookingRepository repository;
+    private final ConcurrentMap<Long, ItemIntervals> items = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new Booking interval index.
+     *
+     * @param repository the booking repository
+     */
+    @Autowired
+    @Lazy
+    public BookingIntervalIndex(BookingRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Checks that the interval does not overlap any active booking of the item.
+     *
+     * @param itemId the item id
+     * @param start  the start
+     * @param end    the end
+     * @return the boolean
+     */
+    public boolean isFree(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return !intervalsOf(itemId).snapshot.overlaps(toKey(start), toKey(end));
+    }
+
+    /**
+     * Gets free slots of the item inside the window.
+     *
+     * @param itemId the item id
+     * @param from   the window start
+     * @param to     the window end
+     * @return the free slots in ascending order
+     */
+    public List<FreeSlotDto> getFreeSlots(Long itemId, LocalDateTime from, LocalDateTime to) {
+        List<FreeSlotDto> slots = new ArrayList<>();
+        for (long[] slot : intervalsOf(itemId).snapshot.freeSlots(toKey(from), toKey(to))) {
+            slots.add(new FreeSlotDto(fromKey(slot[0]), fromKey(slot[1])));
+        }
+        return slots;
+    }
+
+    /**
+     * Saves the booking if its interval is still free and adds it to the index.
+     * The check and the save are serialized per item, so two overlapping bookings can not both pass.
+     *
+     * @param booking the booking
+     * @param save    the save operation
+     * @return the saved booking or null if the interval overlaps an active booking
+     */
+    public Booking saveIfFree(Booking booking, UnaryOperator<Booking> save) {
+        ItemIntervals intervals = intervalsOf(booking.getItem().getId());
+        intervals.lock.lock();
+        try {
+            long start = toKey(booking.getStart());
+            long end = toKey(booking.getEnd());
+            if (intervals.snapshot.overlaps(start, end)) {
+                return null;
+            }
+            Booking saved = save.apply(booking);
+            intervals.snapshot = intervals.snapshot.with(saved.getId(), start, end);
+            removeOnRollback(List.of(saved));
+            return saved;
+        } finally {
+            intervals.lock.unlock();
+        }
+    }
+
+    /**
+     * Saves the bookings whose intervals are free and adds them to the index.
+     * A booking is rejected if it overlaps an active booking or an earlier accepted booking of the same batch.
+     * The items of the batch are locked in ascending id order for the whole check and save.
+     *
+     * @param bookings the bookings
+     * @param saveAll  the save operation, returns the saved bookings in the given order
+     * @return the saved bookings in the order of the batch, null for every rejected booking
+     */
+    public List<Booking> saveAllIfFree(List<Booking> bookings, UnaryOperator<List<Booking>> saveAll) {
+        Map<Long, ItemIntervals> locked = new TreeMap<>();
+        for (Booking booking : bookings) {
+            locked.put(booking.getItem().getId(), null);
+        }
+        loadAll(locked.keySet());
+        locked.replaceAll((itemId, intervals) -> intervalsOf(itemId));
+        return withLocks(new ArrayList<>(locked.values()), 0, () -> {
+            Map<Long, Snapshot> pending = new HashMap<>();
+            List<Booking> accepted = new ArrayList<>();
+            List<Booking> result = new ArrayList<>();
+            for (int i = 0; i < bookings.size(); i++) {
+                Booking booking = bookings.get(i);
+                Long itemId = booking.getItem().getId();
+                Snapshot snapshot = pending.getOrDefault(itemId, locked.get(itemId).snapshot);
+                long start = toKey(booking.getStart());
+                long end = toKey(booking.getEnd());
+                if (snapshot.overlaps(start, end)) {
+                    result.add(null);
+                } else {
+                    pending.put(itemId, snapshot.with(-1L - i, start, end));
+                    accepted.add(booking);
+                    result.add(booking);
+                }
+            }
+            if (accepted.isEmpty()) {
+                return result;
+            }
+            List<Booking> saved = saveAll.apply(accepted);
+            for (int i = 0, j = 0; i < result.size(); i++) {
+                if (result.get(i) != null) {
+                    Booking booking = saved.get(j++);
+                    ItemIntervals intervals = locked.get(booking.getItem().getId());
+                    intervals.snapshot = intervals.snapshot.with(booking.getId(), toKey(booking.getStart()),
+                            toKey(booking.getEnd()));
+                    result.set(i, booking);
+                }
+            }
+            removeOnRollback(saved);
+            return result;
+        });
+    }
+
+    /**
+     * Updates the index after the status of the booking has changed.
+     *
+     * @param booking the booking
+     */
+    public void onStatusChanged(Booking booking) {
+        if (!ACTIVE_STATUSES.contains(booking.getStatus())) {
+            remove(booking.getItem().getId(), booking.getId());
+        }
+    }
+
+    /**
+     * Removes the booking that is no longer active from the index.
+     *
+     * @param itemId    the item id
+     * @param bookingId the booking id
+     */
+    public void remove(Long itemId, Long bookingId) {
+        ItemIntervals intervals = items.get(itemId);
+        if (intervals != null) {
+            intervals.lock.lock();
+            try {
+                intervals.snapshot = intervals.snapshot.without(bookingId);
+            } finally {
+                intervals.lock.unlock();
+            }
+        }
+    }
+
+    // the intervals added by a transaction that rolls back must not keep blocking their slots, the item is
+    // not dropped, since a reload could not see the uncommitted intervals of other transactions
+    private void removeOnRollback(List<Booking> saved) {
+        List<long[]> added = saved.stream()
+                .map(booking -> new long[]{booking.getItem().getId(), booking.getId()})
+                .toList();
+        Transactions.afterRollback(() -> added.forEach(interval -> remove(interval[0], interval[1])));
+    }
+
+    private static <T> T withLocks(List<ItemIntervals> locks, int from, Supplier<T> action) {
+        if (from == locks.size()) {
+            return action.get();
+        }
+        ReentrantLock lock = locks.get(from).lock;
+        lock.lock();
+        try {
+            return withLocks(locks, from + 1, action);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // the query runs outside the map, the first loaded intervals of an item win and are never replaced
+    private ItemIntervals intervalsOf(Long itemId) {
+        ItemIntervals intervals = items.get(itemId);
+        if (intervals != null) {
+            return intervals;
+        }
+        ItemIntervals loaded = load(itemId);
+        ItemIntervals raced = items.putIfAbsent(itemId, loaded);
+        return raced == null ? loaded : raced;
+    }
+
+    private ItemIntervals load(Long itemId) {
+        return toIntervals(repository.findIntervalsByItemIdAndStatusIn(itemId, ACTIVE_STATUSES));
+    }
+
+    private void loadAll(Collection<Long> itemIds) {
+        List<Long> missing = itemIds.stream()
+                .filter(itemId -> !items.containsKey(itemId))
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<Long, List<BookingInterval>> loaded = new HashMap<>();
+        for (Long itemId : missing) {
+            loaded.put(itemId, new ArrayList<>());
+        }
+        for (BookingInterval interval : repository.findIntervalsByItemIdInAndStatusIn(missing, ACTIVE_STATUSES)) {
+            loaded.get(interval.getItemId()).add(interval);
+        }
+        loaded.forEach((itemId, sorted) -> items.putIfAbsent(itemId, toIntervals(sorted)));
+    }
+
+    private static ItemIntervals toIntervals(List<BookingInterval> sorted) {
+        long[] ids = new long[sorted.size()];
+        long[] starts = new long[sorted.size()];
+        long[] ends = new long[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            ids[i] = sorted.get(i).getId();
+            starts[i] = toKey(sorted.get(i).getStart());
+            ends[i] = toKey(sorted.get(i).getEnd());
+        }
+        ItemIntervals intervals = new ItemIntervals();
+        intervals.snapshot = new Snapshot(ids, starts, ends, Snapshot.runningMax(ends, new long[0], 0));
+        return intervals;
+    }
+
+    private static long toKey(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + dateTime.getNano();
+    }
+
+    private static LocalDateTime fromKey(long key) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(key, NANOS_PER_SECOND),
+                (int) Math.floorMod(key, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+
+    // a ReentrantLock rather than a monitor, so a virtual thread of the write lanes blocked on the database
+    // while holding it does not pin its carrier thread
+    private static final class ItemIntervals {
+        final ReentrantLock lock = new ReentrantLock();
+        volatile Snapshot snapshot;
+    }
+
+    /**
+     * Immutable sorted view of the intervals of one item. Intervals are half-open: [start, end).
+     */
+    static final class Snapshot {
+        final long[] ids;
+        final long[] starts;
+        final long[] ends;
+        final long[] maxEnds;
+
+        Snapshot(long[] ids, long[] starts, long[] ends, long[] maxEnds) {
+            this.ids = ids;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnds = maxEnds;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        boolean overlaps(long start, long end) {
+            int candidates = countStartsBefore(end);
+            return candidates > 0 && maxEnds[candidates - 1] > start;
+        }
+
+        List<long[]> freeSlots(long from, long to) {
+            List<long[]> slots = new ArrayList<>();
+            if (from >= to) {
+                return slots;
+            }
+            long cursor = from;
+            for (int i = firstEndingAfter(from); i < size() && starts[i] < to; i++) {
+                if (starts[i] > cursor) {
+                    slots.add(new long[]{cursor, starts[i]});
+                }
+                cursor = Math.max(cursor, ends[i]);
+            }
+            if (cursor < to) {
+                slots.add(new long[]{cursor, to});
+            }
+            return slots;
+        }
+
+        Snapshot with(long id, long start, long end) {
+            int position = countStartsBefore(start);
+            while (position < size() && starts[position] == start && ids[position] < id) {
+                position++;
+            }
+            long[] newIds = insert(ids, position, id);
+            long[] newStarts = insert(starts, position, start);
+            long[] newEnds = insert(ends, position, end);
+            return new Snapshot(newIds, newStarts, newEnds, runningMax(newEnds, maxEnds, position));
+        }
+
+        Snapshot without(long id) {
+            for (int position = 0; position < size(); position++) {
+                if (ids[position] == id) {
+                    long[] newEnds = remove(ends, position);
+                    return new Snapshot(remove(ids, position), remove(starts, position), newEnds,
+                            runningMax(newEnds, maxEnds, position));
+                }
+            }
+            return this;
+        }
+
+        private int countStartsBefore(long key) {
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] < key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private int firstEndingAfter(long key) {
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (maxEnds[middle] > key) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+
+        private static long[] insert(long[] source, int position, long value) {
+            long[] target = new long[source.length + 1];
+            System.arraycopy(source, 0, target, 0, position);
+            target[position] = value;
+            System.arraycopy(source, position, target, position + 1, source.length - position);
+            return target;
+        }
+
+        private static long[] remove(long[] source, int position) {
+            long[] target = new long[source.length - 1];
+            System.arraycopy(source, 0, target, 0, position);
+            System.arraycopy(source, position + 1, target, position, source.length - position - 1);
+            return target;
+        }
+
+        static long[] runningMax(long[] ends, long[] previousMaxEnds, int changedFrom) {
+            long[] result = Arrays.copyOf(previousMaxEnds, ends.length);
+            for (int i = changedFrom; i < ends.length; i++) {
+                result[i] = i == 0 ? ends[i] : Math.max(result[i - 1], ends[i]);
+            }
+            return result;
+        }
+    }
+}
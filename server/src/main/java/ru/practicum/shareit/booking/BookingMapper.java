@@ -52,8 +52,8 @@ public class BookingMapper {
                     booking.getId(),
                     booking.getStart(),
                     booking.getEnd(),
-                    itemMapper.toItemDto(booking.getItem()),
-                    userMapper.toUserDto(booking.getBooker()),
+                    itemMapper.toItemShortDto(booking.getItem()),
+                    userMapper.toUserShortDto(booking.getBooker()),
                     booking.getStatus()
             );
         } else {
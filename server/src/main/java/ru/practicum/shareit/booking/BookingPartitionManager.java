@@ -0,0 +1,83 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the monthly partitions of the bookings table ahead of time.
+ * <p>
+ * Enabled on PostgreSQL, where schema-postgresql.sql makes bookings a table partitioned by start_date. Every run
+ * makes sure the current month and the configured number of months after it have their own partition, so new
+ * bookings never land in the default partition and queries bounded by start_date skip the cold months.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking.partitions.enabled", havingValue = "true")
+public class BookingPartitionManager {
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String CREATE_PARTITION = "CREATE TABLE IF NOT EXISTS bookings_%s PARTITION OF bookings " +
+            "FOR VALUES FROM ('%s') TO ('%s')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+
+    /**
+     * Instantiates a new Booking partition manager.
+     *
+     * @param jdbcTemplate the jdbc template
+     * @param monthsAhead  the number of months after the current one to create partitions for
+     */
+    @Autowired
+    public BookingPartitionManager(JdbcTemplate jdbcTemplate,
+                                   @Value("${shareit.booking.partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+
+    /**
+     * Creates the missing partitions once the application has started and then daily.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.booking.partitions.cron:0 0 3 * * *}")
+    public void createPartitions() {
+        createPartitions(LocalDate.now());
+    }
+
+    /**
+     * Creates the partitions of the month of the date and the months after it.
+     *
+     * @param today the today
+     * @return the names of the partitions that exist afterwards
+     */
+    List<String> createPartitions(LocalDate today) {
+        List<String> partitions = new ArrayList<>();
+        YearMonth month = YearMonth.from(today);
+        for (int i = 0; i <= monthsAhead; i++, month = month.plusMonths(1)) {
+            String suffix = month.format(SUFFIX);
+            try {
+                jdbcTemplate.execute(String.format(CREATE_PARTITION, suffix, month.atDay(1),
+                        month.plusMonths(1).atDay(1)));
+                partitions.add("bookings_" + suffix);
+            } catch (DataAccessException e) {
+                // the default partition already holds bookings of the month, they stay there
+                log.warn("Не удалось создать секцию бронирований за {}: {}", month, e.getMessage());
+            }
+        }
+        log.debug("Секции бронирований: {}", partitions);
+        return partitions;
+    }
+}
@@ -0,0 +1,273 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.util.TimingWheel;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read model of the last and the next booking of each item.
+ * <p>
+ * The pointers of an item are loaded with the batched last/next queries on first access and stay valid
+ * until the earliest moment they can change by the passage of time: the start of the next booking or
+ * the end of a booking that is not finished yet. New bookings move the pointers in place, so item views are
+ * served by a key lookup.
+ * <p>
+ * The refresh moments are scheduled in a {@link TimingWheel}, and a scheduled job reloads the due items that
+ * have been read since they were loaded and drops the others, so it touches only the due items and an item
+ * nobody looks at is not reloaded again and again. The index keeps at most shareit.booking.pointers.max-items
+ * items and evicts the least recently read ones beyond that.
+ */
+@Component
+public class BookingPointerIndex {
+    private static final int RELOAD_CHUNK_SIZE = 500;
+    private static final long TICK_MILLIS = 1_000;
+    private static final int WHEEL_SIZE = 64;
+
+    private final BookingRepository repository;
+    private final BookingMapper mapper;
+    private final Map<Long, Entry> pointers;
+    private final List<Long> overdue = new ArrayList<>();
+    private final AtomicLong writes = new AtomicLong();
+    private TimingWheel<Long> refreshes;
+
+    /**
+     * Instantiates a new Booking pointer index.
+     *
+     * @param repository the booking repository
+     * @param mapper     the booking mapper
+     * @param maxItems   the maximum number of items kept in the index
+     */
+    @Autowired
+    public BookingPointerIndex(@Lazy BookingRepository repository, @Lazy BookingMapper mapper,
+                               @Value("${shareit.booking.pointers.max-items:100000}") int maxItems) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.pointers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxItems;
+            }
+        };
+    }
+
+    /**
+     * Gets the pointers of the items, loading the missing and expired ones with one batch of queries.
+     *
+     * @param itemIds the item ids
+     * @return the pointers keyed by item id
+     */
+    public Map<Long, ItemPointers> getPointers(Collection<Long> itemIds) {
+        return getPointers(itemIds, LocalDateTime.now());
+    }
+
+    /**
+     * Updates the pointers of the item after a booking has been created.
+     *
+     * @param booking the booking
+     */
+    public void onCreated(Booking booking) {
+        LocalDateTime now = LocalDateTime.now();
+        Long itemId = booking.getItem().getId();
+        synchronized (pointers) {
+            writes.incrementAndGet();
+            Entry entry = pointers.get(itemId);
+            if (entry == null) {
+                return;
+            }
+            if (!booking.getEnd().isAfter(now)) {
+                pointers.remove(itemId);
+                return;
+            }
+            ItemPointers current = entry.pointers;
+            BookingShortDto next = current.getNext();
+            if (booking.getStart().isAfter(now)
+                    && (next == null || booking.getStart().isBefore(next.getStartTime()))) {
+                next = mapper.toBookingShortDto(booking);
+            }
+            entry.pointers = new ItemPointers(current.getLast(), next,
+                    earliest(earliest(current.getRefreshAt(), next == null ? null : next.getStartTime()),
+                            booking.getEnd()));
+            if (!Objects.equals(entry.pointers.getRefreshAt(), current.getRefreshAt())) {
+                schedule(itemId, entry.pointers.getRefreshAt(), now);
+            }
+        }
+    }
+
+    /**
+     * Reloads the read items whose pointers have expired and drops the unread ones.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking.pointers.refresh-delay-ms:60000}")
+    public void advance() {
+        advance(LocalDateTime.now());
+    }
+
+    Map<Long, ItemPointers> getPointers(Collection<Long> itemIds, LocalDateTime now) {
+        Map<Long, ItemPointers> result = new HashMap<>();
+        List<Long> stale = new ArrayList<>();
+        synchronized (pointers) {
+            for (Long itemId : itemIds) {
+                Entry entry = pointers.get(itemId);
+                if (entry == null || entry.pointers.isExpired(now)) {
+                    stale.add(itemId);
+                } else {
+                    entry.read = true;
+                    result.put(itemId, entry.pointers);
+                }
+            }
+        }
+        if (!stale.isEmpty()) {
+            result.putAll(load(stale, now, true));
+        }
+        return result;
+    }
+
+    void advance(LocalDateTime now) {
+        List<Long> expired = new ArrayList<>();
+        synchronized (pointers) {
+            if (refreshes == null) {
+                return;
+            }
+            Set<Long> due = new LinkedHashSet<>(overdue);
+            overdue.clear();
+            due.addAll(refreshes.advance(toMillis(now)));
+            for (Long itemId : due) {
+                Entry entry = pointers.get(itemId);
+                // evicted, or scheduled again for a later moment
+                if (entry == null || !entry.pointers.isExpired(now)) {
+                    continue;
+                }
+                if (entry.read) {
+                    expired.add(itemId);
+                } else {
+                    pointers.remove(itemId);
+                }
+            }
+        }
+        for (int from = 0; from < expired.size(); from += RELOAD_CHUNK_SIZE) {
+            load(expired.subList(from, Math.min(from + RELOAD_CHUNK_SIZE, expired.size())), now, false);
+        }
+    }
+
+    /**
+     * Gets the number of items in the index.
+     *
+     * @return the size
+     */
+    int size() {
+        synchronized (pointers) {
+            return pointers.size();
+        }
+    }
+
+    private Map<Long, ItemPointers> load(List<Long> itemIds, LocalDateTime now, boolean read) {
+        long writesBefore = writes.get();
+        Map<Long, BookingShortDto> last = toShortDtoByItemId(repository.findLastBookingsByItemIds(itemIds, now));
+        Map<Long, BookingShortDto> next = toShortDtoByItemId(repository.findNextBookingsByItemIds(itemIds, now));
+        Map<Long, LocalDateTime> upcomingEnds = new HashMap<>();
+        for (Object[] row : repository.findEarliestUpcomingEndsByItemIds(itemIds, now)) {
+            upcomingEnds.put((Long) row[0], (LocalDateTime) row[1]);
+        }
+        Map<Long, ItemPointers> loaded = new HashMap<>();
+        for (Long itemId : itemIds) {
+            BookingShortDto nextBooking = next.get(itemId);
+            LocalDateTime nextStart = nextBooking == null ? null : nextBooking.getStartTime();
+            loaded.put(itemId, new ItemPointers(last.get(itemId), nextBooking,
+                    earliest(nextStart, upcomingEnds.get(itemId))));
+        }
+        synchronized (pointers) {
+            // a booking created while the queries ran may be missing from the result, so it is not cached then
+            if (writes.get() == writesBefore) {
+                loaded.forEach((itemId, itemPointers) -> {
+                    pointers.put(itemId, new Entry(itemPointers, read));
+                    schedule(itemId, itemPointers.getRefreshAt(), now);
+                });
+            } else {
+                itemIds.forEach(pointers::remove);
+            }
+        }
+        return loaded;
+    }
+
+    private void schedule(Long itemId, LocalDateTime refreshAt, LocalDateTime now) {
+        if (refreshAt == null) {
+            return;
+        }
+        if (refreshes == null) {
+            refreshes = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, toMillis(now));
+        }
+        if (!refreshes.add(itemId, toMillis(refreshAt))) {
+            overdue.add(itemId);
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static Map<Long, BookingShortDto> toShortDtoByItemId(List<BookingShortView> bookings) {
+        Map<Long, BookingShortDto> result = new HashMap<>();
+        for (BookingShortView booking : bookings) {
+            result.putIfAbsent(booking.getItemId(), new BookingShortDto(booking.getId(), booking.getBookerId(),
+                    booking.getStartTime(), booking.getEndTime()));
+        }
+        return result;
+    }
+
+    private static LocalDateTime earliest(LocalDateTime first, LocalDateTime second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        return first.isBefore(second) ? first : second;
+    }
+
+    /**
+     * The last and the next booking of an item and the moment they have to be recomputed.
+     */
+    @Getter
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    public static class ItemPointers {
+        BookingShortDto last;
+        BookingShortDto next;
+        LocalDateTime refreshAt;
+
+        boolean isExpired(LocalDateTime now) {
+            return refreshAt != null && !refreshAt.isAfter(now);
+        }
+    }
+
+    // the pointers of an item and whether they have been read since they were loaded, guarded by the index
+    private static final class Entry {
+        ItemPointers pointers;
+        boolean read;
+
+        Entry(ItemPointers pointers, boolean read) {
+            this.pointers = pointers;
+            this.read = read;
+        }
+    }
+}
@@ -1,144 +1,205 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.data.domain.Sort;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * The interface Booking repository.
+ * Booking listings are queried with {@link BookingSpecifications}.
  */
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, JpaSpecificationExecutor<Booking> {
     /**
-     * Find by booker id list.
+     * Find the booking together with its booker, item and item owner in a single query.
      *
-     * @param bookerId the booker id
-     * @param sort     the sort
-     * @return the list
+     * @param id the id
+     * @return the booking
      */
-    List<Booking> findByBookerId(Long bookerId, Sort sort);
+    @Query("select b from Booking b join fetch b.booker join fetch b.item i join fetch i.owner where b.id = :id")
+    Optional<Booking> findWithItemOwnerById(@Param("id") Long id);
 
     /**
-     * Find by booker id and start is before and end is after list.
+     * Find last bookings for each of the given items in a single query, projected to their ids and periods
+     * without loading the bookings, items and users.
      *
-     * @param bookerId the booker id
-     * @param start    the start
-     * @param end      the end
-     * @param sort     the sort
+     * @param itemIds the item ids
+     * @param now     the now
      * @return the list
      */
-    List<Booking> findByBookerIdAndStartIsBeforeAndEndIsAfter(Long bookerId, LocalDateTime start,
-                                                              LocalDateTime end, Sort sort);
+    @Query("select b.item.id as itemId, b.id as id, b.booker.id as bookerId, b.start as startTime, " +
+            "b.end as endTime from Booking b where b.item.id in :itemIds and b.start < :now and b.end < :now " +
+            "and b.end = (select max(lb.end) from Booking lb where lb.item.id = b.item.id and lb.start < :now " +
+            "and lb.end < :now)")
+    List<BookingShortView> findLastBookingsByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                                     @Param("now") LocalDateTime now);
 
     /**
-     * Find by booker id and end is before list.
+     * Find next bookings for each of the given items in a single query, projected to their ids and periods
+     * without loading the bookings, items and users.
      *
-     * @param bookerId the booker id
-     * @param end      the end
-     * @param sort     the sort
+     * @param itemIds the item ids
+     * @param now     the now
      * @return the list
      */
-    List<Booking> findByBookerIdAndEndIsBefore(Long bookerId, LocalDateTime end, Sort sort);
+    @Query("select b.item.id as itemId, b.id as id, b.booker.id as bookerId, b.start as startTime, " +
+            "b.end as endTime from Booking b where b.item.id in :itemIds and b.start > :now " +
+            "and b.start = (select min(nb.start) from Booking nb where nb.item.id = b.item.id " +
+            "and nb.start > :now)")
+    List<BookingShortView> findNextBookingsByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                                     @Param("now") LocalDateTime now);
 
     /**
-     * Find by booker id and start is after list.
+     * Find the earliest end of the bookings that are not finished yet for each of the given items.
      *
-     * @param bookerId the booker id
-     * @param start    the start
-     * @param sort     the sort
-     * @return the list
+     * @param itemIds the item ids
+     * @param now     the now
+     * @return the rows of item id and end
      */
-    List<Booking> findByBookerIdAndStartIsAfter(Long bookerId, LocalDateTime start, Sort sort);
+    @Query("select b.item.id, min(b.end) from Booking b where b.item.id in :itemIds and b.end >= :now " +
+            "group by b.item.id")
+    List<Object[]> findEarliestUpcomingEndsByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                                     @Param("now") LocalDateTime now);
 
     /**
-     * Find by booker id and status list.
+     * Find intervals of the item bookings with the given statuses ordered by start.
      *
-     * @param bookerId the booker id
-     * @param status   the status
-     * @param sort     the sort
+     * @param itemId   the item id
+     * @param statuses the statuses
      * @return the list
      */
-    List<Booking> findByBookerIdAndStatus(Long bookerId, BookingStatus status, Sort sort);
+    @Query("select new ru.practicum.shareit.booking.BookingInterval(b.id, b.start, b.end) from Booking b " +
+            "where b.item.id = :itemId and b.status in :statuses order by b.start, b.id")
+    List<BookingInterval> findIntervalsByItemIdAndStatusIn(@Param("itemId") Long itemId,
+                                                           @Param("statuses") Collection<BookingStatus> statuses);
 
     /**
-     * Find by item owner id list.
+     * Find intervals of the bookings of several items with the given statuses ordered by item, start and id.
      *
-     * @param ownerId the owner id
-     * @param sort    the sort
+     * @param itemIds  the item ids
+     * @param statuses the statuses
      * @return the list
      */
-    List<Booking> findByItemOwnerId(Long ownerId, Sort sort);
+    @Query("select new ru.practicum.shareit.booking.BookingInterval(b.id, b.item.id, b.start, b.end) " +
+            "from Booking b where b.item.id in :itemIds and b.status in :statuses order by b.item.id, b.start, b.id")
+    List<BookingInterval> findIntervalsByItemIdInAndStatusIn(@Param("itemIds") Collection<Long> itemIds,
+                                                             @Param("statuses") Collection<BookingStatus> statuses);
 
     /**
-     * Find by item owner id and start is before and end is after list.
+     * Stream the bookings of the owner items as export rows ordered by start and id descending.
+     * The stream must be consumed and closed inside a transaction.
      *
      * @param ownerId the owner id
-     * @param start   the start
-     * @param end     the end
-     * @param sort    the sort
-     * @return the list
+     * @return the stream
      */
-    List<Booking> findByItemOwnerIdAndStartIsBeforeAndEndIsAfter(Long ownerId, LocalDateTime start,
-                                                                 LocalDateTime end, Sort sort);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new ru.practicum.shareit.booking.dto.BookingExportDto(b.id, b.start, b.end, i.id, i.name, " +
+            "b.booker.id, b.status) from Booking b join b.item i where i.owner.id = :ownerId " +
+            "order by b.start desc, b.id desc")
+    Stream<BookingExportDto> streamExportByItemOwnerId(@Param("ownerId") Long ownerId);
 
     /**
-     * Find by item owner id and end is before list.
+     * Find intervals of all bookings with the status.
      *
-     * @param bookerId the booker id
-     * @param end      the end
-     * @param sort     the sort
+     * @param status the status
      * @return the list
      */
-    List<Booking> findByItemOwnerIdAndEndIsBefore(Long bookerId, LocalDateTime end, Sort sort);
+    @Query("select new ru.practicum.shareit.booking.BookingInterval(b.id, b.item.id, b.start, b.end) " +
+            "from Booking b where b.status = :status")
+    List<BookingInterval> findIntervalsByStatus(@Param("status") BookingStatus status);
 
     /**
-     * Find by item owner id and start is after list.
+     * Find intervals of the bookings with the status among the given ids.
      *
-     * @param bookerId the booker id
-     * @param start    the start
-     * @param sort     the sort
+     * @param ids    the ids
+     * @param status the status
      * @return the list
      */
-    List<Booking> findByItemOwnerIdAndStartIsAfter(Long bookerId, LocalDateTime start, Sort sort);
+    @Query("select new ru.practicum.shareit.booking.BookingInterval(b.id, b.item.id, b.start, b.end) " +
+            "from Booking b where b.id in :ids and b.status = :status")
+    List<BookingInterval> findIntervalsByIdInAndStatus(@Param("ids") Collection<Long> ids,
+                                                       @Param("status") BookingStatus status);
 
     /**
-     * Find by item owner id and status list.
+     * Moves the given bookings that are still waiting and started before the threshold to EXPIRED.
      *
-     * @param bookerId the booker id
-     * @param status   the status
-     * @param sort     the sort
-     * @return the list
+     * @param ids       the ids
+     * @param threshold the threshold
+     * @return the number of expired bookings
      */
-    List<Booking> findByItemOwnerIdAndStatus(Long bookerId, BookingStatus status, Sort sort);
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = ru.practicum.shareit.booking.BookingStatus.EXPIRED " +
+            "where b.id in :ids and b.status = ru.practicum.shareit.booking.BookingStatus.WAITING " +
+            "and b.start <= :threshold")
+    int expireWaiting(@Param("ids") Collection<Long> ids, @Param("threshold") LocalDateTime threshold);
 
     /**
-     * Find first by item id and end before order by end desc booking.
+     * Find first by item id and booker id and end is before and status booking.
      *
      * @param itemId the item id
+     * @param userId the user id
      * @param end    the end
+     * @param status the status
      * @return the booking
      */
-    Booking findFirstByItemIdAndEndBeforeOrderByEndDesc(Long itemId, LocalDateTime end);
+    Booking findFirstByItemIdAndBookerIdAndEndIsBeforeAndStatus(Long itemId, Long userId,
+                                                                LocalDateTime end, BookingStatus status);
 
     /**
-     * Find first by item id and start after order by start asc booking.
+     * Sets the status of a waiting, not yet finished booking of an item owned by the user.
      *
-     * @param itemId the item id
-     * @param end    the end
-     * @return the booking
+     * @param id      the booking id
+     * @param ownerId the item owner id
+     * @param status  the new status
+     * @param now     the now
+     * @return the number of updated bookings
      */
-    Booking findFirstByItemIdAndStartAfterOrderByStartAsc(Long itemId, LocalDateTime end);
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status " +
+            "where b.id = :id and b.status = ru.practicum.shareit.booking.BookingStatus.WAITING and b.end > :now " +
+            "and b.item.id in (select i.id from Item i where i.owner.id = :ownerId)")
+    int updateWaitingStatusByOwner(@Param("id") Long id, @Param("ownerId") Long ownerId,
+                                   @Param("status") BookingStatus status, @Param("now") LocalDateTime now);
 
     /**
-     * Find first by item id and booker id and end is before and status booking.
+     * Cancels a not yet finished booking made by the user if it is in the status.
+     *
+     * @param id       the booking id
+     * @param bookerId the booker id
+     * @param status   the current status, waiting or approved
+     * @param now      the now
+     * @return the number of updated bookings
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = ru.practicum.shareit.booking.BookingStatus.CANCELED " +
+            "where b.id = :id and b.booker.id = :bookerId and b.end > :now and b.status = :status")
+    int cancelByBooker(@Param("id") Long id, @Param("bookerId") Long bookerId, @Param("status") BookingStatus status,
+                       @Param("now") LocalDateTime now);
+
+    /**
+     * Stream the id, item id, start and end of the bookings in the status ending after the moment.
+     * The stream must be consumed and closed inside a transaction.
      *
-     * @param itemId the item id
-     * @param userId the user id
-     * @param end    the end
      * @param status the status
-     * @return the booking
+     * @param after  the moment
+     * @return the stream
      */
-    Booking findFirstByItemIdAndBookerIdAndEndIsBeforeAndStatus(Long itemId, Long userId,
-                                                                LocalDateTime end, BookingStatus status);
-}
\ No newline at end of file
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select b.id, b.item.id, b.start, b.end from Booking b where b.status = :status and b.end > :after")
+    Stream<Object[]> streamIntervals(@Param("status") BookingStatus status, @Param("after") LocalDateTime after);
+}
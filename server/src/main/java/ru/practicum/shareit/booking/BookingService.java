@@ -1,10 +1,21 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.BookingStatsDto;
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * The interface Booking service.
@@ -19,6 +30,16 @@ public interface BookingService {
      */
     BookingDto create(BookingInputDto bookingDto, Long bookerId);
 
+    /**
+     * Creates bookings in bulk. Every entry is validated on its own, the accepted entries are inserted
+     * in one transaction.
+     *
+     * @param bookingDtos the booking dtos
+     * @param bookerId    the booker id
+     * @return the result of every entry in the order of the request
+     */
+    List<BookingBatchResultDto> createAll(List<BookingInputDto> bookingDtos, Long bookerId);
+
     /**
      * Update booking dto.
      *
@@ -47,6 +68,19 @@ public interface BookingService {
      */
     List<BookingDto> getBookings(String state, Long userId);
 
+    /**
+     * Gets a page of bookings ordered by start and id descending.
+     *
+     * @param state  the state
+     * @param userId the user id
+     * @param itemId the item id or null for bookings of all items
+     * @param from   the offset used when there is no cursor, at most 1000
+     * @param size   the page size or null for all bookings
+     * @param cursor the cursor returned with the previous page
+     * @return the bookings page
+     */
+    BookingPageDto getBookings(String state, Long userId, Long itemId, Integer from, Integer size, String cursor);
+
     /**
      * Gets bookings owner.
      *
@@ -56,6 +90,54 @@ public interface BookingService {
      */
     List<BookingDto> getBookingsOwner(String state, Long userId);
 
+    /**
+     * Gets a page of bookings of the owner items ordered by start and id descending.
+     *
+     * @param state  the state
+     * @param userId the user id
+     * @param itemId the item id or null for bookings of all items
+     * @param from   the offset used when there is no cursor, at most 1000
+     * @param size   the page size or null for all bookings
+     * @param cursor the cursor returned with the previous page
+     * @return the bookings page
+     */
+    BookingPageDto getBookingsOwner(String state, Long userId, Long itemId, Integer from, Integer size,
+                                    String cursor);
+
+    /**
+     * Exports all bookings of the owner items as newline delimited JSON.
+     * The owner is checked at once, the bookings are read and written when the body is streamed.
+     *
+     * @param ownerId the owner id
+     * @return the streaming body
+     */
+    StreamingResponseBody exportBookingsOwner(Long ownerId);
+
+    /**
+     * Gets the number of bookings made by the user in each state.
+     *
+     * @param userId the user id
+     * @return the stats
+     */
+    BookingStatsDto getStats(Long userId);
+
+    /**
+     * Gets the number of bookings of the items owned by the user in each state.
+     *
+     * @param userId the user id
+     * @return the stats
+     */
+    BookingStatsDto getStatsOwner(Long userId);
+
+    /**
+     * Gets the booking events of the change feed after the offset.
+     *
+     * @param after the offset of the last event already read
+     * @param limit the maximum number of events
+     * @return the events in feed order
+     */
+    List<BookingEventDto> getEvents(Long after, Integer limit);
+
     /**
      * Gets last booking.
      *
@@ -72,6 +154,22 @@ public interface BookingService {
      */
     BookingShortDto getNextBooking(Long itemId);
 
+    /**
+     * Gets last bookings of the given items keyed by item id.
+     *
+     * @param itemIds the item ids
+     * @return the last bookings
+     */
+    Map<Long, BookingShortDto> getLastBookings(List<Long> itemIds);
+
+    /**
+     * Gets next bookings of the given items keyed by item id.
+     *
+     * @param itemIds the item ids
+     * @return the next bookings
+     */
+    Map<Long, BookingShortDto> getNextBookings(List<Long> itemIds);
+
     /**
      * Gets booking with user booked item.
      *
@@ -81,4 +179,23 @@ public interface BookingService {
      */
     Booking getBookingWithUserBookedItem(Long itemId, Long userId);
 
-}
\ No newline at end of file
+    /**
+     * Gets free slots of the item inside the window.
+     *
+     * @param itemId the item id
+     * @param from   the from
+     * @param to     the to
+     * @return the free slots
+     */
+    List<FreeSlotDto> getFreeSlots(Long itemId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Finds the items having no approved booking on any day of the window.
+     *
+     * @param itemIds the item ids
+     * @param start   the first day of the window
+     * @param end     the last day of the window
+     * @return the free item ids
+     */
+    Set<Long> findFreeItemIds(Collection<Long> itemIds, LocalDate start, LocalDate end);
+}
@@ -5,21 +5,43 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
-import org.springframework.http.HttpStatus;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.query.FluentQuery;
 import org.springframework.stereotype.Service;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.BookingStatsDto;
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
 import ru.practicum.shareit.exception.BookingNotFoundException;
 import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.service.ValidationService;
+import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.util.KeysetCursor;
+import ru.practicum.shareit.util.Transactions;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 
@@ -27,89 +49,135 @@ import java.util.stream.Collectors;
 @Service
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class BookingServiceImpl implements BookingService {
+    private static final Sort SORT_BY_START_DESC = Sort.by(Sort.Direction.DESC, "start")
+            .and(Sort.by(Sort.Direction.DESC, "id"));
+    private static final int MAX_OFFSET = 1_000;
+    private static final Set<BookingStatus> CANCELABLE_STATUSES = Set.of(BookingStatus.WAITING,
+            BookingStatus.APPROVED);
 
     UserService userService;
 
     BookingRepository repository;
     BookingMapper mapper;
     ValidationService validationService;
+    BookingIntervalIndex intervalIndex;
+    BookingWriteLanes writeLanes;
+    BookingExporter exporter;
+    BookingPointerIndex pointerIndex;
+    BookingExpiryService expiryService;
+    BookingEventRepository eventRepository;
+    BookingStatsService statsService;
+    BookedDaysIndex bookedDaysIndex;
 
     @Autowired
     @Lazy
     public BookingServiceImpl(BookingRepository bookingRepository, BookingMapper bookingMapper,
                               ValidationService validationService,
-                              UserService userService) {
+                              UserService userService, BookingIntervalIndex intervalIndex,
+                              BookingWriteLanes writeLanes, BookingExporter exporter,
+                              BookingPointerIndex pointerIndex, BookingExpiryService expiryService,
+                              BookingEventRepository eventRepository, BookingStatsService statsService,
+                              BookedDaysIndex bookedDaysIndex) {
         this.repository = bookingRepository;
         this.mapper = bookingMapper;
         this.validationService = validationService;
         this.userService = userService;
+        this.intervalIndex = intervalIndex;
+        this.writeLanes = writeLanes;
+        this.exporter = exporter;
+        this.pointerIndex = pointerIndex;
+        this.expiryService = expiryService;
+        this.eventRepository = eventRepository;
+        this.statsService = statsService;
+        this.bookedDaysIndex = bookedDaysIndex;
     }
 
     @Override
     public BookingDto create(BookingInputDto bookingInputDto, Long bookerId) {
-        if (!validationService.isExistUser(bookerId)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь с id = " + bookerId + " не найден");
-        }
-        if (!validationService.isAvailableItem(bookingInputDto.getItemId())) {
-            throw new ValidationException("Вещь с ID=" + bookingInputDto.getItemId() +
-                    " недоступна для бронирования!");
-        }
-        if (userService.getUser(bookerId) == null) {
-            throw new UserNotFoundException("Пользователь с id = " + bookerId + " не найден");
-        }
-        Booking booking = mapper.toBooking(bookingInputDto, bookerId);
-        if (bookerId.equals(booking.getItem().getOwner().getId())) {
-            throw new BookingNotFoundException("Вещь с ID=" + bookingInputDto.getItemId() +
-                    " недоступна для бронирования самим владельцем!");
-        }
-        return mapper.toBookingDto(repository.save(booking));
+        return mapper.toBookingDto(writeLanes.create(bookingInputDto, bookerId));
     }
 
     @Override
-    public BookingDto update(Long bookingId, Long userId, Boolean approved) {
-        validationService.isExistUser(userId);
-        Booking booking = repository.findById(bookingId)
-                .orElseThrow(() -> new BookingNotFoundException("Бронирование с ID=" + bookingId + " не найдено!"));
-        if (booking.getEnd().isBefore(LocalDateTime.now())) {
-            throw new ValidationException("Время бронирования уже истекло!");
-        }
-
-        if (booking.getBooker().getId().equals(userId)) {
-            if (!approved) {
-                booking.setStatus(BookingStatus.CANCELED);
-                log.info("Пользователь с ID={} отменил бронирование с ID={}", userId, bookingId);
-            } else {
-                throw new BookingNotFoundException("Подтвердить бронирование может только владелец вещи!");
-            }
-        } else if ((validationService.isItemOwner(booking.getItem().getId(), userId)) &&
-                (!booking.getStatus().equals(BookingStatus.CANCELED))) {
-            if (!booking.getStatus().equals(BookingStatus.WAITING)) {
-                throw new ValidationException("Решение по бронированию уже принято!");
-            }
-            if (approved) {
-                booking.setStatus(BookingStatus.APPROVED);
-                log.info("Пользователь с ID={} подтвердил бронирование с ID={}", userId, bookingId);
+    @Transactional
+    public List<BookingBatchResultDto> createAll(List<BookingInputDto> bookingDtos, Long bookerId) {
+        User booker = validationService.findUserById(bookerId);
+        Map<Long, Item> items = validationService.findItemsByIds(bookingDtos.stream()
+                .map(BookingInputDto::getItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        LocalDateTime now = LocalDateTime.now();
+        BookingBatchResultDto[] results = new BookingBatchResultDto[bookingDtos.size()];
+        List<Integer> candidateIndexes = new ArrayList<>();
+        List<Booking> candidates = new ArrayList<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            BookingInputDto bookingDto = bookingDtos.get(i);
+            String error = validateBatchEntry(bookingDto, items.get(bookingDto.getItemId()), bookerId, now);
+            if (error != null) {
+                results[i] = new BookingBatchResultDto(i, null, error);
             } else {
-                booking.setStatus(BookingStatus.REJECTED);
-                log.info("Пользователь с ID={} отклонил бронирование с ID={}", userId, bookingId);
+                candidateIndexes.add(i);
+                candidates.add(new Booking(null, bookingDto.getStart(), bookingDto.getEnd(),
+                        items.get(bookingDto.getItemId()), booker, BookingStatus.WAITING));
             }
-        } else {
-            if (booking.getStatus().equals(BookingStatus.CANCELED)) {
-                throw new ValidationException("Бронирование было отменено!");
+        }
+        List<Booking> saved = intervalIndex.saveAllIfFree(candidates, writeLanes::insertAllWithEvents);
+        for (int i = 0; i < saved.size(); i++) {
+            int index = candidateIndexes.get(i);
+            if (saved.get(i) == null) {
+                results[index] = new BookingBatchResultDto(index, null, "Вещь с ID=" +
+                        candidates.get(i).getItem().getId() + " уже забронирована на указанный период!");
             } else {
-                throw new ValidationException("Подтвердить бронирование может только владелец вещи!");
+                Booking booking = saved.get(i);
+                Transactions.afterCommit(() -> {
+                    pointerIndex.onCreated(booking);
+                    expiryService.onCreated(booking);
+                });
+                results[index] = new BookingBatchResultDto(index, mapper.toBookingDto(saved.get(i)), null);
             }
         }
+        log.info("Пользователь с ID={} создал {} из {} бронирований", bookerId,
+                saved.stream().filter(Objects::nonNull).count(), bookingDtos.size());
+        return Arrays.asList(results);
+    }
 
-        return mapper.toBookingDto(repository.save(booking));
+    @Override
+    @Transactional
+    public BookingDto update(Long bookingId, Long userId, Boolean approved) {
+        LocalDateTime now = LocalDateTime.now();
+        Booking booking = findWithItemOwnerById(bookingId);
+        BookingStatus previousStatus = booking.getStatus();
+        BookingStatus status;
+        int updated;
+        // one guarded UPDATE chosen by the role of the user, the guards recheck the status read above
+        if (!approved && booking.getBooker().getId().equals(userId)) {
+            status = BookingStatus.CANCELED;
+            updated = CANCELABLE_STATUSES.contains(previousStatus)
+                    ? repository.cancelByBooker(bookingId, userId, previousStatus, now) : 0;
+        } else {
+            status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+            updated = repository.updateWaitingStatusByOwner(bookingId, userId, status, now);
+            previousStatus = BookingStatus.WAITING;
+        }
+        if (updated == 0) {
+            throw rejectedTransition(findWithItemOwnerById(bookingId), userId, approved, now);
+        }
+        booking.setStatus(status);
+        eventRepository.append(List.of(booking), now);
+        statsService.onStatusChanged(booking, previousStatus);
+        log.info("Пользователь с ID={} перевел бронирование с ID={} в статус {}", userId, bookingId,
+                booking.getStatus());
+        Transactions.afterCommit(() -> {
+            intervalIndex.onStatusChanged(booking);
+            expiryService.onStatusChanged(booking);
+        });
+        bookedDaysIndex.onStatusChanged(booking, previousStatus);
+        return mapper.toBookingDto(booking);
     }
 
     @Override
     public BookingDto getBookingById(Long bookingId, Long userId) {
-        validationService.isExistUser(userId);
-        Booking booking = repository.findById(bookingId)
-                .orElseThrow(() -> new BookingNotFoundException("Бронирование с ID=" + bookingId + " не найдено!"));
-        if (booking.getBooker().getId().equals(userId) || validationService.isItemOwner(booking.getItem().getId(), userId)) {
+        Booking booking = findWithItemOwnerById(bookingId);
+        if (booking.getBooker().getId().equals(userId) || booking.getItem().getOwner().getId().equals(userId)) {
             return mapper.toBookingDto(booking);
         } else {
             throw new BookingNotFoundException("Посмотреть данные бронирования может только владелец вещи" +
@@ -119,88 +187,90 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public List<BookingDto> getBookings(String state, Long userId) {
+        return getBookings(state, userId, null, 0, null, null).getBookings();
+    }
+
+    @Override
+    public BookingPageDto getBookings(String state, Long userId, Long itemId, Integer from, Integer size,
+                                      String cursor) {
         validationService.isExistUser(userId);
-        List<Booking> bookings;
-        Sort sortByStartDesc = Sort.by(Sort.Direction.DESC, "start");
-        switch (state) {
-            case "ALL":
-                bookings = repository.findByBookerId(userId, sortByStartDesc);
-                break;
-            case "CURRENT":
-                bookings = repository.findByBookerIdAndStartIsBeforeAndEndIsAfter(userId, LocalDateTime.now(),
-                        LocalDateTime.now(), sortByStartDesc);
-                break;
-            case "PAST":
-                bookings = repository.findByBookerIdAndEndIsBefore(userId, LocalDateTime.now(), sortByStartDesc);
-                break;
-            case "FUTURE":
-                bookings = repository.findByBookerIdAndStartIsAfter(userId, LocalDateTime.now(), sortByStartDesc);
-                break;
-            case "WAITING":
-                bookings = repository.findByBookerIdAndStatus(userId, BookingStatus.WAITING, sortByStartDesc);
-                break;
-            case "REJECTED":
-                bookings = repository.findByBookerIdAndStatus(userId, BookingStatus.REJECTED, sortByStartDesc);
-                break;
-            default:
-                throw new ValidationException("Unknown state: " + state);
-        }
-        return bookings.stream()
-                .map(mapper::toBookingDto)
-                .collect(Collectors.toList());
+        return findBookings(BookingSpecifications.byBooker(userId), state, itemId, from, size, cursor);
     }
 
     @Override
     public List<BookingDto> getBookingsOwner(String state, Long userId) {
+        return getBookingsOwner(state, userId, null, 0, null, null).getBookings();
+    }
+
+    @Override
+    public BookingPageDto getBookingsOwner(String state, Long userId, Long itemId, Integer from, Integer size,
+                                           String cursor) {
         validationService.isExistUser(userId);
-        List<Booking> bookings;
-        Sort sortByStartDesc = Sort.by(Sort.Direction.DESC, "start");
-        switch (state) {
-            case "ALL":
-                if (userService.findUserById(userId) == null) {
-                    throw new UserNotFoundException("Пользователь с id = " + userId + " не найден!");
-                }
-                bookings = repository.findByItemOwnerId(userId, sortByStartDesc);
-                break;
-            case "CURRENT":
-                bookings = repository.findByItemOwnerIdAndStartIsBeforeAndEndIsAfter(userId, LocalDateTime.now(),
-                        LocalDateTime.now(), sortByStartDesc);
-                break;
-            case "PAST":
-                bookings = repository.findByItemOwnerIdAndEndIsBefore(userId, LocalDateTime.now(), sortByStartDesc);
-                break;
-            case "FUTURE":
-                bookings = repository.findByItemOwnerIdAndStartIsAfter(userId, LocalDateTime.now(),
-                        sortByStartDesc);
-                break;
-            case "WAITING":
-                bookings = repository.findByItemOwnerIdAndStatus(userId, BookingStatus.WAITING, sortByStartDesc);
-                break;
-            case "REJECTED":
-                bookings = repository.findByItemOwnerIdAndStatus(userId, BookingStatus.REJECTED, sortByStartDesc);
-                break;
-            default:
-                throw new ValidationException("Unknown state: " + state);
-        }
-        return bookings.stream()
-                .map(mapper::toBookingDto)
-                .collect(Collectors.toList());
+        if ("ALL".equals(state) && userService.findUserById(userId) == null) {
+            throw new UserNotFoundException("Пользователь с id = " + userId + " не найден!");
+        }
+        return findBookings(BookingSpecifications.byItemOwner(userId), state, itemId, from, size, cursor);
+    }
+
+    @Override
+    public StreamingResponseBody exportBookingsOwner(Long ownerId) {
+        validationService.findUserById(ownerId);
+        return outputStream -> exporter.exportByItemOwner(ownerId, outputStream);
+    }
+
+    @Override
+    public BookingStatsDto getStats(Long userId) {
+        validationService.findUserById(userId);
+        return statsService.getBookerStats(userId);
+    }
+
+    @Override
+    public BookingStatsDto getStatsOwner(Long userId) {
+        validationService.findUserById(userId);
+        return statsService.getOwnerStats(userId);
+    }
+
+    @Override
+    public List<BookingEventDto> getEvents(Long after, Integer limit) {
+        if (after == null || after < 0) {
+            throw new ValidationException("Значение не может быть меньше нуля!");
+        }
+        if (limit == null || limit <= 0) {
+            throw new ValidationException("Значение должно быть больше нуля!");
+        }
+        return eventRepository.findAfter(after, limit);
     }
 
     @Override
     public BookingShortDto getLastBooking(Long itemId) {
-        BookingShortDto bookingShortDto =
-                mapper.toBookingShortDto(repository.findFirstByItemIdAndEndBeforeOrderByEndDesc(itemId,
-                        LocalDateTime.now()));
-        return bookingShortDto;
+        return getLastBookings(List.of(itemId)).get(itemId);
     }
 
     @Override
     public BookingShortDto getNextBooking(Long itemId) {
-        BookingShortDto bookingShortDto =
-                mapper.toBookingShortDto(repository.findFirstByItemIdAndStartAfterOrderByStartAsc(itemId,
-                        LocalDateTime.now()));
-        return bookingShortDto;
+        return getNextBookings(List.of(itemId)).get(itemId);
+    }
+
+    @Override
+    public Map<Long, BookingShortDto> getLastBookings(List<Long> itemIds) {
+        Map<Long, BookingShortDto> lastBookings = new HashMap<>();
+        pointerIndex.getPointers(itemIds).forEach((itemId, pointers) -> {
+            if (pointers.getLast() != null) {
+                lastBookings.put(itemId, pointers.getLast());
+            }
+        });
+        return lastBookings;
+    }
+
+    @Override
+    public Map<Long, BookingShortDto> getNextBookings(List<Long> itemIds) {
+        Map<Long, BookingShortDto> nextBookings = new HashMap<>();
+        pointerIndex.getPointers(itemIds).forEach((itemId, pointers) -> {
+            if (pointers.getNext() != null) {
+                nextBookings.put(itemId, pointers.getNext());
+            }
+        });
+        return nextBookings;
     }
 
     @Override
@@ -208,4 +278,114 @@ public class BookingServiceImpl implements BookingService {
         return repository.findFirstByItemIdAndBookerIdAndEndIsBeforeAndStatus(itemId,
                 userId, LocalDateTime.now(), BookingStatus.APPROVED);
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<FreeSlotDto> getFreeSlots(Long itemId, LocalDateTime from, LocalDateTime to) {
+        return intervalIndex.getFreeSlots(itemId, from, to);
+    }
+
+    @Override
+    public Set<Long> findFreeItemIds(Collection<Long> itemIds, LocalDate start, LocalDate end) {
+        return bookedDaysIndex.findFree(itemIds, start, end);
+    }
+
+    private String validateBatchEntry(BookingInputDto bookingDto, Item item, Long bookerId, LocalDateTime now) {
+        if (item == null) {
+            return "Вещь с ID=" + bookingDto.getItemId() + " не найдена!";
+        }
+        if (!item.getAvailable()) {
+            return "Вещь с ID=" + item.getId() + " недоступна для бронирования!";
+        }
+        if (bookerId.equals(item.getOwner().getId())) {
+            return "Вещь с ID=" + item.getId() + " недоступна для бронирования самим владельцем!";
+        }
+        if (bookingDto.getStart() == null || bookingDto.getEnd() == null ||
+                !bookingDto.getStart().isBefore(bookingDto.getEnd())) {
+            return "Дата начала бронирования должна быть раньше даты окончания!";
+        }
+        if (bookingDto.getStart().isBefore(now)) {
+            return "Дата начала бронирования не может быть в прошлом!";
+        }
+        return null;
+    }
+
+    private Booking findWithItemOwnerById(Long bookingId) {
+        return repository.findWithItemOwnerById(bookingId)
+                .orElseThrow(() -> new BookingNotFoundException("Бронирование с ID=" + bookingId + " не найдено!"));
+    }
+
+    private RuntimeException rejectedTransition(Booking booking, Long userId, Boolean approved, LocalDateTime now) {
+        if (!booking.getEnd().isAfter(now)) {
+            return new ValidationException("Время бронирования уже истекло!");
+        }
+        if (booking.getBooker().getId().equals(userId)) {
+            if (approved) {
+                return new BookingNotFoundException("Подтвердить бронирование может только владелец вещи!");
+            }
+            return new ValidationException("Решение по бронированию уже принято!");
+        }
+        if (booking.getStatus().equals(BookingStatus.CANCELED)) {
+            return new ValidationException("Бронирование было отменено!");
+        }
+        if (booking.getStatus().equals(BookingStatus.EXPIRED)) {
+            return new ValidationException("Срок подтверждения бронирования истек!");
+        }
+        if (booking.getItem().getOwner().getId().equals(userId)) {
+            return new ValidationException("Решение по бронированию уже принято!");
+        }
+        return new ValidationException("Подтвердить бронирование может только владелец вещи!");
+    }
+
+    private BookingPageDto findBookings(Specification<Booking> role, String state, Long itemId, Integer from,
+                                        Integer size, String cursor) {
+        Specification<Booking> specification = BookingSpecifications.fetchParties()
+                .and(role)
+                .and(BookingSpecifications.inState(state, LocalDateTime.now()))
+                .and(BookingSpecifications.byItem(itemId));
+        ScrollPosition position = toScrollPosition(from, cursor);
+        Limit limit = toLimit(size);
+        Window<Booking> bookings = repository.findBy(specification, query -> {
+            FluentQuery.FetchableFluentQuery<Booking> sorted = query.sortBy(SORT_BY_START_DESC);
+            return (limit.isLimited() ? sorted.limit(limit.max()) : sorted).scroll(position);
+        });
+        return toBookingPage(bookings);
+    }
+
+    private ScrollPosition toScrollPosition(Integer from, String cursor) {
+        if (cursor != null && !cursor.isBlank()) {
+            return KeysetCursor.decode(cursor).toScrollPosition("start");
+        }
+        if (from == null || from < 0) {
+            throw new ValidationException("Значение не может быть меньше нуля!");
+        }
+        // from is only kept for the clients that page by offset, and as an OFFSET scan costs every skipped row,
+        // it is limited to the first pages; deeper pages are read with the cursor returned in X-Next-Cursor
+        if (from > MAX_OFFSET) {
+            throw new ValidationException("Значение не может быть больше " + MAX_OFFSET +
+                    ", для следующих страниц используйте курсор!");
+        }
+        // offset position points at the last element already seen, so the window starts right after it
+        return from == 0 ? ScrollPosition.keyset() : ScrollPosition.offset(from - 1);
+    }
+
+    private Limit toLimit(Integer size) {
+        if (size == null) {
+            return Limit.unlimited();
+        }
+        if (size <= 0) {
+            throw new ValidationException("Значение должно быть больше нуля!");
+        }
+        return Limit.of(size);
+    }
+
+    private BookingPageDto toBookingPage(Window<Booking> bookings) {
+        String nextCursor = null;
+        if (bookings.hasNext() && !bookings.isEmpty()) {
+            Booking last = bookings.getContent().get(bookings.size() - 1);
+            nextCursor = KeysetCursor.encode(last.getStart(), last.getId());
+        }
+        return new BookingPageDto(bookings.stream()
+                .map(mapper::toBookingDto)
+                .collect(Collectors.toList()), nextCursor);
+    }
+}
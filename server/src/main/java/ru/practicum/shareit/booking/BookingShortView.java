@@ -0,0 +1,43 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a booking of an item with the ids and the period only.
+ */
+public interface BookingShortView {
+    /**
+     * Gets item id.
+     *
+     * @return the item id
+     */
+    Long getItemId();
+
+    /**
+     * Gets id.
+     *
+     * @return the id
+     */
+    Long getId();
+
+    /**
+     * Gets booker id.
+     *
+     * @return the booker id
+     */
+    Long getBookerId();
+
+    /**
+     * Gets start time.
+     *
+     * @return the start time
+     */
+    LocalDateTime getStartTime();
+
+    /**
+     * Gets end time.
+     *
+     * @return the end time
+     */
+    LocalDateTime getEndTime();
+}
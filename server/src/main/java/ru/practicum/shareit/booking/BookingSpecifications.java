@@ -0,0 +1,98 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.time.LocalDateTime;
+
+/**
+ * Predicates of the booking listings.
+ * <p>
+ * A listing is the conjunction of a role predicate, a state predicate and an optional item predicate.
+ * Every role predicate starts with an equality on the leading column of a composite index ordered
+ * by (start_date DESC, id DESC), so all state and item combinations share one SQL shape and are read
+ * in index order.
+ * <p>
+ * Time based states always bound start_date, the partition key of bookings on PostgreSQL, so the planner prunes
+ * the partitions that cannot match: FUTURE skips the past months, CURRENT and PAST skip the months ahead.
+ */
+public final class BookingSpecifications {
+
+    private BookingSpecifications() {
+    }
+
+    /**
+     * Bookings made by the user. Backed by idx_bookings_booker_start_id.
+     *
+     * @param bookerId the booker id
+     * @return the specification
+     */
+    public static Specification<Booking> byBooker(Long bookerId) {
+        return (root, query, cb) -> cb.equal(root.get("booker").get("id"), bookerId);
+    }
+
+    /**
+     * Bookings of the items owned by the user. Backed by idx_items_owner and idx_bookings_item_start_id.
+     *
+     * @param ownerId the owner id
+     * @return the specification
+     */
+    public static Specification<Booking> byItemOwner(Long ownerId) {
+        return (root, query, cb) -> cb.equal(root.get("item").get("owner").get("id"), ownerId);
+    }
+
+    /**
+     * Bookings of the item, or no restriction if the item is not set.
+     *
+     * @param itemId the item id
+     * @return the specification
+     */
+    public static Specification<Booking> byItem(Long itemId) {
+        if (itemId == null) {
+            return Specification.where(null);
+        }
+        return (root, query, cb) -> cb.equal(root.get("item").get("id"), itemId);
+    }
+
+    /**
+     * Bookings in the state at the moment.
+     *
+     * @param state the state
+     * @param now   the moment
+     * @return the specification
+     */
+    public static Specification<Booking> inState(String state, LocalDateTime now) {
+        return switch (state) {
+            case "ALL" -> Specification.where(null);
+            case "CURRENT" -> (root, query, cb) -> cb.and(cb.lessThan(root.get("start"), now),
+                    cb.greaterThan(root.get("end"), now));
+            case "PAST" -> (root, query, cb) -> cb.and(cb.lessThan(root.get("start"), now),
+                    cb.lessThan(root.get("end"), now));
+            case "FUTURE" -> (root, query, cb) -> cb.greaterThan(root.get("start"), now);
+            case "WAITING" -> withStatus(BookingStatus.WAITING);
+            case "REJECTED" -> withStatus(BookingStatus.REJECTED);
+            case "EXPIRED" -> withStatus(BookingStatus.EXPIRED);
+            default -> throw new ValidationException("Unknown state: " + state);
+        };
+    }
+
+    /**
+     * No restriction, but the booker, the item and its owner are fetched with the bookings of a page.
+     * The count queries are left without joins.
+     *
+     * @return the specification
+     */
+    public static Specification<Booking> fetchParties() {
+        return (root, query, cb) -> {
+            if (Booking.class.equals(query.getResultType())) {
+                root.fetch("booker");
+                root.fetch("item").fetch("owner");
+            }
+            return null;
+        };
+    }
+
+    private static Specification<Booking> withStatus(BookingStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+}
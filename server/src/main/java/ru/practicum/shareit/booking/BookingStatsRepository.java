@@ -0,0 +1,326 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingStatsDto;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Per user booking counters of the listing states, one row for the bookings made and one for the bookings
+ * of the owned items.
+ */
+@Repository
+public class BookingStatsRepository {
+    private static final String[] COLUMNS = {"all_count", "current_count", "past_count", "future_count",
+            "waiting_count", "rejected_count", "expired_count"};
+    private static final String SELECT = "SELECT user_id, role, " + String.join(", ", COLUMNS) +
+            " FROM booking_stats";
+    // an insert racing a concurrent one for the same row waits for it and then does nothing, instead of failing
+    private static final String UPSERT_POSTGRES = "INSERT INTO booking_stats (user_id, role) " +
+            "VALUES (:userId, :role) ON CONFLICT (user_id, role) DO NOTHING";
+    private static final String UPSERT_MERGE = "MERGE INTO booking_stats s USING (VALUES " +
+            "(CAST(:userId AS BIGINT), CAST(:role AS VARCHAR(10)))) AS v (user_id, role) " +
+            "ON s.user_id = v.user_id AND s.role = v.role " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, role) VALUES (v.user_id, v.role)";
+    private static final String INSERT_COUNTED = "INSERT INTO booking_stats (user_id, role, " +
+            String.join(", ", COLUMNS) + ") SELECT CAST(:userId AS BIGINT), CAST(:role AS VARCHAR(10)), " +
+            casts() + " WHERE NOT EXISTS (SELECT 1 FROM booking_stats WHERE user_id = :userId AND role = :role)";
+    private static final String ADD = "UPDATE booking_stats SET " + assignments(true) +
+            " WHERE user_id = :userId AND role = :role";
+    private static final String SET = "UPDATE booking_stats SET " + assignments(false) +
+            " WHERE user_id = :userId AND role = :role";
+    private static final String FROM_BOOKINGS = " FROM bookings b JOIN items i ON i.id = b.item_id ";
+    // the same bounds as the rollup: a booking is current from its start and past from its end
+    private static final String RECOUNT = "SELECT b.booker_id, i.owner_id, COUNT(*)," +
+            " SUM(CASE WHEN b.start_date <= :now AND b.end_date > :now THEN 1 ELSE 0 END)," +
+            " SUM(CASE WHEN b.start_date <= :now AND b.end_date <= :now THEN 1 ELSE 0 END)," +
+            " SUM(CASE WHEN b.start_date > :now THEN 1 ELSE 0 END)," +
+            " SUM(CASE WHEN b.status = 'WAITING' THEN 1 ELSE 0 END)," +
+            " SUM(CASE WHEN b.status = 'REJECTED' THEN 1 ELSE 0 END)," +
+            " SUM(CASE WHEN b.status = 'EXPIRED' THEN 1 ELSE 0 END)" +
+            FROM_BOOKINGS + "GROUP BY b.booker_id, i.owner_id";
+
+    /**
+     * Index of the ALL counter.
+     */
+    public static final int ALL = 0;
+    /**
+     * Index of the CURRENT counter.
+     */
+    public static final int CURRENT = 1;
+    /**
+     * Index of the PAST counter.
+     */
+    public static final int PAST = 2;
+    /**
+     * Index of the FUTURE counter.
+     */
+    public static final int FUTURE = 3;
+    /**
+     * Number of counters of a row.
+     */
+    public static final int SIZE = COLUMNS.length;
+
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::getUserId)
+            .thenComparing(Key::getRole);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String upsert;
+
+    /**
+     * Instantiates a new Booking stats repository.
+     *
+     * @param jdbcTemplate the named parameter jdbc template
+     */
+    @Autowired
+    public BookingStatsRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsert = isPostgres(jdbcTemplate) ? UPSERT_POSTGRES : UPSERT_MERGE;
+    }
+
+    /**
+     * Gets the index of the counter of a status, if the status is a listing state.
+     *
+     * @param status the status
+     * @return the index or -1
+     */
+    public static int indexOf(BookingStatus status) {
+        return switch (status) {
+            case WAITING -> 4;
+            case REJECTED -> 5;
+            case EXPIRED -> 6;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Inserts zero rows for the users that have none, in the current transaction.
+     *
+     * @param userIds the user ids
+     */
+    public void insertMissing(Collection<Long> userIds) {
+        List<MapSqlParameterSource> parameters = new ArrayList<>();
+        for (Long userId : new TreeSet<>(userIds)) {
+            for (Role role : Role.values()) {
+                parameters.add(key(userId, role));
+            }
+        }
+        jdbcTemplate.batchUpdate(upsert, parameters.toArray(MapSqlParameterSource[]::new));
+    }
+
+    /**
+     * Inserts the rows with the counters unless they exist.
+     *
+     * @param counters the counters keyed by user and role
+     * @return the number of inserted rows
+     */
+    public int insertMissing(Map<Key, long[]> counters) {
+        return Arrays.stream(jdbcTemplate.batchUpdate(INSERT_COUNTED, toParameters(counters)))
+                .filter(count -> count > 0)
+                .sum();
+    }
+
+    /**
+     * Adds the deltas to the counters.
+     *
+     * @param deltas the deltas keyed by user and role
+     */
+    public void add(Map<Key, long[]> deltas) {
+        jdbcTemplate.batchUpdate(ADD, toParameters(deltas));
+    }
+
+    /**
+     * Sets the counters.
+     *
+     * @param counters the counters keyed by user and role
+     */
+    public void set(Map<Key, long[]> counters) {
+        jdbcTemplate.batchUpdate(SET, toParameters(counters));
+    }
+
+    /**
+     * Finds the counters of the user in the role.
+     *
+     * @param userId the user id
+     * @param role   the role
+     * @return the counters, all zero if the user has no row
+     */
+    public BookingStatsDto find(Long userId, Role role) {
+        List<long[]> rows = jdbcTemplate.query(SELECT + " WHERE user_id = :userId AND role = :role",
+                key(userId, role), (rs, rowNum) -> readCounters(rs));
+        long[] counters = rows.isEmpty() ? new long[SIZE] : rows.get(0);
+        return new BookingStatsDto(counters[0], counters[1], counters[2], counters[3], counters[4], counters[5],
+                counters[6]);
+    }
+
+    /**
+     * Reads all rows and locks them until the end of the transaction, so booking writes wait for a recount.
+     *
+     * @return the counters keyed by user and role
+     */
+    public Map<Key, long[]> lockAll() {
+        Map<Key, long[]> counters = new HashMap<>();
+        jdbcTemplate.query(SELECT + " FOR UPDATE", rs -> {
+            counters.put(new Key(rs.getLong("user_id"), Role.valueOf(rs.getString("role"))), readCounters(rs));
+        });
+        return counters;
+    }
+
+    /**
+     * Counts the bookings of every user in every state from the bookings table.
+     *
+     * @param now the moment of the time based states
+     * @return the counters keyed by user and role
+     */
+    public Map<Key, long[]> recount(LocalDateTime now) {
+        Map<Key, long[]> counters = new HashMap<>();
+        jdbcTemplate.query(RECOUNT, new MapSqlParameterSource("now", Timestamp.valueOf(now)), rs -> {
+            long[] row = new long[SIZE];
+            for (int i = 0; i < SIZE; i++) {
+                row[i] = rs.getLong(i + 3);
+            }
+            addTo(counters, new Key(rs.getLong(1), Role.BOOKER), row);
+            addTo(counters, new Key(rs.getLong(2), Role.OWNER), row);
+        });
+        return counters;
+    }
+
+    /**
+     * Counts the bookings whose start or end is in the period, by booker and item owner.
+     *
+     * @param column the start_date or end_date column
+     * @param from   the exclusive start of the period
+     * @param to     the inclusive end of the period
+     * @return the rows of booker id, owner id and count
+     */
+    public List<long[]> countCrossing(String column, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query("SELECT b.booker_id, i.owner_id, COUNT(*)" + FROM_BOOKINGS +
+                        "WHERE b." + column + " > :from AND b." + column + " <= :to GROUP BY b.booker_id, i.owner_id",
+                new MapSqlParameterSource()
+                        .addValue("from", Timestamp.valueOf(from))
+                        .addValue("to", Timestamp.valueOf(to)),
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)});
+    }
+
+    /**
+     * Finds the booker and the item owner of the bookings.
+     *
+     * @param ids the booking ids
+     * @return the rows of booker id and owner id
+     */
+    public List<long[]> findParticipants(Collection<Long> ids) {
+        return jdbcTemplate.query("SELECT b.booker_id, i.owner_id" + FROM_BOOKINGS + "WHERE b.id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+
+    /**
+     * Adds the delta to the counters of the key.
+     *
+     * @param counters the counters keyed by user and role
+     * @param key      the key
+     * @param delta    the delta
+     */
+    public static void addTo(Map<Key, long[]> counters, Key key, long[] delta) {
+        long[] row = counters.computeIfAbsent(key, k -> new long[SIZE]);
+        for (int i = 0; i < SIZE; i++) {
+            row[i] += delta[i];
+        }
+    }
+
+    private static boolean isPostgres(NamedParameterJdbcTemplate jdbcTemplate) {
+        DataSource dataSource = jdbcTemplate.getJdbcTemplate().getDataSource();
+        try {
+            return dataSource != null && "PostgreSQL".equals(JdbcUtils.extractDatabaseMetaData(dataSource,
+                    DatabaseMetaData::getDatabaseProductName));
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Не удалось определить базу данных", e);
+        }
+    }
+
+    private static long[] readCounters(ResultSet rs) throws SQLException {
+        long[] counters = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            counters[i] = rs.getLong(COLUMNS[i]);
+        }
+        return counters;
+    }
+
+    // rows are always updated in key order, so concurrent writers touching the same rows cannot deadlock
+    private static MapSqlParameterSource[] toParameters(Map<Key, long[]> counters) {
+        return counters.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(KEY_ORDER))
+                .map(entry -> {
+                    MapSqlParameterSource parameters = key(entry.getKey().getUserId(), entry.getKey().getRole());
+                    for (int i = 0; i < SIZE; i++) {
+                        parameters.addValue(COLUMNS[i], entry.getValue()[i]);
+                    }
+                    return parameters;
+                })
+                .toArray(MapSqlParameterSource[]::new);
+    }
+
+    private static MapSqlParameterSource key(Long userId, Role role) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("role", role.name());
+    }
+
+    private static String casts() {
+        List<String> casts = new ArrayList<>();
+        for (String column : COLUMNS) {
+            casts.add("CAST(:" + column + " AS BIGINT)");
+        }
+        return String.join(", ", casts);
+    }
+
+    private static String assignments(boolean increment) {
+        List<String> assignments = new ArrayList<>();
+        for (String column : COLUMNS) {
+            assignments.add(column + " = " + (increment ? column + " + " : "") + ":" + column);
+        }
+        return String.join(", ", assignments);
+    }
+
+    /**
+     * The side of the bookings a row counts.
+     */
+    public enum Role {
+        BOOKER,
+        OWNER
+    }
+
+    /**
+     * The key of a row.
+     */
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    public static class Key {
+        Long userId;
+        Role role;
+    }
+}
@@ -0,0 +1,253 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingStatsRepository.Key;
+import ru.practicum.shareit.booking.BookingStatsRepository.Role;
+import ru.practicum.shareit.booking.dto.BookingStatsDto;
+import ru.practicum.shareit.util.Transactions;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the booking counters of every user per listing state.
+ * <p>
+ * The counters describe the bookings as of a watermark that trails the clock by a small lag. Booking writes add
+ * their deltas in their own transaction, a periodic rollup moves the bookings whose start or end has passed
+ * the watermark from FUTURE to CURRENT to PAST, and a reconciliation recounts everything from the bookings table.
+ * The lag leaves in-flight writes time to commit before the rollup passes their start.
+ */
+@Slf4j
+@Component
+public class BookingStatsService {
+    private final BookingStatsRepository statsRepository;
+    private final TransactionTemplate transaction;
+    private final Duration lag;
+    private final Set<Long> usersWithRows = ConcurrentHashMap.newKeySet();
+    private volatile LocalDateTime watermark;
+
+    /**
+     * Instantiates a new Booking stats service.
+     *
+     * @param statsRepository    the booking stats repository
+     * @param transactionManager the transaction manager
+     * @param lagMillis          the time the watermark trails the clock
+     */
+    @Autowired
+    public BookingStatsService(BookingStatsRepository statsRepository, PlatformTransactionManager transactionManager,
+                               @Value("${shareit.booking.stats.lag-ms:5000}") long lagMillis) {
+        this.statsRepository = statsRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.lag = Duration.ofMillis(lagMillis);
+        this.watermark = LocalDateTime.now().minus(lag);
+    }
+
+    /**
+     * Gets the counters of the bookings made by the user.
+     *
+     * @param userId the user id
+     * @return the counters
+     */
+    public BookingStatsDto getBookerStats(Long userId) {
+        return statsRepository.find(userId, Role.BOOKER);
+    }
+
+    /**
+     * Gets the counters of the bookings of the items owned by the user.
+     *
+     * @param userId the user id
+     * @return the counters
+     */
+    public BookingStatsDto getOwnerStats(Long userId) {
+        return statsRepository.find(userId, Role.OWNER);
+    }
+
+    /**
+     * Counts new bookings. Has to be called in the transaction that saves them.
+     *
+     * @param bookings the saved bookings
+     */
+    public void onCreated(List<Booking> bookings) {
+        LocalDateTime at = watermark;
+        Map<Key, long[]> deltas = new HashMap<>();
+        for (Booking booking : bookings) {
+            long[] delta = new long[BookingStatsRepository.SIZE];
+            delta[BookingStatsRepository.ALL] = 1;
+            delta[timeState(booking, at)] = 1;
+            int statusIndex = BookingStatsRepository.indexOf(booking.getStatus());
+            if (statusIndex >= 0) {
+                delta[statusIndex] = 1;
+            }
+            addToBoth(deltas, booking.getBooker().getId(), booking.getItem().getOwner().getId(), delta);
+        }
+        apply(deltas);
+    }
+
+    /**
+     * Counts a status change of the booking. Has to be called in the transaction that changes it.
+     *
+     * @param booking the booking
+     * @param from    the old status
+     */
+    public void onStatusChanged(Booking booking, BookingStatus from) {
+        onStatusChanged(List.<long[]>of(new long[]{booking.getBooker().getId(), booking.getItem().getOwner().getId()}),
+                from, booking.getStatus());
+    }
+
+    /**
+     * Counts a status change of the bookings. Has to be called in the transaction that changes them.
+     *
+     * @param bookingIds the booking ids
+     * @param from       the old status
+     * @param to         the new status
+     */
+    public void onStatusChanged(Collection<Long> bookingIds, BookingStatus from, BookingStatus to) {
+        if (!bookingIds.isEmpty()) {
+            onStatusChanged(statsRepository.findParticipants(bookingIds), from, to);
+        }
+    }
+
+    /**
+     * Moves the watermark to the lagging clock.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking.stats.rollup-delay-ms:10000}")
+    public void rollup() {
+        rollup(LocalDateTime.now().minus(lag));
+    }
+
+    /**
+     * Recounts the counters from the bookings table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.booking.stats.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        reconcile(LocalDateTime.now().minus(lag));
+    }
+
+    /**
+     * Moves the bookings whose start or end is between the watermark and the time to the next time based state.
+     *
+     * @param to the new watermark
+     */
+    synchronized void rollup(LocalDateTime to) {
+        LocalDateTime from = watermark;
+        if (!to.isAfter(from)) {
+            return;
+        }
+        transaction.executeWithoutResult(status -> {
+            Map<Key, long[]> deltas = new HashMap<>();
+            move(deltas, statsRepository.countCrossing("start_date", from, to),
+                    BookingStatsRepository.FUTURE, BookingStatsRepository.CURRENT);
+            move(deltas, statsRepository.countCrossing("end_date", from, to),
+                    BookingStatsRepository.CURRENT, BookingStatsRepository.PAST);
+            apply(deltas);
+        });
+        watermark = to;
+    }
+
+    /**
+     * Recounts all counters as of the time and makes it the watermark.
+     *
+     * @param now the time
+     * @return the number of corrected rows
+     */
+    synchronized int reconcile(LocalDateTime now) {
+        Integer corrected = transaction.execute(status -> {
+            Map<Key, long[]> current = statsRepository.lockAll();
+            Map<Key, long[]> expected = statsRepository.recount(now);
+            Map<Key, long[]> drifted = new HashMap<>();
+            current.forEach((key, counters) -> {
+                long[] actual = expected.getOrDefault(key, new long[BookingStatsRepository.SIZE]);
+                if (!Arrays.equals(counters, actual)) {
+                    drifted.put(key, actual);
+                }
+            });
+            Map<Key, long[]> missing = new HashMap<>(expected);
+            missing.keySet().removeAll(current.keySet());
+            // rows created after the lock belong to writes that have counted themselves, so they are kept
+            int inserted = statsRepository.insertMissing(missing);
+            statsRepository.set(drifted);
+            return drifted.size() + inserted;
+        });
+        watermark = now;
+        if (corrected != null && corrected > 0) {
+            log.warn("Исправлены счетчики бронирований {} пользователей", corrected);
+        }
+        return corrected == null ? 0 : corrected;
+    }
+
+    private void onStatusChanged(List<long[]> participants, BookingStatus from, BookingStatus to) {
+        long[] delta = new long[BookingStatsRepository.SIZE];
+        if (BookingStatsRepository.indexOf(from) >= 0) {
+            delta[BookingStatsRepository.indexOf(from)] -= 1;
+        }
+        if (BookingStatsRepository.indexOf(to) >= 0) {
+            delta[BookingStatsRepository.indexOf(to)] += 1;
+        }
+        if (Arrays.stream(delta).allMatch(value -> value == 0)) {
+            return;
+        }
+        Map<Key, long[]> deltas = new HashMap<>();
+        for (long[] participant : participants) {
+            addToBoth(deltas, participant[0], participant[1], delta);
+        }
+        apply(deltas);
+    }
+
+    private void apply(Map<Key, long[]> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        ensureRows(deltas.keySet().stream().map(Key::getUserId).toList());
+        statsRepository.add(deltas);
+    }
+
+    // rows are upserted in the transaction of the write, so it needs no second connection and two first writes
+    // of a user cannot fail each other; they are only remembered once the write commits
+    private void ensureRows(Collection<Long> userIds) {
+        Set<Long> missing = new HashSet<>(userIds);
+        missing.removeAll(usersWithRows);
+        if (missing.isEmpty()) {
+            return;
+        }
+        statsRepository.insertMissing(missing);
+        Transactions.afterCommit(() -> usersWithRows.addAll(missing));
+    }
+
+    private static void move(Map<Key, long[]> deltas, List<long[]> rows, int from, int to) {
+        for (long[] row : rows) {
+            long[] delta = new long[BookingStatsRepository.SIZE];
+            delta[from] = -row[2];
+            delta[to] = row[2];
+            addToBoth(deltas, row[0], row[1], delta);
+        }
+    }
+
+    private static void addToBoth(Map<Key, long[]> deltas, long bookerId, long ownerId, long[] delta) {
+        BookingStatsRepository.addTo(deltas, new Key(bookerId, Role.BOOKER), delta);
+        BookingStatsRepository.addTo(deltas, new Key(ownerId, Role.OWNER), delta);
+    }
+
+    private static int timeState(Booking booking, LocalDateTime at) {
+        if (booking.getStart().isAfter(at)) {
+            return BookingStatsRepository.FUTURE;
+        }
+        return booking.getEnd().isAfter(at) ? BookingStatsRepository.CURRENT : BookingStatsRepository.PAST;
+    }
+}
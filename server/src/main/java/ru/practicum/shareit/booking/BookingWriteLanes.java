@@ -0,0 +1,197 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.exception.BookingNotFoundException;
+import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.service.ValidationService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.util.KeyedBatchExecutor;
+import ru.practicum.shareit.util.Transactions;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates bookings through single-writer lanes keyed by item.
+ * <p>
+ * Concurrent requests for one item no longer queue on the lock of its intervals one transaction at a time:
+ * they are put into the lane of the item, and the lane writes everything that queued up while its previous
+ * batch ran with one item lookup, one user lookup, one overlap check under the item locks and one JDBC batch.
+ * A request that is made inside a running transaction is handled in place, so it sees and joins that
+ * transaction.
+ */
+@Slf4j
+@Component
+public class BookingWriteLanes {
+    private final ValidationService validationService;
+    private final BookingIntervalIndex intervalIndex;
+    private final BookingBatchRepository batchRepository;
+    private final BookingEventRepository eventRepository;
+    private final BookingStatsService statsService;
+    private final BookingPointerIndex pointerIndex;
+    private final BookingExpiryService expiryService;
+    private final TransactionOperations transactionOperations;
+    private final boolean enabled;
+    private final KeyedBatchExecutor<Request, Booking> lanes;
+
+    /**
+     * Instantiates new Booking write lanes.
+     *
+     * @param validationService     the validation service
+     * @param intervalIndex         the booking interval index
+     * @param batchRepository       the booking batch repository
+     * @param eventRepository       the booking event repository
+     * @param statsService          the booking stats service
+     * @param pointerIndex          the booking pointer index
+     * @param expiryService         the booking expiry service
+     * @param transactionOperations the transaction operations
+     * @param enabled               whether requests go through the lanes or are handled in the calling thread
+     * @param laneCount             the number of lanes
+     * @param maxBatchSize          the maximum number of bookings written by one batch
+     */
+    @Autowired
+    public BookingWriteLanes(@Lazy ValidationService validationService, BookingIntervalIndex intervalIndex,
+                             BookingBatchRepository batchRepository, BookingEventRepository eventRepository,
+                             BookingStatsService statsService, BookingPointerIndex pointerIndex,
+                             BookingExpiryService expiryService, TransactionOperations transactionOperations,
+                             @Value("${shareit.booking.lanes.enabled:true}") boolean enabled,
+                             @Value("${shareit.booking.lanes.count:64}") int laneCount,
+                             @Value("${shareit.booking.lanes.max-batch-size:100}") int maxBatchSize) {
+        this.validationService = validationService;
+        this.intervalIndex = intervalIndex;
+        this.batchRepository = batchRepository;
+        this.eventRepository = eventRepository;
+        this.statsService = statsService;
+        this.pointerIndex = pointerIndex;
+        this.expiryService = expiryService;
+        this.transactionOperations = transactionOperations;
+        this.enabled = enabled;
+        this.lanes = new KeyedBatchExecutor<>(laneCount, maxBatchSize, "booking-lane-", this::write);
+    }
+
+    /**
+     * Creates the booking.
+     *
+     * @param bookingInputDto the booking input dto
+     * @param bookerId        the booker id
+     * @return the saved booking
+     */
+    public Booking create(BookingInputDto bookingInputDto, Long bookerId) {
+        Request request = new Request(bookingInputDto, bookerId);
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return lanes.executeDirectly(request);
+        }
+        Long itemId = bookingInputDto.getItemId();
+        return KeyedBatchExecutor.await(lanes.submit(itemId == null ? 0 : itemId, request));
+    }
+
+    /**
+     * Inserts the bookings with their outbox events and counters.
+     *
+     * @param bookings the bookings
+     * @return the saved bookings
+     */
+    List<Booking> insertAllWithEvents(List<Booking> bookings) {
+        List<Booking> saved = batchRepository.insertAll(bookings);
+        eventRepository.append(saved, LocalDateTime.now());
+        statsService.onCreated(saved);
+        return saved;
+    }
+
+    private void write(List<KeyedBatchExecutor.Entry<Request, Booking>> batch) {
+        Set<Long> itemIds = batch.stream()
+                .map(entry -> entry.getRequest().getBooking().getItemId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        List<KeyedBatchExecutor.Entry<Request, Booking>> accepted = new ArrayList<>();
+        // the interval index drops the items of the batch if the transaction, or the one joined, rolls back
+        List<Booking> saved = transactionOperations.execute(status -> {
+            Map<Long, Item> items = validationService.findItemsByIds(itemIds);
+            Map<Long, User> users = validationService.findUsersByIds(batch.stream()
+                    .map(entry -> entry.getRequest().getBookerId())
+                    .collect(Collectors.toSet()));
+            List<Booking> candidates = new ArrayList<>();
+            for (KeyedBatchExecutor.Entry<Request, Booking> entry : batch) {
+                Request request = entry.getRequest();
+                try {
+                    candidates.add(toBooking(request, items.get(request.getBooking().getItemId()),
+                            users.get(request.getBookerId())));
+                    accepted.add(entry);
+                } catch (RuntimeException e) {
+                    entry.fail(e);
+                }
+            }
+            return candidates.isEmpty() ? List.of()
+                    : intervalIndex.saveAllIfFree(candidates, this::insertAllWithEvents);
+        });
+        for (int i = 0; i < accepted.size(); i++) {
+            Booking booking = saved.get(i);
+            KeyedBatchExecutor.Entry<Request, Booking> entry = accepted.get(i);
+            if (booking == null) {
+                entry.fail(new ValidationException("Вещь с ID=" + entry.getRequest().getBooking().getItemId() +
+                        " уже забронирована на указанный период!"));
+            } else {
+                Transactions.afterCommit(() -> {
+                    pointerIndex.onCreated(booking);
+                    expiryService.onCreated(booking);
+                });
+                entry.complete(booking);
+            }
+        }
+        if (batch.size() > 1) {
+            log.debug("Записана пачка из {} бронирований", batch.size());
+        }
+    }
+
+    private Booking toBooking(Request request, Item item, User booker) {
+        BookingInputDto bookingInputDto = request.getBooking();
+        if (booker == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь с id = " + request.getBookerId() +
+                    " не найден");
+        }
+        if (item == null) {
+            throw new UserNotFoundException("Вещь с ID=" + bookingInputDto.getItemId() + " не найдена!");
+        }
+        if (!item.getAvailable()) {
+            throw new ValidationException("Вещь с ID=" + item.getId() + " недоступна для бронирования!");
+        }
+        if (bookingInputDto.getStart() == null || bookingInputDto.getEnd() == null ||
+                !bookingInputDto.getStart().isBefore(bookingInputDto.getEnd())) {
+            throw new ValidationException("Дата начала бронирования должна быть раньше даты окончания!");
+        }
+        if (request.getBookerId().equals(item.getOwner().getId())) {
+            throw new BookingNotFoundException("Вещь с ID=" + item.getId() +
+                    " недоступна для бронирования самим владельцем!");
+        }
+        return new Booking(null, bookingInputDto.getStart(), bookingInputDto.getEnd(), item, booker,
+                BookingStatus.WAITING);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static class Request {
+        BookingInputDto booking;
+        Long bookerId;
+    }
+}
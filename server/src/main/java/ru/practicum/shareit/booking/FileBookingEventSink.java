@@ -0,0 +1,55 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends published events to a file, one JSON object per line.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.booking.events.sink", havingValue = "file")
+public class FileBookingEventSink implements BookingEventSink {
+    private static final int LINE_SEPARATOR = '\n';
+
+    private final Path path;
+    private final ObjectWriter writer;
+
+    /**
+     * Instantiates a new File booking event sink.
+     *
+     * @param path         the file path
+     * @param objectMapper the object mapper
+     */
+    @Autowired
+    public FileBookingEventSink(@Value("${shareit.booking.events.file:booking-events.ndjson}") Path path,
+                                ObjectMapper objectMapper) {
+        this.path = path;
+        this.writer = objectMapper.writerFor(BookingEventDto.class);
+    }
+
+    @Override
+    public synchronized void publish(List<BookingEventDto> events) {
+        try (OutputStream outputStream = Files.newOutputStream(path, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)) {
+            for (BookingEventDto event : events) {
+                outputStream.write(writer.writeValueAsBytes(event));
+                outputStream.write(LINE_SEPARATOR);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent published events in memory. Used unless another sink is configured.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.booking.events.sink", havingValue = "memory", matchIfMissing = true)
+public class InMemoryBookingEventSink implements BookingEventSink {
+    private final int capacity;
+    private final Deque<BookingEventDto> events = new ArrayDeque<>();
+
+    /**
+     * Instantiates a new In memory booking event sink.
+     *
+     * @param capacity the number of events kept
+     */
+    public InMemoryBookingEventSink(@Value("${shareit.booking.events.memory-capacity:10000}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void publish(List<BookingEventDto> published) {
+        for (BookingEventDto event : published) {
+            if (events.size() == capacity) {
+                events.removeFirst();
+            }
+            events.addLast(event);
+        }
+    }
+
+    /**
+     * Gets the kept events in feed order.
+     *
+     * @return the events
+     */
+    public synchronized List<BookingEventDto> getEvents() {
+        return new ArrayList<>(events);
+    }
+}
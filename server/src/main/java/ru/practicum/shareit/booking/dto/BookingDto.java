@@ -5,8 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.experimental.FieldDefaults;
 import ru.practicum.shareit.booking.BookingStatus;
-import ru.practicum.shareit.item.ItemDto;
-import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.item.ItemShortDto;
+import ru.practicum.shareit.user.UserShortDto;
 
 import java.time.LocalDateTime;
 
@@ -17,7 +17,7 @@ public class BookingDto {
     Long id;
     LocalDateTime start;
     LocalDateTime end;
-    ItemDto item;
-    UserDto booker;
+    ItemShortDto item;
+    UserShortDto booker;
     BookingStatus status;
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * A booking as it was right after it had been created or had changed its status.
+ * The offset is the position of the event in the change feed and is empty until the event is relayed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BookingEventDto {
+    Long id;
+    Long offset;
+    Long bookingId;
+    Long itemId;
+    Long bookerId;
+    BookingStatus status;
+    LocalDateTime start;
+    LocalDateTime end;
+    LocalDateTime created;
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat row of the booking export, selected directly by the query without loading entities.
+ */
+@Data
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BookingExportDto {
+    Long id;
+    LocalDateTime start;
+    LocalDateTime end;
+    Long itemId;
+    String itemName;
+    Long bookerId;
+    BookingStatus status;
+}
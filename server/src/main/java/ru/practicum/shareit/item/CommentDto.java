@@ -18,7 +18,7 @@ public class CommentDto {
     Long id;
     String text;
     @JsonIgnore
-    Item item;
+    Long itemId;
     String authorName;
     LocalDateTime created;
 }
\ No newline at end of file
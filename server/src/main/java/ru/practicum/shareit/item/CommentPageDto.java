@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CommentPageDto {
+    List<CommentDto> comments;
+    String nextCursor;
+}
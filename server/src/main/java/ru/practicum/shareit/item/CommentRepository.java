@@ -1,8 +1,11 @@
 package ru.practicum.shareit.item;
 
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -10,11 +13,32 @@ import java.util.List;
  */
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     /**
-     * Find all by item id list.
+     * Find the comments of the item, newest first, built directly as dtos.
+     * Backed by idx_comments_item_created_id.
      *
      * @param itemId the item id
-     * @param sort   the sort
+     * @param limit  the maximum number of comments
      * @return the list
      */
-    List<Comment> findAllByItemId(Long itemId, Sort sort);
+    @Query("select new ru.practicum.shareit.item.CommentDto(c.id, c.text, c.item.id, a.name, c.created) " +
+            "from Comment c join c.author a where c.item.id = :itemId order by c.created desc, c.id desc")
+    List<CommentDto> findDtosByItemId(@Param("itemId") Long itemId, Limit limit);
+
+    /**
+     * Find the comments of the item after the keyset position (created, id), newest first, built directly
+     * as dtos. Backed by idx_comments_item_created_id.
+     *
+     * @param itemId  the item id
+     * @param created the created of the last comment already seen
+     * @param id      the id of the last comment already seen
+     * @param limit   the maximum number of comments
+     * @return the list
+     */
+    @Query("select new ru.practicum.shareit.item.CommentDto(c.id, c.text, c.item.id, a.name, c.created) " +
+            "from Comment c join c.author a where c.item.id = :itemId " +
+            "and (c.created < :created or (c.created = :created and c.id < :id)) " +
+            "order by c.created desc, c.id desc")
+    List<CommentDto> findDtosByItemIdAfter(@Param("itemId") Long itemId, @Param("created") LocalDateTime created,
+                                           @Param("id") Long id, Limit limit);
+
 }
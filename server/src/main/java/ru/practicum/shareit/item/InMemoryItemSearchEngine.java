@@ -0,0 +1,324 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.practicum.shareit.util.LevenshteinAutomaton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Item search on an inverted index kept in memory.
+ * <p>
+ * Every word of the names and descriptions maps to the sorted ids of the items containing it, and the available
+ * items form a bit set. A query word of at least three characters matches all indexed words containing it,
+ * found through the trigrams of the indexed words; a shorter one matches the indexed words it is a prefix of.
+ * Every query word has to match, and the availability filter is one more intersection, so a search never
+ * leaves the process. Matches are ordered by id.
+ * <p>
+ * A fuzzy search runs a Levenshtein automaton of every query word over the sorted indexed words, so its cost is
+ * bounded by the vocabulary rather than by the number of items. A word matched with d edits scores 1 / (1 + d),
+ * and an item scores the mean of the best scores of the query words.
+ * <p>
+ * The index is loaded with one streamed scan of the items table when the application is ready, or on the first
+ * search if that comes earlier, and is then kept current by the item writes. It is told about them before the
+ * other item change listeners, so the search cache is never refilled from an index that has not seen the write.
+ * Item ids have to fit into an int.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.item.search.engine", havingValue = "memory")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class InMemoryItemSearchEngine implements ItemSearchEngine, ItemChangeListener {
+    private static final int TRIGRAM_LENGTH = 3;
+
+    private final ItemRepository repository;
+    private final TransactionOperations transactionOperations;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    private final Map<String, Set<String>> wordsByTrigram = new HashMap<>();
+    private final Map<Integer, String[]> wordsByItem = new HashMap<>();
+    private final BitSet available = new BitSet();
+    private volatile boolean built;
+
+    /**
+     * Instantiates a new In memory item search engine.
+     *
+     * @param repository            the item repository
+     * @param transactionOperations the transaction operations
+     */
+    @Autowired
+    public InMemoryItemSearchEngine(ItemRepository repository, TransactionOperations transactionOperations) {
+        this.repository = repository;
+        this.transactionOperations = transactionOperations;
+    }
+
+    /**
+     * Loads the index when the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (built) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (built) {
+                return;
+            }
+            transactionOperations.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = repository.streamSearchRows()) {
+                    rows.forEach(row -> index(Math.toIntExact((Long) row[0]), (String) row[1], (String) row[2],
+                            Boolean.TRUE.equals(row[3])));
+                }
+            });
+            built = true;
+            log.info("Загружен поисковый индекс: {} вещей, {} слов", wordsByItem.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Long> search(String text, int from, Integer size) {
+        Set<String> words = new LinkedHashSet<>(ItemSearchEngine.words(text));
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        build();
+        lock.readLock().lock();
+        try {
+            BitSet matches = null;
+            for (String word : words) {
+                BitSet wordMatches = new BitSet();
+                for (Postings itemIds : matchingPostings(word)) {
+                    itemIds.addTo(wordMatches);
+                }
+                if (matches == null) {
+                    matches = wordMatches;
+                } else {
+                    matches.and(wordMatches);
+                }
+                if (matches.isEmpty()) {
+                    return List.of();
+                }
+            }
+            matches.and(available);
+            List<Long> result = new ArrayList<>();
+            int skipped = 0;
+            for (int id = matches.nextSetBit(0); id >= 0 && (size == null || result.size() < size);
+                 id = matches.nextSetBit(id + 1)) {
+                if (skipped < from) {
+                    skipped++;
+                } else {
+                    result.add((long) id);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ItemSearchHit> searchFuzzy(String text, int from, Integer size) {
+        Set<String> words = new LinkedHashSet<>(ItemSearchEngine.words(text));
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        build();
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = null;
+            for (String word : words) {
+                Map<Integer, Double> wordScores = new HashMap<>();
+                new LevenshteinAutomaton(word, ItemSearchEngine.maxEdits(word.length()))
+                        .matches(postings.navigableKeySet())
+                        .forEach((match, distance) -> postings.get(match).addTo(wordScores, 1.0 / (1 + distance)));
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    scores.keySet().retainAll(wordScores.keySet());
+                    scores.replaceAll((id, score) -> score + wordScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return scores.entrySet().stream()
+                    .filter(entry -> available.get(entry.getKey()))
+                    .sorted(Map.Entry.<Integer, Double>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .skip(from)
+                    .limit(size == null ? Long.MAX_VALUE : size)
+                    .map(entry -> new ItemSearchHit((long) entry.getKey(), entry.getValue() / words.size()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onItemSaved(Item item) {
+        lock.writeLock().lock();
+        try {
+            // a write committed before the load is read by it, a write committed during the load waits for it
+            if (!built) {
+                return;
+            }
+            int id = Math.toIntExact(item.getId());
+            remove(id);
+            index(id, item.getName(), item.getDescription(), Boolean.TRUE.equals(item.getAvailable()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onItemDeleted(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                return;
+            }
+            remove(Math.toIntExact(itemId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(int id, String name, String description, boolean isAvailable) {
+        Set<String> words = new LinkedHashSet<>(ItemSearchEngine.words(name));
+        words.addAll(ItemSearchEngine.words(description));
+        for (String word : words) {
+            Postings itemIds = postings.get(word);
+            if (itemIds == null) {
+                itemIds = new Postings();
+                postings.put(word, itemIds);
+                for (String trigram : trigrams(word)) {
+                    wordsByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(word);
+                }
+            }
+            itemIds.add(id);
+        }
+        wordsByItem.put(id, words.toArray(String[]::new));
+        available.set(id, isAvailable);
+    }
+
+    private void remove(int id) {
+        String[] words = wordsByItem.remove(id);
+        if (words != null) {
+            for (String word : words) {
+                Postings itemIds = postings.get(word);
+                if (itemIds.remove(id)) {
+                    postings.remove(word);
+                    for (String trigram : trigrams(word)) {
+                        Set<String> trigramWords = wordsByTrigram.get(trigram);
+                        trigramWords.remove(word);
+                        if (trigramWords.isEmpty()) {
+                            wordsByTrigram.remove(trigram);
+                        }
+                    }
+                }
+            }
+        }
+        available.clear(id);
+    }
+
+    private Collection<Postings> matchingPostings(String word) {
+        if (word.length() < TRIGRAM_LENGTH) {
+            return postings.subMap(word, true, word + Character.MAX_VALUE, true).values();
+        }
+        Set<String> candidates = null;
+        for (String trigram : trigrams(word)) {
+            Set<String> trigramWords = wordsByTrigram.get(trigram);
+            if (trigramWords == null) {
+                return List.of();
+            }
+            if (candidates == null || trigramWords.size() < candidates.size()) {
+                candidates = trigramWords;
+            }
+        }
+        List<Postings> result = new ArrayList<>();
+        for (String candidate : candidates) {
+            if (candidate.contains(word)) {
+                result.add(postings.get(candidate));
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> trigrams(String word) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + TRIGRAM_LENGTH <= word.length(); i++) {
+            trigrams.add(word.substring(i, i + TRIGRAM_LENGTH));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Sorted ids of the items containing a word. Ids mostly arrive in ascending order, so adding is an append.
+     */
+    private static final class Postings {
+        private int[] ids = new int[2];
+        private int size;
+
+        void add(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        // returns true if no ids are left
+        boolean remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+            }
+            return size == 0;
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(ids[i]);
+            }
+        }
+
+        // keeps the best score of every id
+        void addTo(Map<Integer, Double> scores, double score) {
+            for (int i = 0; i < size; i++) {
+                scores.merge(ids[i], score, Math::max);
+            }
+        }
+    }
+}
@@ -5,6 +5,8 @@ import lombok.*;
 import lombok.experimental.FieldDefaults;
 import ru.practicum.shareit.user.User;
 
+import java.time.LocalDateTime;
+
 /**
  * The type Item.
  */
@@ -27,4 +29,8 @@ public class Item {
     @JoinColumn(name = "owner_id", nullable = false)
     User owner;
     Long requestId;
+    @Column(insertable = false, updatable = false)
+    Long commentCount;
+    @Column(insertable = false, updatable = false)
+    LocalDateTime lastCommentAt;
 }
\ No newline at end of file
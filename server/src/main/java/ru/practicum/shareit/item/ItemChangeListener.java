@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item;
+
+/**
+ * Listener of the item writes, told after every write has been committed.
+ */
+public interface ItemChangeListener {
+
+    /**
+     * Handles an item that has been created or updated, or that has got a new comment.
+     *
+     * @param item the item
+     */
+    void onItemSaved(Item item);
+
+    /**
+     * Handles an item that has been deleted.
+     *
+     * @param itemId the item id
+     */
+    void onItemDeleted(Long itemId);
+}
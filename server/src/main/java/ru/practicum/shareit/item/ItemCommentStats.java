@@ -0,0 +1,73 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+
+/**
+ * Maintains the number of comments and the time of the latest comment of every item.
+ * <p>
+ * The aggregates are columns of the items table, so the item listings show them without reading the comments.
+ * A comment is saved and counted in one transaction, and a periodic verification recounts the items whose
+ * aggregates differ from their comments. It locks those items before recounting, so a comment written meanwhile
+ * is either seen by the recount or counted after it.
+ */
+@Slf4j
+@Component
+public class ItemCommentStats {
+    private final ItemRepository repository;
+    private final CommentRepository commentRepository;
+    private final TransactionOperations transactionOperations;
+
+    /**
+     * Instantiates a new Item comment stats.
+     *
+     * @param repository            the item repository
+     * @param commentRepository     the comment repository
+     * @param transactionOperations the transaction operations
+     */
+    @Autowired
+    public ItemCommentStats(ItemRepository repository, CommentRepository commentRepository,
+                            TransactionOperations transactionOperations) {
+        this.repository = repository;
+        this.commentRepository = commentRepository;
+        this.transactionOperations = transactionOperations;
+    }
+
+    /**
+     * Saves the comment and counts it in the aggregates of its item.
+     *
+     * @param comment the comment
+     * @return the saved comment
+     */
+    public Comment add(Comment comment) {
+        return transactionOperations.execute(status -> {
+            Comment saved = commentRepository.save(comment);
+            repository.addComment(saved.getItem().getId(), saved.getCreated());
+            return saved;
+        });
+    }
+
+    /**
+     * Recounts the aggregates that differ from the comments.
+     *
+     * @return the number of corrected items
+     */
+    @Scheduled(cron = "${shareit.item.comments.verify-cron:0 45 3 * * *}")
+    public int verify() {
+        List<Long> drifted = repository.findIdsWithDriftedCommentAggregates();
+        if (drifted.isEmpty()) {
+            return 0;
+        }
+        Integer corrected = transactionOperations.execute(status -> {
+            repository.lockByIdIn(drifted);
+            return repository.recountCommentAggregates(drifted);
+        });
+        log.warn("Исправлены счетчики отзывов {} вещей", corrected);
+        return corrected == null ? 0 : corrected;
+    }
+}
@@ -2,8 +2,13 @@ package ru.practicum.shareit.item;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -14,6 +19,7 @@ import java.util.List;
 @RequestMapping("/items")
 public class ItemController {
     private static final String OWNER = "X-Sharer-User-Id";
+    private static final String NEXT_CURSOR = "X-Next-Cursor";
     private ItemService itemService;
     private static final String ITEM_ID = "{item-id}";
 
@@ -97,13 +103,58 @@ public class ItemController {
     /**
      * Gets items by search query.
      *
-     * @param text the text
+     * @param text  the text
+     * @param from  the from
+     * @param size  the size
+     * @param fuzzy whether to match words with typos
+     * @param start the first day the items have to be free on
+     * @param end   the last day the items have to be free on
      * @return the items by search query
      */
     @GetMapping("/search")
-    public List<ItemDto> getItemsBySearchQuery(@RequestParam String text) {
+    public List<ItemDto> getItemsBySearchQuery(@RequestParam String text,
+                                               @RequestParam(defaultValue = "0") Integer from,
+                                               @RequestParam(required = false) Integer size,
+                                               @RequestParam(defaultValue = "false") Boolean fuzzy,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
         log.info("Получен GET-запрос к эндпоинту: '/items/search' на поиск вещи с текстом={}", text);
-        return itemService.getItemsBySearchQuery(text);
+        return itemService.getItemsBySearchQuery(text, from, size, fuzzy, start, end);
+    }
+
+    /**
+     * Gets the completions of the item name prefix.
+     *
+     * @param prefix the prefix
+     * @param limit  the limit
+     * @return the suggestions
+     */
+    @GetMapping("/suggest")
+    public List<String> getSuggestions(@RequestParam String prefix,
+                                       @RequestParam(defaultValue = "10") Integer limit) {
+        log.info("Получен GET-запрос к эндпоинту: '/items/suggest' на подсказки для префикса={}", prefix);
+        return itemService.getSuggestions(prefix, limit);
+    }
+
+    /**
+     * Gets free slots of the item inside the window.
+     *
+     * @param itemId the item id
+     * @param from   the from
+     * @param to     the to
+     * @return the availability
+     */
+    @GetMapping("/{item-id}/availability")
+    public List<FreeSlotDto> getAvailability(@PathVariable("item-id") Long itemId,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                             LocalDateTime from,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                             LocalDateTime to) {
+        log.info("Получен GET-запрос к эндпоинту: '/items/availability' на получение свободных периодов " +
+                "вещи с ID={} с {} по {}", itemId, from, to);
+        return itemService.getAvailability(itemId, from, to);
     }
 
     /**
@@ -122,4 +173,25 @@ public class ItemController {
                 " добавление отзыва пользователем с ID={}", userId);
         return itemService.createComment(commentDto, itemId, userId);
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets a page of the comments of the item, newest first.
+     *
+     * @param itemId the item id
+     * @param cursor the cursor of the next page
+     * @param limit  the limit
+     * @return the comments
+     */
+    @GetMapping("/{item-id}/comments")
+    public ResponseEntity<List<CommentDto>> getComments(@PathVariable("item-id") Long itemId,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "20") Integer limit) {
+        log.info("Получен GET-запрос к эндпоинту: '/items/comments' на получение отзывов вещи с ID={}", itemId);
+        CommentPageDto page = itemService.getComments(itemId, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR, page.getNextCursor());
+        }
+        return response.body(page.getComments());
+    }
+}
@@ -1,11 +1,12 @@
 package ru.practicum.shareit.item;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
-import ru.practicum.shareit.user.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -27,9 +28,14 @@ public class ItemDto {
     Boolean available;
 
     @JsonIgnore
-    User owner;
+    Long ownerId;
     Long requestId;
     BookingShortDto lastBooking;
     BookingShortDto nextBooking;
     List<CommentDto> comments;
-}
\ No newline at end of file
+    Long commentCount;
+    LocalDateTime lastCommentAt;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Double score;
+}
@@ -1,8 +1,10 @@
 package ru.practicum.shareit.item;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.service.ValidationService;
 
 /**
@@ -12,54 +14,88 @@ import ru.practicum.shareit.service.ValidationService;
 public class ItemMapper {
 
     private ValidationService validationService;
+    private int latestComments;
 
     /**
      * Instantiates a new Item mapper.
      *
      * @param validationService the validation service
+     * @param latestComments    the number of latest comments carried by an item dto
      */
     @Autowired
-    @Lazy
-    public ItemMapper(ValidationService validationService) {
+    public ItemMapper(@Lazy ValidationService validationService,
+                      @Value("${shareit.item.comments.latest:10}") int latestComments) {
         this.validationService = validationService;
+        this.latestComments = latestComments;
     }
 
     /**
-     * To item dto item dto.
+     * To item dto item dto with the latest comments of the item.
      *
      * @param item the item
      * @return the item dto
      */
     public ItemDto toItemDto(Item item) {
-        return new ItemDto(
-                item.getId(),
-                item.getName(),
-                item.getDescription(),
-                item.getAvailable(),
-                item.getOwner(),
-                item.getRequestId() != null ? item.getRequestId() : null,
-                null,
-                null,
-                validationService.getCommentsByItemId(item.getId()));
+        ItemDto itemDto = toItemCardDto(item);
+        itemDto.setComments(validationService.getLatestComments(item.getId(), latestComments));
+        return itemDto;
     }
 
     /**
-     * To item ext dto item dto.
+     * To item short dto item short dto.
+     *
+     * @param item the item
+     * @return the item short dto
+     */
+    public ItemShortDto toItemShortDto(Item item) {
+        return new ItemShortDto(item.getId(), item.getName(), item.getOwner().getId());
+    }
+
+    /**
+     * To item card dto item dto with the comment count and the time of the latest comment but without the comments.
+     *
+     * @param item the item
+     * @return the item dto
+     */
+    public ItemDto toItemCardDto(Item item) {
+        return toItemExtDto(item, null, null);
+    }
+
+    /**
+     * To item ext dto item dto with the last and next bookings and the latest comments of the item.
      *
      * @param item the item
      * @return the item dto
      */
     public ItemDto toItemExtDto(Item item) {
+        ItemDto itemDto = toItemExtDto(item, validationService.getLastBooking(item.getId()),
+                validationService.getNextBooking(item.getId()));
+        itemDto.setComments(validationService.getLatestComments(item.getId(), latestComments));
+        return itemDto;
+    }
+
+    /**
+     * To item ext dto item dto with bookings already loaded by the caller. The comments are left to the caller.
+     *
+     * @param item        the item
+     * @param lastBooking the last booking
+     * @param nextBooking the next booking
+     * @return the item dto
+     */
+    public ItemDto toItemExtDto(Item item, BookingShortDto lastBooking, BookingShortDto nextBooking) {
         return new ItemDto(
                 item.getId(),
                 item.getName(),
                 item.getDescription(),
                 item.getAvailable(),
-                item.getOwner(),
+                item.getOwner().getId(),
                 item.getRequestId() != null ? item.getRequestId() : null,
-                validationService.getLastBooking(item.getId()),
-                validationService.getNextBooking(item.getId()),
-                validationService.getCommentsByItemId(item.getId()));
+                lastBooking,
+                nextBooking,
+                null,
+                item.getCommentCount() != null ? item.getCommentCount() : 0L,
+                item.getLastCommentAt(),
+                null);
     }
 
     /**
@@ -76,7 +112,9 @@ public class ItemMapper {
                 itemDto.getDescription(),
                 itemDto.getAvailable(),
                 validationService.findUserById(ownerId),
-                itemDto.getRequestId() != null ? itemDto.getRequestId() : null
+                itemDto.getRequestId() != null ? itemDto.getRequestId() : null,
+                null,
+                null
         );
     }
 
@@ -90,7 +128,7 @@ public class ItemMapper {
         return new CommentDto(
                 comment.getId(),
                 comment.getText(),
-                comment.getItem(),
+                comment.getItem().getId(),
                 comment.getAuthor().getName(),
                 comment.getCreated());
     }
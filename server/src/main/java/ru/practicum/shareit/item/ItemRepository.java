@@ -1,11 +1,17 @@
 package ru.practicum.shareit.item;
 
-import org.springframework.data.domain.Sort;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * The interface Item repository.
@@ -20,23 +26,97 @@ public interface ItemRepository  extends JpaRepository<Item, Long> {
     List<Item> findByOwnerId(Long ownerId);
 
     /**
-     * Gets items by search query.
+     * Find the items answering the request, newest first, built directly as short dtos.
      *
-     * @param text the text
-     * @return the items by search query
+     * @param requestId the request id
+     * @return the list
      */
-    @Query(" select i from Item i " +
-            "where lower(i.name) like lower(concat('%', :search, '%')) " +
-            " or lower(i.description) like lower(concat('%', :search, '%')) " +
-            " and i.available = true")
-    List<Item> getItemsBySearchQuery(@Param("search") String text);
+    @Query("select new ru.practicum.shareit.item.ItemShortDto(i.id, i.name, i.owner.id) from Item i " +
+            "where i.requestId = :requestId order by i.id desc")
+    List<ItemShortDto> findShortByRequestId(@Param("requestId") Long requestId);
 
     /**
-     * Find all by request id list.
+     * Find items with their owners by ids.
      *
-     * @param requestId the request id
-     * @param sort      the sort
+     * @param ids the ids
      * @return the list
      */
-    List<Item> findAllByRequestId(Long requestId, Sort sort);
+    @Query("select i from Item i join fetch i.owner where i.id in :ids")
+    List<Item> findAllWithOwnerByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Stream the id, name, description and availability of every item.
+     * The stream must be consumed and closed inside a transaction.
+     *
+     * @return the stream
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select i.id, i.name, i.description, i.available from Item i")
+    Stream<Object[]> streamSearchRows();
+
+    /**
+     * Stream the id, name and availability of every item.
+     * The stream must be consumed and closed inside a transaction.
+     *
+     * @return the stream
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select i.id, i.name, i.available from Item i")
+    Stream<Object[]> streamNameRows();
+
+    /**
+     * Stream the item id and the number of bookings of every booked item.
+     * The stream must be consumed and closed inside a transaction.
+     *
+     * @return the stream
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select b.item.id, count(b) from Booking b group by b.item.id")
+    Stream<Object[]> streamBookingCounts();
+
+    /**
+     * Count a new comment of the item in its comment aggregates.
+     *
+     * @param id      the item id
+     * @param created the creation time of the comment
+     * @return the number of updated rows
+     */
+    @Modifying
+    @Query(value = "update items set comment_count = comment_count + 1, " +
+            "last_comment_at = greatest(coalesce(last_comment_at, :created), :created) where id = :id",
+            nativeQuery = true)
+    int addComment(@Param("id") Long id, @Param("created") LocalDateTime created);
+
+    /**
+     * Find ids of the items whose comment aggregates differ from their comments.
+     *
+     * @return the item ids
+     */
+    @Query(value = "select i.id from items i left join (select item_id, count(*) as total, " +
+            "max(created) as latest from comments group by item_id) c on c.item_id = i.id " +
+            "where i.comment_count <> coalesce(c.total, 0) or i.last_comment_at is distinct from c.latest",
+            nativeQuery = true)
+    List<Long> findIdsWithDriftedCommentAggregates();
+
+    /**
+     * Lock the items until the end of the transaction.
+     *
+     * @param ids the ids
+     * @return the locked ids
+     */
+    @Query(value = "select id from items where id in (:ids) for update", nativeQuery = true)
+    List<Long> lockByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Recount the comment aggregates of the items from their comments.
+     *
+     * @param ids the ids
+     * @return the number of updated rows
+     */
+    @Modifying
+    @Query(value = "update items set " +
+            "comment_count = (select count(*) from comments c where c.item_id = items.id), " +
+            "last_comment_at = (select max(c.created) from comments c where c.item_id = items.id) " +
+            "where id in (:ids)", nativeQuery = true)
+    int recountCommentAggregates(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,270 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.util.LevenshteinAutomaton;
+import ru.practicum.shareit.util.TinyLfuCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the item search results keyed by the normalized text and the page.
+ * <p>
+ * Entries are evicted by W-TinyLFU, so the few popular searches stay cached while one-off texts pass through.
+ * An item write drops only the entries it can change: the ones listing the item, and after a create or update
+ * the ones whose text the item may now match. The match test over-approximates every search engine: a query
+ * word may match an item word containing it or sharing its first three characters, which covers the stemming
+ * of the full text engine, or, for a fuzzy search, one within its edit distance.
+ * <p>
+ * The cached keys are indexed by the items they list and by the words of their text, so a write tests each
+ * distinct query word once and touches only the entries it drops. Writes are serialized by the index lock,
+ * while lookups take only the cache lock.
+ * <p>
+ * Hits, misses, evictions, invalidations, the hit ratio and the size are published as
+ * shareit.item.search.cache.* meters.
+ */
+@Component
+public class ItemSearchCache implements ItemChangeListener {
+    private static final int STEM_PREFIX_LENGTH = 3;
+
+    private final TinyLfuCache<Key, List<ItemDto>> cache;
+    private final Map<Key, List<Long>> itemIdsByKey = new HashMap<>();
+    private final Map<Long, Set<Key>> keysByItemId = new HashMap<>();
+    private final Map<String, Set<Key>> keysByWord = new HashMap<>();
+    private final AtomicLong writes = new AtomicLong();
+    private final Counter invalidations;
+
+    /**
+     * Instantiates a new Item search cache.
+     *
+     * @param meterRegistry the meter registry
+     * @param enabled       whether to cache the results
+     * @param maxEntries    the maximum number of cached pages
+     */
+    @Autowired
+    public ItemSearchCache(MeterRegistry meterRegistry,
+                           @Value("${shareit.item.search.cache.enabled:true}") boolean enabled,
+                           @Value("${shareit.item.search.cache.max-entries:10000}") int maxEntries) {
+        this.cache = enabled ? new TinyLfuCache<>(maxEntries) : null;
+        this.invalidations = Counter.builder("shareit.item.search.cache.invalidations")
+                .description("Cached search pages dropped by item writes")
+                .register(meterRegistry);
+        if (cache != null) {
+            FunctionCounter.builder("shareit.item.search.cache.hits", cache, TinyLfuCache::getHits)
+                    .description("Searches answered from the cache")
+                    .register(meterRegistry);
+            FunctionCounter.builder("shareit.item.search.cache.misses", cache, TinyLfuCache::getMisses)
+                    .description("Searches not found in the cache")
+                    .register(meterRegistry);
+            FunctionCounter.builder("shareit.item.search.cache.evictions", cache, TinyLfuCache::getEvictions)
+                    .description("Search pages evicted to stay within the maximum size")
+                    .register(meterRegistry);
+            Gauge.builder("shareit.item.search.cache.hit.ratio", cache, TinyLfuCache::getHitRatio)
+                    .description("Share of the searches answered from the cache")
+                    .register(meterRegistry);
+            Gauge.builder("shareit.item.search.cache.size", cache, TinyLfuCache::size)
+                    .description("Cached search pages")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Gets the number of item writes so far, to be passed to {@link #put} with the result of a search
+     * started after reading it.
+     *
+     * @return the writes
+     */
+    public long getWrites() {
+        return writes.get();
+    }
+
+    /**
+     * Gets the cached page.
+     *
+     * @param text  the normalized text
+     * @param from  the number of matches skipped
+     * @param size  the page size, or null for all matches
+     * @param fuzzy whether the search matches words with typos
+     * @return the items, or null if the page is not cached
+     */
+    public List<ItemDto> get(String text, int from, Integer size, boolean fuzzy) {
+        if (cache == null) {
+            return null;
+        }
+        List<ItemDto> items = cache.get(new Key(text, from, size, fuzzy));
+        return items == null ? null : new ArrayList<>(items);
+    }
+
+    /**
+     * Caches the page unless an item has been written since the search started.
+     *
+     * @param text         the normalized text
+     * @param from         the number of matches skipped
+     * @param size         the page size, or null for all matches
+     * @param fuzzy        whether the search matches words with typos
+     * @param items        the items
+     * @param writesBefore the writes read before the search
+     */
+    public void put(String text, int from, Integer size, boolean fuzzy, List<ItemDto> items, long writesBefore) {
+        if (cache == null) {
+            return;
+        }
+        synchronized (keysByWord) {
+            // the write may have dropped its entries before this result, read before the write, was put
+            if (writes.get() == writesBefore) {
+                Key key = new Key(text, from, size, fuzzy);
+                List<ItemDto> page = List.copyOf(items);
+                unregister(key);
+                Key evicted = cache.put(key, page);
+                if (evicted != null) {
+                    unregister(evicted);
+                }
+                if (!key.equals(evicted)) {
+                    register(key, page);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onItemSaved(Item item) {
+        if (cache == null) {
+            return;
+        }
+        NavigableSet<String> itemWords = new TreeSet<>(ItemSearchEngine.words(item.getName()));
+        itemWords.addAll(ItemSearchEngine.words(item.getDescription()));
+        boolean isAvailable = Boolean.TRUE.equals(item.getAvailable());
+        synchronized (keysByWord) {
+            writes.incrementAndGet();
+            Set<Key> stale = new HashSet<>(keysByItemId.getOrDefault(item.getId(), Set.of()));
+            if (isAvailable) {
+                stale.addAll(mayMatch(itemWords));
+            }
+            stale.forEach(this::drop);
+        }
+    }
+
+    @Override
+    public void onItemDeleted(Long itemId) {
+        if (cache == null) {
+            return;
+        }
+        synchronized (keysByWord) {
+            writes.incrementAndGet();
+            new ArrayList<>(keysByItemId.getOrDefault(itemId, Set.of())).forEach(this::drop);
+        }
+    }
+
+    // the keys whose every query word may match a word of the item
+    private Set<Key> mayMatch(NavigableSet<String> itemWords) {
+        Set<String> matched = new HashSet<>();
+        Set<String> fuzzyMatched = new HashSet<>();
+        for (Map.Entry<String, Set<Key>> entry : keysByWord.entrySet()) {
+            String word = entry.getKey();
+            if (mayMatch(word, itemWords)) {
+                matched.add(word);
+                fuzzyMatched.add(word);
+            } else if (entry.getValue().stream().anyMatch(Key::isFuzzy)
+                    && !new LevenshteinAutomaton(word, ItemSearchEngine.maxEdits(word.length()))
+                    .matches(itemWords).isEmpty()) {
+                fuzzyMatched.add(word);
+            }
+        }
+        Set<Key> keys = new HashSet<>();
+        for (String word : fuzzyMatched) {
+            for (Key key : keysByWord.get(word)) {
+                if ((key.isFuzzy() ? fuzzyMatched : matched).containsAll(key.getWords())) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static boolean mayMatch(String word, NavigableSet<String> itemWords) {
+        return itemWords.stream().anyMatch(itemWord -> itemWord.contains(word)
+                || commonPrefixLength(word, itemWord)
+                >= Math.min(STEM_PREFIX_LENGTH, Math.min(word.length(), itemWord.length())));
+    }
+
+    private void drop(Key key) {
+        if (cache.remove(key) != null) {
+            invalidations.increment();
+        }
+        unregister(key);
+    }
+
+    private void register(Key key, List<ItemDto> page) {
+        List<Long> itemIds = page.stream().map(ItemDto::getId).toList();
+        itemIdsByKey.put(key, itemIds);
+        for (Long itemId : itemIds) {
+            keysByItemId.computeIfAbsent(itemId, id -> new HashSet<>()).add(key);
+        }
+        for (String word : key.getWords()) {
+            keysByWord.computeIfAbsent(word, w -> new HashSet<>()).add(key);
+        }
+    }
+
+    private void unregister(Key key) {
+        List<Long> itemIds = itemIdsByKey.remove(key);
+        if (itemIds == null) {
+            return;
+        }
+        for (Long itemId : itemIds) {
+            removeKey(keysByItemId, itemId, key);
+        }
+        for (String word : key.getWords()) {
+            removeKey(keysByWord, word, key);
+        }
+    }
+
+    private static <T> void removeKey(Map<T, Set<Key>> keys, T indexKey, Key key) {
+        Set<Key> indexed = keys.get(indexKey);
+        if (indexed != null && indexed.remove(key) && indexed.isEmpty()) {
+            keys.remove(indexKey);
+        }
+    }
+
+    private static int commonPrefixLength(String first, String second) {
+        int length = Math.min(first.length(), second.length());
+        for (int i = 0; i < length; i++) {
+            if (first.charAt(i) != second.charAt(i)) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class Key {
+        private final String text;
+        private final int from;
+        private final Integer size;
+        private final boolean fuzzy;
+
+        // a text without words lists nothing an item write could add, but is indexed under the empty word,
+        // which every item word contains
+        List<String> getWords() {
+            List<String> words = ItemSearchEngine.words(text);
+            return words.isEmpty() ? List.of("") : words;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.item;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Full text search over the names and descriptions of the available items.
+ * <p>
+ * The implementation is chosen by shareit.item.search.engine. Engines that keep their own copy of the items
+ * implement {@link ItemChangeListener} to be told about every item write.
+ */
+public interface ItemSearchEngine {
+
+    /**
+     * Finds the available items matching the text, best matches first.
+     *
+     * @param text the text
+     * @param from the number of matches to skip
+     * @param size the maximum number of matches, or null for all of them
+     * @return the item ids
+     */
+    List<Long> search(String text, int from, Integer size);
+
+    /**
+     * Finds the available items whose words are within a few edits of every word of the text, best matches
+     * first. Engines without a term dictionary answer with the exact matches, all scored 1.
+     *
+     * @param text the text
+     * @param from the number of matches to skip
+     * @param size the maximum number of matches, or null for all of them
+     * @return the scored item ids
+     */
+    default List<ItemSearchHit> searchFuzzy(String text, int from, Integer size) {
+        return search(text, from, size).stream()
+                .map(itemId -> new ItemSearchHit(itemId, 1))
+                .toList();
+    }
+
+    /**
+     * Gets the number of edits a query word of the length may be away from the words it matches: none for
+     * up to two characters, one for up to five and two for longer words.
+     *
+     * @param length the word length
+     * @return the maximum edit distance
+     */
+    static int maxEdits(int length) {
+        return length <= 2 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Normalizes the text so that the texts searched for the same way are equal.
+     *
+     * @param text the text
+     * @return the normalized text
+     */
+    default String normalize(String text) {
+        return String.join(" ", words(text));
+    }
+
+    /**
+     * Splits the text into lower case words of letters and digits.
+     *
+     * @param text the text
+     * @return the words
+     */
+    static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .toList();
+    }
+}
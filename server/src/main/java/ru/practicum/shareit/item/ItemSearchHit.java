@@ -0,0 +1,19 @@
+package ru.practicum.shareit.item;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * The type Item search hit.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ItemSearchHit {
+
+    Long itemId;
+
+    double score;
+}
@@ -1,6 +1,12 @@
 package ru.practicum.shareit.item;
 
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The interface Item service.
@@ -24,6 +30,14 @@ public interface ItemService {
      */
     Item findItemById(Long id);
 
+    /**
+     * Find items by ids.
+     *
+     * @param ids the ids
+     * @return the items keyed by id, unknown ids are absent
+     */
+    Map<Long, Item> findItemsByIds(Collection<Long> ids);
+
     /**
      * Create item dto.
      *
@@ -50,12 +64,29 @@ public interface ItemService {
     void delete(Long itemId, Long ownerId);
 
     /**
-     * Gets items by search query.
+     * Gets a page of the items matching the search query, best matches first. A fuzzy search also matches
+     * words a few typos away and scores every item. With a period, only the items that have no approved
+     * booking on any day of it are listed.
      *
-     * @param text the text
+     * @param text  the text
+     * @param from  the number of matches to skip
+     * @param size  the page size, or null for all matches
+     * @param fuzzy whether to match words with typos
+     * @param start the first day of the period, or null for any availability
+     * @param end   the last day of the period, or null for any availability
      * @return the items by search query
      */
-    List<ItemDto> getItemsBySearchQuery(String text);
+    List<ItemDto> getItemsBySearchQuery(String text, Integer from, Integer size, boolean fuzzy, LocalDate start,
+                                        LocalDate end);
+
+    /**
+     * Gets the completions of the last word of the prefix among the available item names, most booked first.
+     *
+     * @param prefix the prefix
+     * @param limit  the maximum number of completions
+     * @return the completions
+     */
+    List<String> getSuggestions(String prefix, Integer limit);
 
     /**
      * Update item dto.
@@ -85,11 +116,40 @@ public interface ItemService {
      */
     List<CommentDto> getCommentsByItemId(Long itemId);
 
+    /**
+     * Gets a page of the comments of the item, newest first.
+     *
+     * @param itemId the item id
+     * @param cursor the cursor of the next page, or null for the first page
+     * @param limit  the page size
+     * @return the page
+     */
+    CommentPageDto getComments(Long itemId, String cursor, Integer limit);
+
+    /**
+     * Gets the latest comments of the item, newest first.
+     *
+     * @param itemId the item id
+     * @param limit  the number of comments
+     * @return the latest comments
+     */
+    List<CommentDto> getLatestComments(Long itemId, int limit);
+
     /**
      * Gets by request id.
      *
      * @param requestId the request id
      * @return the by request id
      */
-    List<ItemDto> getByRequestId(Long requestId);
-}
\ No newline at end of file
+    List<ItemShortDto> getByRequestId(Long requestId);
+
+    /**
+     * Gets free slots of the item inside the window.
+     *
+     * @param itemId the item id
+     * @param from   the from
+     * @param to     the to
+     * @return the availability
+     */
+    List<FreeSlotDto> getAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
+}
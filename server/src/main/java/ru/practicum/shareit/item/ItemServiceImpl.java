@@ -5,20 +5,31 @@ import lombok.experimental.FieldDefaults;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
 import ru.practicum.shareit.exception.ItemNotFoundException;
 import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.service.ValidationService;
+import ru.practicum.shareit.util.KeysetCursor;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
 /**
  * The type Item service.
@@ -26,10 +37,17 @@ import static java.util.stream.Collectors.toList;
 @Service
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class ItemServiceImpl implements ItemService {
+    private static final int FREE_SEARCH_CHUNK = 100;
+
     ItemRepository repository;
     CommentRepository commentRepository;
     ValidationService validationService;
     ItemMapper mapper;
+    ItemSearchEngine searchEngine;
+    ItemSearchCache searchCache;
+    ItemSuggestIndex suggestIndex;
+    ItemCommentStats commentStats;
+    List<ItemChangeListener> changeListeners;
 
     /**
      * Instantiates a new Item service.
@@ -38,15 +56,28 @@ public class ItemServiceImpl implements ItemService {
      * @param commentRepository the comment repository
      * @param validationService the validation service
      * @param itemMapper        the item mapper
+     * @param searchEngine      the item search engine
+     * @param searchCache       the item search cache
+     * @param suggestIndex      the item suggest index
+     * @param commentStats      the item comment stats
+     * @param changeListeners   the item change listeners
      */
     @Autowired
     @Lazy
     public ItemServiceImpl(ItemRepository repository, CommentRepository commentRepository,
-                           ValidationService validationService, ItemMapper itemMapper) {
+                           ValidationService validationService, ItemMapper itemMapper,
+                           ItemSearchEngine searchEngine, ItemSearchCache searchCache,
+                           ItemSuggestIndex suggestIndex, ItemCommentStats commentStats,
+                           List<ItemChangeListener> changeListeners) {
         this.repository = repository;
         this.commentRepository = commentRepository;
         this.validationService = validationService;
         this.mapper = itemMapper;
+        this.searchEngine = searchEngine;
+        this.searchCache = searchCache;
+        this.suggestIndex = suggestIndex;
+        this.commentStats = commentStats;
+        this.changeListeners = changeListeners;
     }
 
     @Override
@@ -68,6 +99,15 @@ public class ItemServiceImpl implements ItemService {
                 .orElseThrow(() -> new UserNotFoundException("Вещь с ID=" + id + " не найдена!"));
     }
 
+    @Override
+    public Map<Long, Item> findItemsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return repository.findAllWithOwnerByIdIn(ids).stream()
+                .collect(toMap(Item::getId, Function.identity()));
+    }
+
     @Override
     public ItemDto create(ItemDto itemDto, Long ownerId) {
         validationService.isExistUser(ownerId);
@@ -75,14 +115,23 @@ public class ItemServiceImpl implements ItemService {
         itemDto.getDescription() == null || itemDto.getDescription().isBlank()) {
             throw new ValidationException("Невенрные данные для предмета, проверьте название, описание и статус");
         }
-        return mapper.toItemDto(repository.save(mapper.toItem(itemDto, ownerId)));
+        Item saved = repository.save(mapper.toItem(itemDto, ownerId));
+        changeListeners.forEach(listener -> listener.onItemSaved(saved));
+        return mapper.toItemDto(saved);
     }
 
     @Override
     public List<ItemDto> getItemsByOwner(Long ownerId) {
         validationService.isExistUser(ownerId);
-        return repository.findByOwnerId(ownerId).stream()
-                .map(mapper::toItemExtDto)
+        List<Item> items = repository.findByOwnerId(ownerId);
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
+                .collect(toList());
+        Map<Long, BookingShortDto> lastBookings = validationService.getLastBookings(itemIds);
+        Map<Long, BookingShortDto> nextBookings = validationService.getNextBookings(itemIds);
+        return items.stream()
+                .map(item -> mapper.toItemExtDto(item, lastBookings.get(item.getId()),
+                        nextBookings.get(item.getId())))
                 .sorted(Comparator.comparing(ItemDto::getId))
                 .collect(toList());
     }
@@ -96,20 +145,109 @@ public class ItemServiceImpl implements ItemService {
                 throw new ItemNotFoundException("У пользователя нет такой вещи!");
             }
             repository.deleteById(itemId);
+            changeListeners.forEach(listener -> listener.onItemDeleted(itemId));
         } catch (EmptyResultDataAccessException e) {
             throw new ItemNotFoundException("Вещь с ID=" + itemId + " не найдена!");
         }
     }
 
     @Override
-    public List<ItemDto> getItemsBySearchQuery(String text) {
-        if ((text != null) && (!text.isEmpty()) && (!text.isBlank())) {
-            text = text.toLowerCase();
-            return repository.getItemsBySearchQuery(text).stream()
-                    .filter(item -> item.getAvailable() != null && item.getAvailable())
-                    .map(mapper::toItemDto)
-                    .collect(toList());
-        } else return new ArrayList<>();
+    public List<ItemDto> getItemsBySearchQuery(String text, Integer from, Integer size, boolean fuzzy,
+                                               LocalDate start, LocalDate end) {
+        if (from == null || from < 0) {
+            throw new ValidationException("Значение не может быть меньше нуля!");
+        }
+        if (size != null && size <= 0) {
+            throw new ValidationException("Значение должно быть больше нуля!");
+        }
+        if ((start == null) != (end == null)) {
+            throw new ValidationException("Необходимо указать начало и окончание периода!");
+        }
+        if (start != null && end.isBefore(start)) {
+            throw new ValidationException("Начало периода должно быть раньше его окончания!");
+        }
+        if (start != null && start.isBefore(LocalDate.now())) {
+            throw new ValidationException("Начало периода не может быть в прошлом!");
+        }
+        if (text == null || text.isBlank()) {
+            return new ArrayList<>();
+        }
+        if (start != null) {
+            // every approval changes the free items, so searches with a period are not cached
+            return searchItems(text, from, size, fuzzy, start, end);
+        }
+        String normalized = searchEngine.normalize(text);
+        List<ItemDto> cached = searchCache.get(normalized, from, size, fuzzy);
+        if (cached != null) {
+            return cached;
+        }
+        long writesBefore = searchCache.getWrites();
+        List<ItemDto> result = searchItems(text, from, size, fuzzy, null, null);
+        searchCache.put(normalized, from, size, fuzzy, result, writesBefore);
+        return result;
+    }
+
+    @Override
+    public List<String> getSuggestions(String prefix, Integer limit) {
+        if (limit == null || limit <= 0) {
+            throw new ValidationException("Значение должно быть больше нуля!");
+        }
+        if (prefix == null || prefix.isBlank()) {
+            return new ArrayList<>();
+        }
+        return suggestIndex.suggest(prefix, limit);
+    }
+
+    private List<ItemDto> searchItems(String text, int from, Integer size, boolean fuzzy, LocalDate start,
+                                      LocalDate end) {
+        List<ItemSearchHit> hits = start == null
+                ? searchHits(text, from, size, fuzzy)
+                : searchFreeHits(text, from, size, fuzzy, start, end);
+        Map<Long, Item> items = findItemsByIds(hits.stream().map(ItemSearchHit::getItemId).toList());
+        List<ItemDto> result = new ArrayList<>();
+        for (ItemSearchHit hit : hits) {
+            Item item = items.get(hit.getItemId());
+            if (item != null) {
+                ItemDto itemDto = mapper.toItemCardDto(item);
+                if (fuzzy) {
+                    itemDto.setScore(hit.getScore());
+                }
+                result.add(itemDto);
+            }
+        }
+        return result;
+    }
+
+    // the free items are only known after the search, so the engine is paged in chunks until the requested
+    // page of free items is filled or the matches run out
+    private List<ItemSearchHit> searchFreeHits(String text, int from, Integer size, boolean fuzzy, LocalDate start,
+                                               LocalDate end) {
+        long wanted = size == null ? Long.MAX_VALUE : (long) from + size;
+        int chunk = size == null ? FREE_SEARCH_CHUNK : Math.max(FREE_SEARCH_CHUNK, from + size);
+        List<ItemSearchHit> free = new ArrayList<>();
+        for (int searchFrom = 0; free.size() < wanted; searchFrom += chunk) {
+            List<ItemSearchHit> hits = searchHits(text, searchFrom, chunk, fuzzy);
+            Set<Long> freeIds = validationService.findFreeItemIds(
+                    hits.stream().map(ItemSearchHit::getItemId).toList(), start, end);
+            hits.stream()
+                    .filter(hit -> freeIds.contains(hit.getItemId()))
+                    .forEach(free::add);
+            if (hits.size() < chunk) {
+                break;
+            }
+        }
+        return free.stream()
+                .skip(from)
+                .limit(size == null ? Long.MAX_VALUE : size)
+                .toList();
+    }
+
+    private List<ItemSearchHit> searchHits(String text, int from, Integer size, boolean fuzzy) {
+        return fuzzy
+                ? searchEngine.searchFuzzy(text, from, size)
+                : searchEngine.search(text, from, size).stream()
+                .map(itemId -> new ItemSearchHit(itemId, 1))
+                .toList();
     }
 
     @Override
@@ -129,7 +267,9 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getAvailable() != null) {
             item.setAvailable(itemDto.getAvailable());
         }
-        return mapper.toItemDto(repository.save(item));
+        Item saved = repository.save(item);
+        changeListeners.forEach(listener -> listener.onItemSaved(saved));
+        return mapper.toItemDto(saved);
     }
 
     @Override
@@ -143,7 +283,9 @@ public class ItemServiceImpl implements ItemService {
             comment.setItem(findItemById(itemId));
             comment.setAuthor(validationService.findUserById(userId));
             comment.setText(commentDto.getText());
-            return mapper.toCommentDto(commentRepository.save(comment));
+            CommentDto saved = mapper.toCommentDto(commentStats.add(comment));
+            changeListeners.forEach(listener -> listener.onItemSaved(comment.getItem()));
+            return saved;
         } else {
             throw new ValidationException("Данный пользователь вещь не бронировал!");
         }
@@ -151,17 +293,56 @@ public class ItemServiceImpl implements ItemService {
 
     @Override
     public List<CommentDto> getCommentsByItemId(Long itemId) {
-        return commentRepository.findAllByItemId(itemId,
-                        Sort.by(Sort.Direction.DESC, "created")).stream()
-                .map(mapper::toCommentDto)
-                .collect(toList());
+        return commentRepository.findDtosByItemId(itemId, Limit.unlimited());
     }
 
     @Override
-    public List<ItemDto> getByRequestId(Long requestId) {
-        return repository.findAllByRequestId(requestId,
-                        Sort.by(Sort.Direction.DESC, "id")).stream()
-                .map(mapper::toItemDto)
-                .collect(toList());
+    public CommentPageDto getComments(Long itemId, String cursor, Integer limit) {
+        if (limit == null || limit <= 0) {
+            throw new ValidationException("Значение должно быть больше нуля!");
+        }
+        if (!repository.existsById(itemId)) {
+            throw new ItemNotFoundException("Вещь с ID=" + itemId + " не найдена!");
+        }
+        // one comment more than the page tells whether there is a next page
+        List<CommentDto> comments;
+        if (cursor == null || cursor.isBlank()) {
+            comments = commentRepository.findDtosByItemId(itemId, Limit.of(limit + 1));
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            comments = commentRepository.findDtosByItemIdAfter(itemId, after.getTime(), after.getId(),
+                    Limit.of(limit + 1));
+        }
+        String nextCursor = null;
+        if (comments.size() > limit) {
+            comments = new ArrayList<>(comments.subList(0, limit));
+            CommentDto last = comments.get(limit - 1);
+            nextCursor = KeysetCursor.encode(last.getCreated(), last.getId());
+        }
+        return new CommentPageDto(comments, nextCursor);
+    }
+
+    @Override
+    public List<CommentDto> getLatestComments(Long itemId, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        return commentRepository.findDtosByItemId(itemId, Limit.of(limit));
+    }
+
+    @Override
+    public List<ItemShortDto> getByRequestId(Long requestId) {
+        return repository.findShortByRequestId(requestId);
+    }
+
+    @Override
+    public List<FreeSlotDto> getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!repository.existsById(itemId)) {
+            throw new ItemNotFoundException("Вещь с ID=" + itemId + " не найдена!");
+        }
+        if (!from.isBefore(to)) {
+            throw new ValidationException("Начало периода должно быть раньше его окончания!");
+        }
+        return validationService.getFreeSlots(itemId, from, to);
     }
-}
\ No newline at end of file
+}
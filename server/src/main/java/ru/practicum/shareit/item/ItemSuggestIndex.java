@@ -0,0 +1,315 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Autocomplete of the words of the available item names, most booked first.
+ * <p>
+ * The words are kept in a trie whose children are sorted character arrays. A word weighs the number of
+ * bookings of the items having it in their name, and every node knows the largest weight below it, so the
+ * best completions of a prefix are found by a best-first walk that only opens the subtrees that can still
+ * beat the completions already found, without reading the database.
+ * <p>
+ * The trie is loaded with one streamed scan of the item names and one grouped count of the bookings when the
+ * application is ready, or on the first lookup if that comes earlier. Item writes update it as they commit,
+ * and the booking counts are reloaded every shareit.item.suggest.weights-refresh-ms.
+ */
+@Slf4j
+@Component
+public class ItemSuggestIndex implements ItemChangeListener {
+    private final ItemRepository repository;
+    private final TransactionOperations transactionOperations;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node();
+    private final Map<Long, String[]> wordsByItem = new HashMap<>();
+    private Map<Long, Long> bookingsByItem = new HashMap<>();
+    private volatile boolean built;
+
+    /**
+     * Instantiates a new Item suggest index.
+     *
+     * @param repository            the item repository
+     * @param transactionOperations the transaction operations
+     */
+    @Autowired
+    public ItemSuggestIndex(ItemRepository repository, TransactionOperations transactionOperations) {
+        this.repository = repository;
+        this.transactionOperations = transactionOperations;
+    }
+
+    /**
+     * Loads the trie when the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (built) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (built) {
+                return;
+            }
+            transactionOperations.executeWithoutResult(status -> {
+                bookingsByItem = loadBookingCounts();
+                try (Stream<Object[]> rows = repository.streamNameRows()) {
+                    rows.forEach(row -> {
+                        if (Boolean.TRUE.equals(row[2])) {
+                            add((Long) row[0], (String) row[1]);
+                        }
+                    });
+                }
+            });
+            built = true;
+            log.info("Загружен индекс подсказок: {} вещей", wordsByItem.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the booking counts and moves the changed weights.
+     */
+    @Scheduled(fixedDelayString = "${shareit.item.suggest.weights-refresh-ms:300000}",
+            initialDelayString = "${shareit.item.suggest.weights-refresh-ms:300000}")
+    public void refreshWeights() {
+        if (!built) {
+            return;
+        }
+        Map<Long, Long> counts = transactionOperations.execute(status -> loadBookingCounts());
+        lock.writeLock().lock();
+        try {
+            Map<Long, Long> deltas = new HashMap<>();
+            counts.forEach((itemId, count) -> deltas.put(itemId, count));
+            bookingsByItem.forEach((itemId, count) -> deltas.merge(itemId, -count, Long::sum));
+            deltas.forEach((itemId, delta) -> {
+                String[] words = wordsByItem.get(itemId);
+                if (words != null && delta != 0) {
+                    for (String word : words) {
+                        update(word, 0, delta);
+                    }
+                }
+            });
+            bookingsByItem = counts;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the completions of the last word of the prefix, most booked first.
+     *
+     * @param prefix the prefix
+     * @param limit  the maximum number of completions
+     * @return the completions
+     */
+    public List<String> suggest(String prefix, int limit) {
+        List<String> words = ItemSearchEngine.words(prefix);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        String word = words.get(words.size() - 1);
+        build();
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < word.length() && node != null; i++) {
+                node = node.child(word.charAt(i));
+            }
+            if (node == null || node.best < 0) {
+                return List.of();
+            }
+            List<String> result = new ArrayList<>(limit);
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator.comparingLong(Candidate::weight)
+                    .reversed()
+                    .thenComparing(Candidate::text));
+            queue.add(new Candidate(word, node, node.best));
+            while (!queue.isEmpty() && result.size() < limit) {
+                Candidate candidate = queue.poll();
+                if (candidate.node == null) {
+                    result.add(candidate.text);
+                    continue;
+                }
+                Node current = candidate.node;
+                if (current.items > 0) {
+                    queue.add(new Candidate(candidate.text, null, current.weight));
+                }
+                for (int i = 0; i < current.keys.length; i++) {
+                    queue.add(new Candidate(candidate.text + current.keys[i], current.children[i],
+                            current.children[i].best));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onItemSaved(Item item) {
+        lock.writeLock().lock();
+        try {
+            // a write committed before the load is read by it, a write committed during the load waits for it
+            if (!built) {
+                return;
+            }
+            remove(item.getId());
+            if (Boolean.TRUE.equals(item.getAvailable())) {
+                add(item.getId(), item.getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onItemDeleted(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                return;
+            }
+            remove(itemId);
+            bookingsByItem.remove(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Map<Long, Long> loadBookingCounts() {
+        Map<Long, Long> counts = new HashMap<>();
+        try (Stream<Object[]> rows = repository.streamBookingCounts()) {
+            rows.forEach(row -> counts.put((Long) row[0], (Long) row[1]));
+        }
+        return counts;
+    }
+
+    private void add(Long itemId, String name) {
+        String[] words = new LinkedHashSet<>(ItemSearchEngine.words(name)).toArray(String[]::new);
+        long bookings = bookingsByItem.getOrDefault(itemId, 0L);
+        for (String word : words) {
+            update(word, 1, bookings);
+        }
+        wordsByItem.put(itemId, words);
+    }
+
+    private void remove(Long itemId) {
+        String[] words = wordsByItem.remove(itemId);
+        if (words != null) {
+            long bookings = bookingsByItem.getOrDefault(itemId, 0L);
+            for (String word : words) {
+                update(word, -1, -bookings);
+            }
+        }
+    }
+
+    // moves the item count and the weight of the word, then fixes the best weights up to the root
+    private void update(String word, int itemsDelta, long weightDelta) {
+        Node[] path = new Node[word.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < word.length(); i++) {
+            Node child = path[i].child(word.charAt(i));
+            if (child == null) {
+                child = path[i].addChild(word.charAt(i));
+            }
+            path[i + 1] = child;
+        }
+        Node node = path[word.length()];
+        node.items += itemsDelta;
+        node.weight = node.items > 0 ? node.weight + weightDelta : 0;
+        for (int i = word.length(); i >= 0; i--) {
+            path[i].updateBest();
+            if (i > 0 && path[i].best < 0) {
+                path[i - 1].removeChild(word.charAt(i - 1));
+            }
+        }
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int items;
+        private long weight;
+        // the largest weight of the words at or below this node, -1 if there are none
+        private long best = -1;
+
+        Node child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node addChild(char key) {
+            int index = -Arrays.binarySearch(keys, key) - 1;
+            char[] grownKeys = new char[keys.length + 1];
+            Node[] grownChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, grownKeys, 0, index);
+            System.arraycopy(children, 0, grownChildren, 0, index);
+            System.arraycopy(keys, index, grownKeys, index + 1, keys.length - index);
+            System.arraycopy(children, index, grownChildren, index + 1, children.length - index);
+            Node child = new Node();
+            grownKeys[index] = key;
+            grownChildren[index] = child;
+            keys = grownKeys;
+            children = grownChildren;
+            return child;
+        }
+
+        void removeChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            char[] shrunkKeys = new char[keys.length - 1];
+            Node[] shrunkChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, shrunkKeys, 0, index);
+            System.arraycopy(children, 0, shrunkChildren, 0, index);
+            System.arraycopy(keys, index + 1, shrunkKeys, index, keys.length - index - 1);
+            System.arraycopy(children, index + 1, shrunkChildren, index, children.length - index - 1);
+            keys = shrunkKeys;
+            children = shrunkChildren;
+        }
+
+        void updateBest() {
+            best = items > 0 ? weight : -1;
+            for (Node child : children) {
+                best = Math.max(best, child.best);
+            }
+        }
+    }
+
+    // a word found (node is null) or a subtree still to open, ordered by the best weight it can give
+    private static final class Candidate {
+        private final String text;
+        private final Node node;
+        private final long weight;
+
+        Candidate(String text, Node node, long weight) {
+            this.text = text;
+            this.node = node;
+            this.weight = weight;
+        }
+
+        String text() {
+            return text;
+        }
+
+        long weight() {
+            return weight;
+        }
+    }
+}
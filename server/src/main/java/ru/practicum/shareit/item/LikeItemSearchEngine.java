@@ -0,0 +1,52 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Item search by substring, for databases without a full text engine such as the H2 of the tests.
+ * <p>
+ * Scans the items table, so it is only meant for small data sets. Matches are ordered by id.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.item.search.engine", havingValue = "like", matchIfMissing = true)
+public class LikeItemSearchEngine implements ItemSearchEngine {
+    private static final String SEARCH = "SELECT id FROM items WHERE available = TRUE " +
+            "AND (LOWER(name) LIKE :pattern ESCAPE '\\' OR LOWER(description) LIKE :pattern ESCAPE '\\') " +
+            "ORDER BY id LIMIT :limit OFFSET :offset";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Instantiates a new Like item search engine.
+     *
+     * @param jdbcTemplate the named parameter jdbc template
+     */
+    @Autowired
+    public LikeItemSearchEngine(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> search(String text, int from, Integer size) {
+        String escaped = text.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return jdbcTemplate.queryForList(SEARCH, new MapSqlParameterSource()
+                .addValue("pattern", "%" + escaped + "%")
+                .addValue("limit", size == null ? Integer.MAX_VALUE : size)
+                .addValue("offset", from), Long.class);
+    }
+
+    @Override
+    public String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Item search on the PostgreSQL full text engine.
+ * <p>
+ * Items carry a generated search_vector with the name weighted above the description, each parsed with both
+ * the russian and the english configuration, and a GIN index on it. Every word of the text becomes a prefix
+ * term, all of them have to match, and the matches are ordered by ts_rank.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.item.search.engine", havingValue = "postgres")
+public class PostgresItemSearchEngine implements ItemSearchEngine {
+    private static final String SEARCH = "SELECT i.id FROM items i, " +
+            "(SELECT to_tsquery('russian', :query) || to_tsquery('english', :query) AS q) query " +
+            "WHERE i.available = TRUE AND i.search_vector @@ query.q " +
+            "ORDER BY ts_rank(i.search_vector, query.q) DESC, i.id " +
+            "LIMIT :limit OFFSET :offset";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Instantiates a new Postgres item search engine.
+     *
+     * @param jdbcTemplate the named parameter jdbc template
+     */
+    @Autowired
+    public PostgresItemSearchEngine(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> search(String text, int from, Integer size) {
+        String query = toTsQuery(text);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(SEARCH, new MapSqlParameterSource()
+                .addValue("query", query)
+                .addValue("limit", size == null ? Integer.MAX_VALUE : size)
+                .addValue("offset", from), Long.class);
+    }
+
+    // only letters and digits reach to_tsquery, so the text cannot inject query operators
+    static String toTsQuery(String text) {
+        return ItemSearchEngine.words(text).stream()
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Item search for fragments inside words on PostgreSQL.
+ * <p>
+ * Every word of the text has to occur somewhere in the name or the description. pg_trgm GIN indexes on the lower
+ * case name and description serve these substring conditions, but only a word of at least three characters
+ * has a trigram to look up, so a text made of shorter words only is matched as word prefixes by the full text
+ * engine instead. Substring matches are ordered by id.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.item.search.engine", havingValue = "trigram")
+public class TrigramItemSearchEngine implements ItemSearchEngine {
+    private static final int TRIGRAM_LENGTH = 3;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final PostgresItemSearchEngine fullTextEngine;
+
+    /**
+     * Instantiates a new Trigram item search engine.
+     *
+     * @param jdbcTemplate the named parameter jdbc template
+     */
+    @Autowired
+    public TrigramItemSearchEngine(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fullTextEngine = new PostgresItemSearchEngine(jdbcTemplate);
+    }
+
+    @Override
+    public List<Long> search(String text, int from, Integer size) {
+        List<String> words = ItemSearchEngine.words(text);
+        if (words.stream().noneMatch(word -> word.length() >= TRIGRAM_LENGTH)) {
+            return fullTextEngine.search(text, from, size);
+        }
+        return jdbcTemplate.queryForList(toSql(words.size()), toParameters(words)
+                .addValue("limit", size == null ? Integer.MAX_VALUE : size)
+                .addValue("offset", from), Long.class);
+    }
+
+    static String toSql(int wordCount) {
+        StringBuilder sql = new StringBuilder("SELECT id FROM items WHERE available = TRUE");
+        for (int i = 0; i < wordCount; i++) {
+            sql.append(" AND (LOWER(name) LIKE :word").append(i)
+                    .append(" OR LOWER(description) LIKE :word").append(i).append(')');
+        }
+        return sql.append(" ORDER BY id LIMIT :limit OFFSET :offset").toString();
+    }
+
+    // words consist of letters and digits only, so they need no escaping inside a LIKE pattern
+    private static MapSqlParameterSource toParameters(List<String> words) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        for (int i = 0; i < words.size(); i++) {
+            parameters.addValue("word" + i, "%" + words.get(i) + "%");
+        }
+        return parameters;
+    }
+}
@@ -2,7 +2,7 @@ package ru.practicum.shareit.request;
 
 import lombok.*;
 import lombok.experimental.FieldDefaults;
-import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemShortDto;
 import ru.practicum.shareit.user.UserDto;
 
 import java.time.LocalDateTime;
@@ -21,7 +21,7 @@ public class RequestDto {
     String description;
     UserDto requestorId;
     LocalDateTime created;
-    List<ItemDto> items;
+    List<ItemShortDto> items;
 
 
 }
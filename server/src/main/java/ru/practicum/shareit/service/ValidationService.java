@@ -7,12 +7,19 @@ import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingService;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
 import ru.practicum.shareit.item.CommentDto;
+import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemService;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserService;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * The type Validation service.
@@ -63,16 +70,13 @@ public class ValidationService {
     }
 
     /**
-     * Is item owner boolean.
+     * Find items by ids.
      *
-     * @param itemId the item id
-     * @param userId the user id
-     * @return the boolean
+     * @param itemIds the item ids
+     * @return the items keyed by id
      */
-    public boolean isItemOwner(Long itemId, Long userId) {
-
-        return itemService.getItemsByOwner(userId).stream()
-                .anyMatch(i -> i.getId().equals(itemId));
+    public Map<Long, Item> findItemsByIds(Collection<Long> itemIds) {
+        return itemService.findItemsByIds(itemIds);
     }
 
     /**
@@ -85,6 +89,16 @@ public class ValidationService {
         return userService.findUserById(userId);
     }
 
+    /**
+     * Find users by ids.
+     *
+     * @param userIds the user ids
+     * @return the users keyed by id
+     */
+    public Map<Long, User> findUsersByIds(Collection<Long> userIds) {
+        return userService.findUsersByIds(userIds);
+    }
+
 
     /**
      * Gets last booking.
@@ -106,6 +120,50 @@ public class ValidationService {
         return bookingService.getNextBooking(itemId);
     }
 
+    /**
+     * Gets last bookings.
+     *
+     * @param itemIds the item ids
+     * @return the last bookings keyed by item id
+     */
+    public Map<Long, BookingShortDto> getLastBookings(List<Long> itemIds) {
+        return bookingService.getLastBookings(itemIds);
+    }
+
+    /**
+     * Gets next bookings.
+     *
+     * @param itemIds the item ids
+     * @return the next bookings keyed by item id
+     */
+    public Map<Long, BookingShortDto> getNextBookings(List<Long> itemIds) {
+        return bookingService.getNextBookings(itemIds);
+    }
+
+    /**
+     * Gets free slots of the item.
+     *
+     * @param itemId the item id
+     * @param from   the from
+     * @param to     the to
+     * @return the free slots
+     */
+    public List<FreeSlotDto> getFreeSlots(Long itemId, LocalDateTime from, LocalDateTime to) {
+        return bookingService.getFreeSlots(itemId, from, to);
+    }
+
+    /**
+     * Finds the items having no approved booking on any day of the window.
+     *
+     * @param itemIds the item ids
+     * @param start   the first day of the window
+     * @param end     the last day of the window
+     * @return the free item ids
+     */
+    public Set<Long> findFreeItemIds(Collection<Long> itemIds, LocalDate start, LocalDate end) {
+        return bookingService.findFreeItemIds(itemIds, start, end);
+    }
+
     /**
      * Gets booking with user booked item.
      *
@@ -126,4 +184,15 @@ public class ValidationService {
     public List<CommentDto> getCommentsByItemId(Long itemId) {
         return itemService.getCommentsByItemId(itemId);
     }
+
+    /**
+     * Gets the latest comments of the item.
+     *
+     * @param itemId the item id
+     * @param limit  the number of comments
+     * @return the latest comments
+     */
+    public List<CommentDto> getLatestComments(Long itemId, int limit) {
+        return itemService.getLatestComments(itemId, limit);
+    }
 }
@@ -22,6 +22,16 @@ public class UserMapper {
         );
     }
 
+    /**
+     * To user short dto user short dto.
+     *
+     * @param user the user
+     * @return the user short dto
+     */
+    public UserShortDto toUserShortDto(User user) {
+        return new UserShortDto(user.getId(), user.getName());
+    }
+
     /**
      * To user user.
      *
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.user;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The interface User service.
@@ -61,4 +63,12 @@ public interface UserService {
      * @return the boolean
      */
     boolean existsById(Long id);
-}
\ No newline at end of file
+
+    /**
+     * Find users by ids.
+     *
+     * @param ids the ids
+     * @return the users keyed by id
+     */
+    Map<Long, User> findUsersByIds(Collection<Long> ids);
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.user;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * The type User short dto with the id and the display name only.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserShortDto {
+
+    Long id;
+
+    String name;
+}
@@ -0,0 +1,171 @@
+package ru.practicum.shareit.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs requests in serialized lanes chosen by the hash of a key, handing them to the handler in batches.
+ * <p>
+ * Requests with the same key always go to the same lane, and a lane never runs two batches at once. A lane
+ * is drained by a virtual thread that is started when the first request arrives and exits when the lane is
+ * empty, so idle lanes cost nothing. Everything that queued up while the previous batch ran is handled as
+ * the next batch.
+ *
+ * @param <R> the type of the requests
+ * @param <V> the type of the results
+ */
+public class KeyedBatchExecutor<R, V> {
+    private final Lane<R, V>[] lanes;
+    private final int maxBatchSize;
+    private final Consumer<List<Entry<R, V>>> handler;
+    private final ThreadFactory threadFactory;
+
+    /**
+     * Instantiates a new Keyed batch executor.
+     *
+     * @param laneCount    the number of lanes
+     * @param maxBatchSize the maximum number of requests handed to the handler at once
+     * @param name         the prefix of the lane thread names
+     * @param handler      the handler, has to complete or fail every entry of the batch
+     */
+    @SuppressWarnings("unchecked")
+    public KeyedBatchExecutor(int laneCount, int maxBatchSize, String name, Consumer<List<Entry<R, V>>> handler) {
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane<>();
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.handler = handler;
+        this.threadFactory = Thread.ofVirtual().name(name, 0).factory();
+    }
+
+    /**
+     * Queues the request in the lane of the key.
+     *
+     * @param key     the key
+     * @param request the request
+     * @return the future result
+     */
+    public CompletableFuture<V> submit(long key, R request) {
+        Entry<R, V> entry = new Entry<>(request);
+        Lane<R, V> lane = lanes[Math.floorMod(Long.hashCode(key), lanes.length)];
+        lane.queue.add(entry);
+        if (lane.draining.compareAndSet(false, true)) {
+            threadFactory.newThread(() -> drain(lane)).start();
+        }
+        return entry.future;
+    }
+
+    /**
+     * Runs the handler for the single request in the calling thread, bypassing the lanes.
+     *
+     * @param request the request
+     * @return the result
+     */
+    public V executeDirectly(R request) {
+        Entry<R, V> entry = new Entry<>(request);
+        handle(List.of(entry));
+        return await(entry.future);
+    }
+
+    /**
+     * Waits for the result and rethrows the runtime exception it failed with.
+     *
+     * @param <V>    the type of the result
+     * @param future the future
+     * @return the result
+     */
+    public static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void drain(Lane<R, V> lane) {
+        while (true) {
+            List<Entry<R, V>> batch = new ArrayList<>();
+            Entry<R, V> entry;
+            while (batch.size() < maxBatchSize && (entry = lane.queue.poll()) != null) {
+                batch.add(entry);
+            }
+            if (batch.isEmpty()) {
+                lane.draining.set(false);
+                // a request queued after the last poll but before the flag was cleared has started no thread
+                if (lane.queue.isEmpty() || !lane.draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            handle(batch);
+        }
+    }
+
+    private void handle(List<Entry<R, V>> batch) {
+        try {
+            handler.accept(batch);
+        } catch (RuntimeException e) {
+            batch.forEach(entry -> entry.future.completeExceptionally(e));
+        }
+        IllegalStateException unhandled = new IllegalStateException("Запрос не обработан");
+        batch.forEach(entry -> entry.future.completeExceptionally(unhandled));
+    }
+
+    private static final class Lane<R, V> {
+        final Queue<Entry<R, V>> queue = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean draining = new AtomicBoolean();
+    }
+
+    /**
+     * A queued request and its future result.
+     *
+     * @param <R> the type of the request
+     * @param <V> the type of the result
+     */
+    public static final class Entry<R, V> {
+        private final R request;
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        private Entry(R request) {
+            this.request = request;
+        }
+
+        /**
+         * Gets request.
+         *
+         * @return the request
+         */
+        public R getRequest() {
+            return request;
+        }
+
+        /**
+         * Completes the entry with the result.
+         *
+         * @param result the result
+         */
+        public void complete(V result) {
+            future.complete(result);
+        }
+
+        /**
+         * Fails the entry with the exception.
+         *
+         * @param exception the exception
+         */
+        public void fail(RuntimeException exception) {
+            future.completeExceptionally(exception);
+        }
+    }
+}
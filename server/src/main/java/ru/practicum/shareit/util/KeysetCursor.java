@@ -0,0 +1,71 @@
+package ru.practicum.shareit.util;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opaque cursor of the listings ordered by (time DESC, id DESC), such as the bookings by start and the comments
+ * of an item by creation. The cursor is the base64 encoded key of the last row of a page, so the next page is
+ * fetched with a keyset predicate instead of an offset.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class KeysetCursor {
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime time;
+    private final Long id;
+
+    /**
+     * Encodes the key of the last row of a page.
+     *
+     * @param time the time of the last row
+     * @param id   the id of the last row
+     * @return the cursor
+     */
+    public static String encode(LocalDateTime time, Long id) {
+        String key = time + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes the cursor into the key of the row it was created from.
+     *
+     * @param cursor the cursor
+     * @return the keyset cursor
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(LocalDateTime.parse(key.substring(0, separator)),
+                    Long.valueOf(key.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ValidationException("Некорректный курсор: " + cursor);
+        }
+    }
+
+    /**
+     * Gets the scroll position right after the row the cursor was created from.
+     *
+     * @param timeProperty the property the time key is sorted by
+     * @return the keyset scroll position
+     */
+    public KeysetScrollPosition toScrollPosition(String timeProperty) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(timeProperty, time);
+        keys.put("id", id);
+        return ScrollPosition.forward(keys);
+    }
+}
@@ -0,0 +1,148 @@
+package ru.practicum.shareit.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+
+/**
+ * Automaton accepting the words within a maximum edit distance of a pattern.
+ * <p>
+ * A state is the row of the Levenshtein distances between the pattern prefixes and the input read so far, so
+ * reading a character costs one pass over the pattern. A state whose row exceeds the maximum distance
+ * everywhere can no longer reach a match, which lets a walk over a sorted dictionary skip every word
+ * sharing the prefix that led there.
+ */
+public class LevenshteinAutomaton {
+    private final String pattern;
+    private final int maxEdits;
+
+    /**
+     * Instantiates a new Levenshtein automaton.
+     *
+     * @param pattern  the pattern
+     * @param maxEdits the maximum edit distance
+     */
+    public LevenshteinAutomaton(String pattern, int maxEdits) {
+        this.pattern = pattern;
+        this.maxEdits = maxEdits;
+    }
+
+    /**
+     * Gets the state before any input.
+     *
+     * @return the state
+     */
+    public int[] start() {
+        int[] state = new int[pattern.length() + 1];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = i;
+        }
+        return state;
+    }
+
+    /**
+     * Reads the character.
+     *
+     * @param state the state
+     * @param c     the character
+     * @return the next state
+     */
+    public int[] step(int[] state, char c) {
+        int[] next = new int[state.length];
+        next[0] = state[0] + 1;
+        for (int i = 1; i < state.length; i++) {
+            int substitution = state[i - 1] + (pattern.charAt(i - 1) == c ? 0 : 1);
+            next[i] = Math.min(substitution, Math.min(state[i], next[i - 1]) + 1);
+        }
+        return next;
+    }
+
+    /**
+     * Checks that the input read so far is within the maximum distance of the pattern.
+     *
+     * @param state the state
+     * @return the boolean
+     */
+    public boolean isMatch(int[] state) {
+        return state[state.length - 1] <= maxEdits;
+    }
+
+    /**
+     * Checks that some continuation of the input read so far can still match.
+     *
+     * @param state the state
+     * @return the boolean
+     */
+    public boolean canMatch(int[] state) {
+        for (int distance : state) {
+            if (distance <= maxEdits) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the edit distance between the input read so far and the pattern.
+     *
+     * @param state the state
+     * @return the distance
+     */
+    public int distance(int[] state) {
+        return state[state.length - 1];
+    }
+
+    /**
+     * Finds the words of the sorted dictionary within the maximum distance of the pattern.
+     * States of the common prefix of consecutive words are reused, and the words below a prefix that cannot
+     * match are skipped with one lookup.
+     *
+     * @param dictionary the dictionary
+     * @return the distances keyed by the matching words
+     */
+    public Map<String, Integer> matches(NavigableSet<String> dictionary) {
+        Map<String, Integer> matches = new LinkedHashMap<>();
+        int[][] states = new int[1][];
+        states[0] = start();
+        String previous = "";
+        String word = dictionary.isEmpty() ? null : dictionary.first();
+        while (word != null) {
+            int depth = commonPrefixLength(previous, word);
+            if (states.length < word.length() + 1) {
+                int[][] grown = new int[word.length() + 1][];
+                System.arraycopy(states, 0, grown, 0, states.length);
+                states = grown;
+            }
+            String skipPrefix = null;
+            for (int i = depth; i < word.length(); i++) {
+                states[i + 1] = step(states[i], word.charAt(i));
+                if (!canMatch(states[i + 1])) {
+                    skipPrefix = word.substring(0, i + 1);
+                    depth = i;
+                    break;
+                }
+            }
+            if (skipPrefix != null) {
+                previous = word.substring(0, depth);
+                word = dictionary.higher(skipPrefix + Character.MAX_VALUE);
+                continue;
+            }
+            if (isMatch(states[word.length()])) {
+                matches.put(word, distance(states[word.length()]));
+            }
+            previous = word;
+            word = dictionary.higher(word);
+        }
+        return matches;
+    }
+
+    private static int commonPrefixLength(String first, String second) {
+        int length = Math.min(first.length(), second.length());
+        for (int i = 0; i < length; i++) {
+            if (first.charAt(i) != second.charAt(i)) {
+                return i;
+            }
+        }
+        return length;
+    }
+}
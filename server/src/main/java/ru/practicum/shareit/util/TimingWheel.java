@@ -0,0 +1,128 @@
+package ru.practicum.shareit.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel.
+ * <p>
+ * The lowest wheel has {@code size} slots of {@code tick} milliseconds each. A deadline beyond its span goes to
+ * an overflow wheel whose tick is the whole span of the wheel below it; overflow wheels are created on demand,
+ * so any deadline is accepted. When the clock reaches a slot of an upper wheel its entries are moved down,
+ * and the entries of the current lowest slot are due. Adding and expiring an entry take constant time
+ * regardless of how many entries are scheduled. A value is never returned before its deadline and at most
+ * one tick after it.
+ * <p>
+ * The wheel is not thread safe.
+ *
+ * @param <T> the type of the scheduled values
+ */
+public class TimingWheel<T> {
+    private final long tick;
+    private final int size;
+    private final long interval;
+    private final List<List<Timeout<T>>> slots;
+    private long currentTime;
+    private TimingWheel<T> overflow;
+
+    /**
+     * Instantiates a new Timing wheel.
+     *
+     * @param tick      the tick in milliseconds
+     * @param size      the number of slots
+     * @param startTime the start time in milliseconds
+     */
+    public TimingWheel(long tick, int size, long startTime) {
+        this.tick = tick;
+        this.size = size;
+        this.interval = tick * size;
+        this.currentTime = startTime - Math.floorMod(startTime, tick);
+        this.slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedules the value.
+     *
+     * @param value    the value
+     * @param deadline the deadline in milliseconds
+     * @return false if the deadline has already been reached and the value was not scheduled
+     */
+    public boolean add(T value, long deadline) {
+        long remainder = Math.floorMod(deadline, tick);
+        return add(new Timeout<>(value, remainder == 0 ? deadline : deadline - remainder + tick));
+    }
+
+    /**
+     * Moves the clock forward and collects the values whose deadline has been reached.
+     *
+     * @param now the now in milliseconds
+     * @return the due values in the order of their slots
+     */
+    public List<T> advance(long now) {
+        List<T> due = new ArrayList<>();
+        while (currentTime + tick <= now) {
+            currentTime += tick;
+            if (overflow != null) {
+                overflow.cascade(currentTime, this, due);
+            }
+            drain(this, due);
+        }
+        return due;
+    }
+
+    private boolean add(Timeout<T> timeout) {
+        if (timeout.deadline < currentTime + tick) {
+            return false;
+        }
+        if (timeout.deadline < currentTime + interval) {
+            slots.get(slotOf(timeout.deadline)).add(timeout);
+            return true;
+        }
+        if (overflow == null) {
+            overflow = new TimingWheel<>(interval, size, currentTime);
+        }
+        return overflow.add(timeout);
+    }
+
+    // entries of an upper slot are added again through the lowest wheel, which has already moved to the time
+    private void cascade(long time, TimingWheel<T> lowest, List<T> due) {
+        while (currentTime + tick <= time) {
+            currentTime += tick;
+            if (overflow != null) {
+                overflow.cascade(currentTime, lowest, due);
+            }
+            drain(lowest, due);
+        }
+    }
+
+    private void drain(TimingWheel<T> target, List<T> due) {
+        List<Timeout<T>> slot = slots.get(slotOf(currentTime));
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Timeout<T>> timeouts = new ArrayList<>(slot);
+        slot.clear();
+        for (Timeout<T> timeout : timeouts) {
+            if (!target.add(timeout)) {
+                due.add(timeout.value);
+            }
+        }
+    }
+
+    private int slotOf(long time) {
+        return (int) Math.floorMod(time / tick, (long) size);
+    }
+
+    private static final class Timeout<T> {
+        final T value;
+        final long deadline;
+
+        Timeout(T value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package ru.practicum.shareit.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * Bounded cache with W-TinyLFU eviction.
+ * <p>
+ * New entries go to a window holding one percent of the capacity. An entry leaving the window is admitted to
+ * the main space only if it has been asked for more often than the entry the main space would evict, as
+ * estimated by a count-min sketch of recent lookups that is halved every ten lookups per entry of capacity.
+ * The main space is a segmented LRU: an entry hit again moves from the probation segment to the protected
+ * one, which takes eighty percent of the main space. So a burst of one-off keys only churns the window while
+ * the frequently used entries stay.
+ * <p>
+ * All methods are synchronized.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class TinyLfuCache<K, V> {
+    private static final int SKETCH_DEPTH = 4;
+    private static final int MAX_FREQUENCY = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final int protectedCapacity;
+    private final Map<K, V> window = new LinkedHashMap<>();
+    private final Map<K, V> probation = new LinkedHashMap<>();
+    private final Map<K, V> protectedSegment = new LinkedHashMap<>();
+    private final byte[][] sketch;
+    private final int sketchMask;
+    private final int resetThreshold;
+    private int additions;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Instantiates a new Tiny lfu cache.
+     *
+     * @param capacity the maximum number of entries
+     */
+    public TinyLfuCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Емкость кэша должна быть больше нуля");
+        }
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.mainCapacity = capacity - windowCapacity;
+        this.protectedCapacity = mainCapacity * 8 / 10;
+        int width = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+        this.sketch = new byte[SKETCH_DEPTH][width];
+        this.sketchMask = width - 1;
+        this.resetThreshold = 10 * capacity;
+    }
+
+    /**
+     * Gets the cached value and counts the lookup.
+     *
+     * @param key the key
+     * @return the value, or null if it is not cached
+     */
+    public synchronized V get(K key) {
+        increment(key);
+        V value = window.remove(key);
+        if (value != null) {
+            window.put(key, value);
+        } else if ((value = probation.remove(key)) != null) {
+            protectedSegment.put(key, value);
+            if (protectedSegment.size() > protectedCapacity) {
+                K demoted = protectedSegment.keySet().iterator().next();
+                probation.put(demoted, protectedSegment.remove(demoted));
+            }
+        } else if ((value = protectedSegment.remove(key)) != null) {
+            protectedSegment.put(key, value);
+        }
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Caches the value, evicting an entry if the cache is full.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the key of the evicted entry, or null if no entry was evicted
+     */
+    public synchronized K put(K key, V value) {
+        if (window.containsKey(key)) {
+            window.put(key, value);
+            return null;
+        }
+        if (probation.containsKey(key)) {
+            probation.put(key, value);
+            return null;
+        }
+        if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, value);
+            return null;
+        }
+        window.put(key, value);
+        if (window.size() <= windowCapacity) {
+            return null;
+        }
+        K candidate = window.keySet().iterator().next();
+        V candidateValue = window.remove(candidate);
+        if (probation.size() + protectedSegment.size() < mainCapacity) {
+            probation.put(candidate, candidateValue);
+            return null;
+        }
+        Map<K, V> victims = probation.isEmpty() ? protectedSegment : probation;
+        evictions++;
+        if (victims.isEmpty()) {
+            return candidate;
+        }
+        K victim = victims.keySet().iterator().next();
+        if (frequency(candidate) <= frequency(victim)) {
+            return candidate;
+        }
+        victims.remove(victim);
+        probation.put(candidate, candidateValue);
+        return victim;
+    }
+
+    /**
+     * Removes the entry.
+     *
+     * @param key the key
+     * @return the removed value, or null if the key is not cached
+     */
+    public synchronized V remove(K key) {
+        V value = window.remove(key);
+        if (value == null) {
+            value = probation.remove(key);
+        }
+        if (value == null) {
+            value = protectedSegment.remove(key);
+        }
+        return value;
+    }
+
+    /**
+     * Removes the entries matching the predicate.
+     *
+     * @param predicate the predicate
+     */
+    public synchronized void removeIf(BiPredicate<K, V> predicate) {
+        for (Map<K, V> segment : List.of(window, probation, protectedSegment)) {
+            Iterator<Map.Entry<K, V>> entries = segment.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<K, V> entry = entries.next();
+                if (predicate.test(entry.getKey(), entry.getValue())) {
+                    entries.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of cached entries.
+     *
+     * @return the size
+     */
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    /**
+     * Gets the number of lookups that found a value.
+     *
+     * @return the hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that found no value.
+     *
+     * @return the misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of entries dropped to stay within the capacity.
+     *
+     * @return the evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the share of the lookups that found a value.
+     *
+     * @return the hit ratio, or 0 before the first lookup
+     */
+    public synchronized double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    private void increment(K key) {
+        int hash = key.hashCode();
+        for (int i = 0; i < SKETCH_DEPTH; i++) {
+            int index = index(hash, i);
+            if (sketch[i][index] < MAX_FREQUENCY) {
+                sketch[i][index]++;
+            }
+        }
+        if (++additions >= resetThreshold) {
+            for (byte[] row : sketch) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+
+    private int frequency(K key) {
+        int hash = key.hashCode();
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < SKETCH_DEPTH; i++) {
+            frequency = Math.min(frequency, sketch[i][index(hash, i)]);
+        }
+        return frequency;
+    }
+
+    private int index(int hash, int row) {
+        int mixed = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % SKETCH_DEPTH];
+        return (mixed ^ (mixed >>> 16)) & sketchMask;
+    }
+}
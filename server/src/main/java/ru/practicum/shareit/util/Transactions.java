@@ -0,0 +1,65 @@
+package ru.practicum.shareit.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs in-memory updates at the end of the current transaction, so caches and indexes only ever see committed
+ * writes, and falls back to running them at once when there is no transaction.
+ */
+public final class Transactions {
+
+    private Transactions() {
+    }
+
+    /**
+     * Runs the action after the current transaction commits, or now if there is no transaction.
+     * The action is dropped if the transaction rolls back.
+     *
+     * @param action the action
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new AfterCommit(action));
+    }
+
+    /**
+     * Runs the action if the current transaction does not commit. Does nothing if there is no transaction.
+     *
+     * @param action the action
+     */
+    public static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    // runs its action at most once, tests run the actions of transactions they roll back themselves
+    static final class AfterCommit implements TransactionSynchronization {
+        private final Runnable action;
+        private boolean done;
+
+        AfterCommit(Runnable action) {
+            this.action = action;
+        }
+
+        @Override
+        public void afterCommit() {
+            if (!done) {
+                done = true;
+                action.run();
+            }
+        }
+    }
+}
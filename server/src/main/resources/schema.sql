@@ -1,4 +1,4 @@
-DROP TABLE IF EXISTS users, items, bookings, item_request, comments CASCADE;
+DROP TABLE IF EXISTS users, items, bookings, item_request, comments, booking_events, booking_stats CASCADE;
 
 CREATE TABLE IF NOT EXISTS users (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -16,6 +16,8 @@ CREATE TABLE IF NOT EXISTS items (
     available BOOLEAN,
     owner_id BIGINT NOT NULL,
     request_id BIGINT,
+    comment_count BIGINT DEFAULT 0 NOT NULL,
+    last_comment_at TIMESTAMP,
     CONSTRAINT PK_ITEM PRIMARY KEY (id),
     CONSTRAINT FK_ITEM_FOR_OWNER FOREIGN KEY (owner_id) REFERENCES users (id) ON DELETE CASCADE
 );
@@ -50,4 +52,39 @@ CREATE TABLE IF NOT EXISTS comments (
     CONSTRAINT PK_COMMENTS PRIMARY KEY (id),
     CONSTRAINT FK_COMMENT_FOR_ITEM FOREIGN KEY (item_id) REFERENCES items (id),
     CONSTRAINT FK_COMMENT_FOR_USER FOREIGN KEY (author_id) REFERENCES users (id)
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS booking_events (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    booking_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    booker_id BIGINT NOT NULL,
+    status VARCHAR (25) NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE,
+    end_date TIMESTAMP WITHOUT TIME ZONE,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    feed_offset BIGINT,
+    CONSTRAINT PK_BOOKING_EVENT PRIMARY KEY (id),
+    CONSTRAINT UQ_BOOKING_EVENT_OFFSET UNIQUE (feed_offset)
+);
+
+CREATE TABLE IF NOT EXISTS booking_stats (
+    user_id BIGINT NOT NULL,
+    role VARCHAR (10) NOT NULL,
+    all_count BIGINT DEFAULT 0 NOT NULL,
+    current_count BIGINT DEFAULT 0 NOT NULL,
+    past_count BIGINT DEFAULT 0 NOT NULL,
+    future_count BIGINT DEFAULT 0 NOT NULL,
+    waiting_count BIGINT DEFAULT 0 NOT NULL,
+    rejected_count BIGINT DEFAULT 0 NOT NULL,
+    expired_count BIGINT DEFAULT 0 NOT NULL,
+    CONSTRAINT PK_BOOKING_STATS PRIMARY KEY (user_id, role)
+);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_start ON bookings (item_id, status, start_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start_id ON bookings (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start_id ON bookings (item_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id);
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_status_start_id ON bookings (booker_id, status, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_start ON bookings (start_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_end ON bookings (end_date);
+CREATE INDEX IF NOT EXISTS idx_comments_item_created_id ON comments (item_id, created DESC, id DESC);
@@ -0,0 +1,106 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.util.CommitHooks;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookedDaysIndexTest {
+    private static final LocalDate DAY = LocalDate.now().plusDays(30);
+
+    private BookingRepository repository;
+    private BookedDaysIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(BookingRepository.class);
+        when(repository.streamIntervals(eq(BookingStatus.APPROVED), any())).thenReturn(Stream.<Object[]>of(
+                new Object[]{11L, 1L, DAY.atTime(12, 0), DAY.plusDays(2).atTime(9, 0)},
+                new Object[]{21L, 2L, DAY.minusDays(3).atStartOfDay(), DAY.atStartOfDay()},
+                new Object[]{22L, 2L, DAY.plusDays(10).atStartOfDay(), DAY.plusDays(11).atStartOfDay()}));
+        index = new BookedDaysIndex(repository, TransactionOperations.withoutTransaction());
+    }
+
+    @Test
+    void testFindFreeSkipsItemsBookedOnAnyDayOfWindow() {
+        List<Long> itemIds = List.of(1L, 2L, 3L);
+
+        assertEquals(Set.of(2L, 3L), index.findFree(itemIds, DAY, DAY));
+        assertEquals(Set.of(2L, 3L), index.findFree(itemIds, DAY.plusDays(2), DAY.plusDays(9)));
+        assertEquals(Set.of(1L, 3L), index.findFree(itemIds, DAY.plusDays(5), DAY.plusDays(10)));
+        assertEquals(Set.of(1L, 2L, 3L), index.findFree(itemIds, DAY.plusDays(3), DAY.plusDays(9)));
+        assertEquals(Set.of(3L), index.findFree(itemIds, DAY.minusDays(1), DAY.plusDays(12)));
+    }
+
+    @Test
+    void testApprovalAddsDaysAndCancellationClearsOnlyItsBooking() {
+        index.build();
+
+        index.onStatusChanged(booking(31L, 3L, DAY.minusDays(5).atStartOfDay(), DAY.minusDays(4).atTime(1, 0),
+                BookingStatus.APPROVED), BookingStatus.WAITING);
+        assertEquals(Set.of(2L), index.findFree(List.of(2L, 3L), DAY.minusDays(4), DAY.minusDays(4)));
+
+        index.onStatusChanged(booking(11L, 1L, DAY.atTime(12, 0), DAY.plusDays(2).atTime(9, 0),
+                BookingStatus.CANCELED), BookingStatus.APPROVED);
+        assertEquals(Set.of(1L), index.findFree(List.of(1L), DAY, DAY.plusDays(2)));
+
+        index.onStatusChanged(booking(22L, 2L, DAY.plusDays(10).atStartOfDay(), DAY.plusDays(11).atStartOfDay(),
+                BookingStatus.CANCELED), BookingStatus.APPROVED);
+        assertEquals(Set.of(2L), index.findFree(List.of(2L), DAY.plusDays(10), DAY.plusDays(10)));
+        assertEquals(Set.of(), index.findFree(List.of(2L), DAY.minusDays(1), DAY.minusDays(1)));
+
+        index.onStatusChanged(booking(23L, 2L, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay(),
+                BookingStatus.REJECTED), BookingStatus.WAITING);
+        assertEquals(Set.of(), index.findFree(List.of(2L), DAY.minusDays(1), DAY.minusDays(1)));
+        verify(repository, times(1)).streamIntervals(any(), any());
+    }
+
+    @Test
+    void testPruneDropsEndedBookingsAndPastDays() {
+        index.build();
+
+        assertEquals(0, index.prune(DAY.plusDays(1)));
+        assertEquals(Set.of(2L), index.findFree(List.of(1L, 2L), DAY.plusDays(1), DAY.plusDays(1)));
+        assertEquals(Set.of(1L, 2L), index.findFree(List.of(1L, 2L), DAY.minusDays(3), DAY));
+        assertEquals(Set.of(1L), index.findFree(List.of(1L, 2L), DAY.plusDays(10), DAY.plusDays(10)));
+
+        assertEquals(1, index.prune(DAY.plusDays(3)));
+        assertEquals(Set.of(1L), index.findFree(List.of(1L), DAY.plusDays(2), DAY.plusDays(2)));
+    }
+
+    @Test
+    void testChangesWaitForCommit() {
+        index.build();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.onStatusChanged(booking(31L, 3L, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay(),
+                    BookingStatus.APPROVED), BookingStatus.WAITING);
+            assertEquals(Set.of(3L), index.findFree(List.of(3L), DAY, DAY));
+
+            CommitHooks.runAfterCommit();
+            assertEquals(Set.of(), index.findFree(List.of(3L), DAY, DAY));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Booking booking(Long id, Long itemId, LocalDateTime start, LocalDateTime end,
+                                   BookingStatus status) {
+        Item item = new Item();
+        item.setId(itemId);
+        return new Booking(id, start, end, item, null, status);
+    }
+}
@@ -9,10 +9,16 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingStatsDto;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -54,6 +60,67 @@ public class BookingControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void testCreateAllBookings() throws Exception {
+        BookingDto bookingDto = new BookingDto(1L, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), null, null, null);
+        when(bookingService.createAll(anyList(), eq(1L))).thenReturn(List.of(
+                new BookingBatchResultDto(0, bookingDto, null),
+                new BookingBatchResultDto(1, null, "Вещь с ID=2 не найдена!")));
+
+        mockMvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", "1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"itemId\":1,\"start\":\"2030-01-01T10:00:00\",\"end\":\"2030-01-01T11:00:00\"}," +
+                                "{\"itemId\":2,\"start\":\"2030-01-01T10:00:00\",\"end\":\"2030-01-01T11:00:00\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].booking.id").value(1L))
+                .andExpect(jsonPath("$[1].error").value("Вещь с ID=2 не найдена!"));
+    }
+
+    @Test
+    void testGetStatsOwner() throws Exception {
+        when(bookingService.getStatsOwner(1L)).thenReturn(new BookingStatsDto(6, 1, 2, 3, 1, 1, 0));
+
+        mockMvc.perform(get("/bookings/owner/stats")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all").value(6))
+                .andExpect(jsonPath("$.future").value(3))
+                .andExpect(jsonPath("$.expired").value(0));
+    }
+
+    @Test
+    void testGetEvents() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        when(bookingService.getEvents(5L, 2)).thenReturn(List.of(new BookingEventDto(9L, 6L, 1L, 2L, 3L,
+                BookingStatus.APPROVED, start, start.plusHours(1), start.minusDays(1))));
+
+        mockMvc.perform(get("/bookings/events")
+                        .param("after", "5")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].offset").value(6L))
+                .andExpect(jsonPath("$[0].status").value("APPROVED"));
+    }
+
+    @Test
+    void testExportBookingsOwner() throws Exception {
+        when(bookingService.exportBookingsOwner(1L)).thenReturn(outputStream ->
+                outputStream.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8)));
+
+        MvcResult result = mockMvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
     @Test
     void testUpdateBooking() throws Exception {
         BookingDto bookingDto = new BookingDto(1L, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), null, null, null);
@@ -82,12 +149,14 @@ public class BookingControllerTest {
         BookingDto bookingDto1 = new BookingDto(1L, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), null, null, null);
         BookingDto bookingDto2 = new BookingDto(2L, LocalDateTime.now().plusHours(3), LocalDateTime.now().plusHours(4), null, null, null);
         List<BookingDto> bookings = Arrays.asList(bookingDto1, bookingDto2);
-        when(bookingService.getBookings(anyString(), anyLong())).thenReturn(bookings);
+        when(bookingService.getBookings(anyString(), anyLong(), isNull(), anyInt(), isNull(), isNull()))
+                .thenReturn(new BookingPageDto(bookings, null));
 
         mockMvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", "1")
                         .param("state", "ALL"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
                 .andExpect(jsonPath("$.length()").value(2));
     }
 
@@ -96,7 +165,8 @@ public class BookingControllerTest {
         BookingDto bookingDto1 = new BookingDto(1L, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), null, null, null);
         BookingDto bookingDto2 = new BookingDto(2L, LocalDateTime.now().plusHours(3), LocalDateTime.now().plusHours(4), null, null, null);
         List<BookingDto> bookings = Arrays.asList(bookingDto1, bookingDto2);
-        when(bookingService.getBookingsOwner(anyString(), anyLong())).thenReturn(bookings);
+        when(bookingService.getBookingsOwner(anyString(), anyLong(), isNull(), anyInt(), isNull(), isNull()))
+                .thenReturn(new BookingPageDto(bookings, null));
 
         mockMvc.perform(get("/bookings/owner")
                         .header("X-Sharer-User-Id", "1")
@@ -105,6 +175,22 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.length()").value(2));
     }
 
+    @Test
+    void testGetBookingsPageWithCursor() throws Exception {
+        BookingDto bookingDto = new BookingDto(3L, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), null, null, null);
+        when(bookingService.getBookings("PAST", 1L, null, 0, 1, "cursor"))
+                .thenReturn(new BookingPageDto(List.of(bookingDto), "next"));
+
+        mockMvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", "1")
+                        .param("state", "PAST")
+                        .param("size", "1")
+                        .param("cursor", "cursor"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
     /*@Test
     void testGetLastBooking() throws Exception {
         BookingShortDto bookingShortDto = new BookingShortDto(1L, 1L, LocalDateTime.now().minusHours(2), LocalDateTime.now().minusHours(1));
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookingExpiryServiceTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+    private static final long GRACE_MILLIS = 300_000;
+
+    private BookingRepository repository;
+    private BookingIntervalIndex intervalIndex;
+    private BookingEventRepository eventRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private BookingExpiryService expiryService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(BookingRepository.class);
+        intervalIndex = mock(BookingIntervalIndex.class);
+        meterRegistry = new SimpleMeterRegistry();
+        eventRepository = mock(BookingEventRepository.class);
+        expiryService = new BookingExpiryService(repository, intervalIndex, eventRepository,
+                mock(BookingStatsService.class), TransactionOperations.withoutTransaction(), meterRegistry,
+                GRACE_MILLIS);
+    }
+
+    @Test
+    void testExpireDueExpiresBookingsAfterGracePeriod() {
+        BookingInterval stale = new BookingInterval(1L, 7L, NOW.minusMinutes(10), NOW.plusHours(1));
+        BookingInterval upcoming = new BookingInterval(2L, 7L, NOW.plusHours(1), NOW.plusHours(2));
+        when(repository.findIntervalsByStatus(BookingStatus.WAITING)).thenReturn(List.of(stale, upcoming));
+        when(repository.expireWaiting(any(), any())).thenReturn(1);
+        when(repository.findIntervalsByIdInAndStatus(List.of(1L), BookingStatus.EXPIRED)).thenReturn(List.of(stale));
+        when(repository.findIntervalsByIdInAndStatus(List.of(2L), BookingStatus.EXPIRED))
+                .thenReturn(List.of(upcoming));
+
+        assertEquals(1, expiryService.expireDue(NOW));
+        verify(repository).expireWaiting(List.of(1L), NOW.minusMinutes(5));
+        verify(intervalIndex).remove(7L, 1L);
+        verify(eventRepository).appendByIds(List.of(1L), BookingStatus.EXPIRED, NOW);
+        assertEquals(1, meterRegistry.get("shareit.bookings.expiry.pending").gauge().value());
+
+        assertEquals(0, expiryService.expireDue(NOW.plusHours(1)));
+        assertEquals(1, expiryService.expireDue(NOW.plusHours(1).plusMinutes(5).plusSeconds(1)));
+        verify(intervalIndex).remove(7L, 2L);
+        verify(repository, times(1)).findIntervalsByStatus(any());
+        assertEquals(2, meterRegistry.get("shareit.bookings.expired").counter().count());
+        assertEquals(0, meterRegistry.get("shareit.bookings.expiry.pending").gauge().value());
+    }
+
+    @Test
+    void testStatusChangeCancelsExpiry() {
+        when(repository.findIntervalsByStatus(BookingStatus.WAITING)).thenReturn(List.of());
+        expiryService.expireDue(NOW);
+        Booking booking = booking(3L, NOW.plusMinutes(1));
+        expiryService.onCreated(booking);
+        assertEquals(1, expiryService.getPendingCount());
+
+        booking.setStatus(BookingStatus.APPROVED);
+        expiryService.onStatusChanged(booking);
+
+        assertEquals(0, expiryService.expireDue(NOW.plusHours(1)));
+        assertEquals(0, expiryService.getPendingCount());
+        verify(repository, never()).expireWaiting(any(), any());
+    }
+
+    @Test
+    void testOverdueBookingIsExpiredOnNextRun() {
+        when(repository.findIntervalsByStatus(BookingStatus.WAITING)).thenReturn(List.of());
+        when(repository.expireWaiting(eq(List.of(4L)), any())).thenReturn(1);
+        when(repository.findIntervalsByIdInAndStatus(List.of(4L), BookingStatus.EXPIRED))
+                .thenReturn(List.of(new BookingInterval(4L, 7L, NOW.minusHours(1), NOW)));
+        expiryService.expireDue(NOW);
+
+        expiryService.onCreated(booking(4L, NOW.minusHours(1)));
+
+        assertEquals(1, expiryService.expireDue(NOW));
+    }
+
+    @Test
+    void testFailedBatchIsRetriedOnNextRun() {
+        when(repository.findIntervalsByStatus(BookingStatus.WAITING))
+                .thenReturn(List.of(new BookingInterval(5L, 7L, NOW.minusHours(1), NOW)));
+        when(repository.expireWaiting(eq(List.of(5L)), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(1);
+        when(repository.findIntervalsByIdInAndStatus(List.of(5L), BookingStatus.EXPIRED))
+                .thenReturn(List.of(new BookingInterval(5L, 7L, NOW.minusHours(1), NOW)));
+
+        assertEquals(0, expiryService.expireDue(NOW));
+        assertEquals(1, expiryService.getPendingCount());
+        verify(intervalIndex, never()).remove(any(), any());
+
+        assertEquals(1, expiryService.expireDue(NOW));
+        verify(intervalIndex).remove(7L, 5L);
+        assertEquals(0, expiryService.getPendingCount());
+        assertEquals(0, expiryService.expireDue(NOW));
+    }
+
+    private static Booking booking(Long id, LocalDateTime start) {
+        Item item = new Item();
+        item.setId(7L);
+        User booker = new User();
+        booker.setId(10L);
+        return new Booking(id, start, start.plusHours(1), item, booker, BookingStatus.WAITING);
+    }
+}
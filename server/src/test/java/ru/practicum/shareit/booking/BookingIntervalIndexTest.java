@@ -0,0 +1,170 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.Item;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookingIntervalIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final int BOOKINGS_PER_ITEM = 10_000;
+
+    private BookingRepository repository;
+    private BookingIntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(BookingRepository.class);
+        index = new BookingIntervalIndex(repository);
+    }
+
+    @Test
+    void testIsFreeWithOverlappingLegacyIntervals() {
+        when(repository.findIntervalsByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of(
+                new BookingInterval(1L, hours(0), hours(10)),
+                new BookingInterval(2L, hours(2), hours(3)),
+                new BookingInterval(3L, hours(20), hours(21))));
+
+        assertFalse(index.isFree(1L, hours(5), hours(6)));
+        assertFalse(index.isFree(1L, hours(9), hours(12)));
+        assertTrue(index.isFree(1L, hours(10), hours(20)));
+        assertTrue(index.isFree(1L, hours(21), hours(30)));
+        assertFalse(index.isFree(1L, hours(19), hours(30)));
+        verify(repository, times(1)).findIntervalsByItemIdAndStatusIn(eq(1L), any());
+    }
+
+    @Test
+    void testGetFreeSlots() {
+        when(repository.findIntervalsByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of(
+                new BookingInterval(1L, hours(0), hours(10)),
+                new BookingInterval(2L, hours(2), hours(3)),
+                new BookingInterval(3L, hours(12), hours(14))));
+
+        List<FreeSlotDto> slots = index.getFreeSlots(1L, hours(5), hours(20));
+
+        assertEquals(List.of(new FreeSlotDto(hours(10), hours(12)), new FreeSlotDto(hours(14), hours(20))), slots);
+        assertEquals(List.of(new FreeSlotDto(hours(30), hours(40))), index.getFreeSlots(1L, hours(30), hours(40)));
+        assertTrue(index.getFreeSlots(1L, hours(1), hours(9)).isEmpty());
+    }
+
+    @Test
+    void testSaveIfFreeAndStatusChange() {
+        when(repository.findIntervalsByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of());
+        Booking first = booking(null, hours(0), hours(5));
+
+        Booking saved = index.saveIfFree(first, b -> withId(b, 10L));
+        Booking overlapping = index.saveIfFree(booking(null, hours(4), hours(6)), b -> withId(b, 11L));
+
+        assertNotNull(saved);
+        assertNull(overlapping);
+
+        saved.setStatus(BookingStatus.CANCELED);
+        index.onStatusChanged(saved);
+
+        assertTrue(index.isFree(1L, hours(4), hours(6)));
+    }
+
+    @Test
+    void testRollbackRemovesOnlyIntervalsOfTheTransaction() {
+        when(repository.findIntervalsByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of());
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> synchronizations;
+        try {
+            index.saveIfFree(booking(null, hours(0), hours(5)), b -> withId(b, 10L));
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        index.saveIfFree(booking(null, hours(10), hours(15)), b -> withId(b, 11L));
+
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertTrue(index.isFree(1L, hours(0), hours(5)));
+        assertFalse(index.isFree(1L, hours(10), hours(15)));
+        verify(repository, times(1)).findIntervalsByItemIdAndStatusIn(eq(1L), any());
+    }
+
+    @Test
+    void testSaveAllIfFreeLoadsItemsWithOneQuery() {
+        when(repository.findIntervalsByItemIdInAndStatusIn(any(), any())).thenReturn(List.of(
+                new BookingInterval(1L, 2L, hours(0), hours(5))));
+        List<Booking> batch = List.of(booking(null, hours(0), hours(2)), booking(null, hours(2), hours(3)),
+                booking(null, hours(0), hours(2), 2L), booking(null, hours(1), hours(2), 2L));
+        long[] nextId = {100L};
+
+        List<Booking> saved = index.saveAllIfFree(batch, bookings -> bookings.stream()
+                .map(b -> withId(b, nextId[0]++))
+                .toList());
+
+        assertEquals(100L, saved.get(0).getId());
+        assertEquals(101L, saved.get(1).getId());
+        assertNull(saved.get(2));
+        assertNull(saved.get(3));
+        assertFalse(index.isFree(1L, hours(2), hours(3)));
+        verify(repository, times(1)).findIntervalsByItemIdInAndStatusIn(any(), any());
+        verify(repository, never()).findIntervalsByItemIdAndStatusIn(any(), any());
+    }
+
+    @Test
+    void testItemWith10kBookings() {
+        List<BookingInterval> intervals = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS_PER_ITEM; i++) {
+            intervals.add(new BookingInterval((long) i, hours(i * 3L), hours(i * 3L + 2)));
+        }
+        when(repository.findIntervalsByItemIdAndStatusIn(eq(1L), any())).thenReturn(intervals);
+
+        assertTrue(index.isFree(1L, hours(2), hours(3)));
+        Random random = new Random(42);
+        int queries = 1_000;
+        int free = 0;
+        for (int i = 0; i < queries; i++) {
+            long startHour = random.nextInt(BOOKINGS_PER_ITEM * 3);
+            if (index.isFree(1L, hours(startHour), hours(startHour + 1))) {
+                free++;
+            }
+        }
+        int slots = index.getFreeSlots(1L, hours(0), hours(BOOKINGS_PER_ITEM * 3L)).size();
+        for (int i = 0; i < 1_000; i++) {
+            long id = BOOKINGS_PER_ITEM + i;
+            index.saveIfFree(booking(null, hours(i * 3L + 2), hours(i * 3L + 3)), b -> withId(b, id));
+        }
+
+        assertTrue(free > 0 && free < queries);
+        assertEquals(BOOKINGS_PER_ITEM, slots);
+        assertFalse(index.isFree(1L, hours(2), hours(3)));
+        assertEquals(BOOKINGS_PER_ITEM - 1_000,
+                index.getFreeSlots(1L, hours(0), hours(BOOKINGS_PER_ITEM * 3L)).size());
+        verify(repository, times(1)).findIntervalsByItemIdAndStatusIn(eq(1L), any());
+    }
+
+    private static Booking booking(Long id, LocalDateTime start, LocalDateTime end) {
+        return booking(id, start, end, 1L);
+    }
+
+    private static Booking booking(Long id, LocalDateTime start, LocalDateTime end, Long itemId) {
+        Item item = new Item();
+        item.setId(itemId);
+        return new Booking(id, start, end, item, null, BookingStatus.WAITING);
+    }
+
+    private static Booking withId(Booking booking, Long id) {
+        booking.setId(id);
+        return booking;
+    }
+
+    private static LocalDateTime hours(long hours) {
+        return BASE.plusHours(hours);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+class BookingPartitionManagerTest {
+
+    @Test
+    void testCreatePartitionsAheadOfTime() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        BookingPartitionManager manager = new BookingPartitionManager(jdbcTemplate, 2);
+
+        List<String> partitions = manager.createPartitions(LocalDate.of(2030, 11, 15));
+
+        assertEquals(List.of("bookings_2030_11", "bookings_2030_12", "bookings_2031_01"), partitions);
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS bookings_2030_12 PARTITION OF bookings " +
+                "FOR VALUES FROM ('2030-12-01') TO ('2031-01-01')");
+    }
+
+    @Test
+    void testCreatePartitionsSkipsMonthHeldByDefaultPartition() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doThrow(new DataIntegrityViolationException("default partition contains rows"))
+                .when(jdbcTemplate).execute(contains("bookings_2030_12"));
+        BookingPartitionManager manager = new BookingPartitionManager(jdbcTemplate, 2);
+
+        List<String> partitions = manager.createPartitions(LocalDate.of(2030, 11, 15));
+
+        assertEquals(List.of("bookings_2030_11", "bookings_2031_01"), partitions);
+    }
+}
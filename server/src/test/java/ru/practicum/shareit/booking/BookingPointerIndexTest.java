@@ -0,0 +1,137 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BookingPointerIndexTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    private BookingRepository repository;
+    private BookingPointerIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(BookingRepository.class);
+        BookingMapper mapper = mock(BookingMapper.class);
+        when(mapper.toBookingShortDto(any())).thenAnswer(invocation -> {
+            Booking booking = invocation.getArgument(0);
+            return new BookingShortDto(booking.getId(), booking.getBooker().getId(), booking.getStart(),
+                    booking.getEnd());
+        });
+        index = new BookingPointerIndex(repository, mapper, 100);
+    }
+
+    @Test
+    void testPointersAreLoadedOnceUntilTheyExpire() {
+        BookingShortView last = view(1L, NOW.minusHours(3), NOW.minusHours(2));
+        BookingShortView next = view(2L, NOW.plusHours(2), NOW.plusHours(3));
+        when(repository.findLastBookingsByItemIds(any(), any())).thenReturn(List.of(last));
+        when(repository.findNextBookingsByItemIds(any(), any())).thenReturn(List.of(next));
+        when(repository.findEarliestUpcomingEndsByItemIds(any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, NOW.plusHours(1)}));
+
+        BookingPointerIndex.ItemPointers pointers = index.getPointers(List.of(1L), NOW).get(1L);
+        index.getPointers(List.of(1L), NOW.plusMinutes(59));
+
+        assertEquals(1L, pointers.getLast().getId());
+        assertEquals(2L, pointers.getNext().getId());
+        assertEquals(NOW.plusHours(1), pointers.getRefreshAt());
+        verify(repository, times(1)).findLastBookingsByItemIds(any(), any());
+
+        index.getPointers(List.of(1L), NOW.plusHours(1));
+
+        verify(repository, times(2)).findLastBookingsByItemIds(any(), any());
+    }
+
+    @Test
+    void testOnCreatedMovesNextPointer() {
+        when(repository.findLastBookingsByItemIds(any(), any())).thenReturn(List.of());
+        when(repository.findNextBookingsByItemIds(any(), any())).thenReturn(List.of());
+        when(repository.findEarliestUpcomingEndsByItemIds(any(), any())).thenReturn(List.of());
+        LocalDateTime now = LocalDateTime.now();
+        assertNull(index.getPointers(List.of(1L), now).get(1L).getNext());
+
+        index.onCreated(booking(5L, now.plusDays(2), now.plusDays(3)));
+        index.onCreated(booking(6L, now.plusDays(1), now.plusDays(2)));
+        index.onCreated(booking(7L, now.plusDays(4), now.plusDays(5)));
+        Map<Long, BookingPointerIndex.ItemPointers> pointers = index.getPointers(List.of(1L), now);
+
+        assertEquals(6L, pointers.get(1L).getNext().getId());
+        assertEquals(now.plusDays(1), pointers.get(1L).getRefreshAt());
+        verify(repository, times(1)).findNextBookingsByItemIds(any(), any());
+    }
+
+    @Test
+    void testAdvanceReloadsExpiredItems() {
+        BookingShortView next = view(2L, NOW.plusHours(2), NOW.plusHours(3));
+        when(repository.findLastBookingsByItemIds(any(), any())).thenReturn(List.of());
+        when(repository.findNextBookingsByItemIds(any(), any())).thenReturn(List.of(next), List.of());
+        when(repository.findEarliestUpcomingEndsByItemIds(any(), any())).thenReturn(List.of());
+        index.getPointers(List.of(1L), NOW);
+
+        index.advance(NOW.plusHours(1));
+        verify(repository, times(1)).findNextBookingsByItemIds(any(), any());
+
+        index.advance(NOW.plusHours(2));
+        verify(repository, times(2)).findNextBookingsByItemIds(any(), any());
+        assertNull(index.getPointers(List.of(1L), NOW.plusHours(2)).get(1L).getNext());
+    }
+
+    @Test
+    void testAdvanceDropsExpiredItemsNotReadSinceLoad() {
+        BookingShortView next = view(2L, NOW.plusHours(2), NOW.plusHours(3));
+        when(repository.findLastBookingsByItemIds(any(), any())).thenReturn(List.of());
+        when(repository.findNextBookingsByItemIds(any(), any())).thenReturn(List.of(next));
+        when(repository.findEarliestUpcomingEndsByItemIds(any(), any())).thenReturn(List.of());
+        index.getPointers(List.of(1L), NOW);
+
+        index.advance(NOW.plusHours(2));
+        verify(repository, times(2)).findNextBookingsByItemIds(any(), any());
+        assertEquals(1, index.size());
+
+        index.advance(NOW.plusHours(4));
+        verify(repository, times(2)).findNextBookingsByItemIds(any(), any());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testLeastRecentlyReadItemsAreEvicted() {
+        when(repository.findLastBookingsByItemIds(any(), any())).thenReturn(List.of());
+        when(repository.findNextBookingsByItemIds(any(), any())).thenReturn(List.of());
+        when(repository.findEarliestUpcomingEndsByItemIds(any(), any())).thenReturn(List.of());
+        for (long itemId = 1; itemId <= 150; itemId++) {
+            index.getPointers(List.of(1L, itemId), NOW);
+        }
+
+        assertEquals(100, index.size());
+        index.getPointers(List.of(1L), NOW);
+        verify(repository, times(150)).findNextBookingsByItemIds(any(), any());
+        index.getPointers(List.of(2L), NOW);
+        verify(repository, times(151)).findNextBookingsByItemIds(any(), any());
+    }
+
+    private static BookingShortView view(Long id, LocalDateTime start, LocalDateTime end) {
+        return new SpelAwareProxyProjectionFactory().createProjection(BookingShortView.class,
+                Map.of("itemId", 1L, "id", id, "bookerId", 10L, "startTime", start, "endTime", end));
+    }
+
+    private static Booking booking(Long id, LocalDateTime start, LocalDateTime end) {
+        Item item = new Item();
+        item.setId(1L);
+        User booker = new User();
+        booker.setId(10L);
+        return new Booking(id, start, end, item, booker, BookingStatus.WAITING);
+    }
+}
@@ -1,22 +1,35 @@
 package ru.practicum.shareit.booking;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingStatsDto;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
 import ru.practicum.shareit.exception.BookingNotFoundException;
+import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.Comment;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.ItemServiceImpl;
@@ -24,10 +37,16 @@ import ru.practicum.shareit.service.ValidationService;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.UserServiceImpl;
+import ru.practicum.shareit.util.CommitHooks;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,7 +55,11 @@ import static org.junit.jupiter.api.Assertions.*;
 @DataJpaTest
 @ActiveProfiles("test")
 @Import({BookingMapper.class, BookingServiceImpl.class, UserServiceImpl.class, ValidationService.class,
-        UserMapper.class, ItemServiceImpl.class, ItemMapper.class})
+        UserMapper.class, ItemServiceImpl.class, ItemMapper.class, BookingIntervalIndex.class,
+        BookingPointerIndex.class, BookingBatchRepository.class, BookingExporter.class, BookingExpiryService.class,
+        SimpleMeterRegistry.class, BookingEventRepository.class, BookingStatsService.class,
+        BookingStatsRepository.class, BookingWriteLanes.class, BookedDaysIndex.class,
+        JacksonAutoConfiguration.class})
 public class BookingServiceImplIntegrationTest {
 
     @Autowired
@@ -45,6 +68,21 @@ public class BookingServiceImplIntegrationTest {
     @Autowired
     private BookingServiceImpl bookingService;
 
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingIntervalIndex intervalIndex;
+
+    @Autowired
+    private BookingEventRepository eventRepository;
+
+    @Autowired
+    private BookingStatsService statsService;
+
+    @Autowired
+    private BookingStatsRepository statsRepository;
+
     private User owner;
     private User booker;
 
@@ -88,6 +126,68 @@ public class BookingServiceImplIntegrationTest {
         assertEquals(bookingInputDto.getEnd(), bookingDto.getEnd());
     }
 
+    @Test
+    void testCreateOverlappingBooking() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingService.create(new BookingInputDto(item.getId(), start, start.plusDays(2)), booker.getId());
+
+        ValidationException exception = assertThrows(ValidationException.class, () -> {
+            bookingService.create(new BookingInputDto(item.getId(), start.plusDays(1), start.plusDays(3)),
+                    booker.getId());
+        });
+
+        assertEquals("Вещь с ID=" + item.getId() + " уже забронирована на указанный период!",
+                exception.getMessage());
+    }
+
+    @Test
+    void testCreateBookingAdjacentToExisting() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingService.create(new BookingInputDto(item.getId(), start, start.plusDays(2)), booker.getId());
+
+        BookingDto bookingDto = bookingService.create(new BookingInputDto(item.getId(), start.plusDays(2),
+                start.plusDays(3)), booker.getId());
+
+        assertNotNull(bookingDto.getId());
+    }
+
+    @Test
+    void testCreateBookingWithEndBeforeStart() {
+        LocalDateTime start = LocalDateTime.now().plusDays(2);
+        BookingInputDto bookingInputDto = new BookingInputDto(item.getId(), start, start);
+
+        assertThrows(ValidationException.class, () -> bookingService.create(bookingInputDto, booker.getId()));
+    }
+
+    @Test
+    void testCreateBookingAfterRejectionOfOverlapping() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingDto rejected = bookingService.create(new BookingInputDto(item.getId(), start, start.plusDays(2)),
+                booker.getId());
+        bookingService.update(rejected.getId(), owner.getId(), false);
+        CommitHooks.runAfterCommit();
+
+        BookingDto bookingDto = bookingService.create(new BookingInputDto(item.getId(), start, start.plusDays(2)),
+                booker.getId());
+
+        assertNotNull(bookingDto.getId());
+    }
+
+    @Test
+    void testGetFreeSlots() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1).withNano(0);
+        Booking booking = new Booking(null, from.plusDays(1), from.plusDays(2), item, booker, BookingStatus.APPROVED);
+        Booking rejected = new Booking(null, from.plusDays(3), from.plusDays(4), item, booker,
+                BookingStatus.REJECTED);
+        entityManager.persist(booking);
+        entityManager.persist(rejected);
+
+        List<FreeSlotDto> slots = bookingService.getFreeSlots(item.getId(), from, from.plusDays(5));
+
+        assertEquals(List.of(new FreeSlotDto(from, from.plusDays(1)), new FreeSlotDto(from.plusDays(2),
+                from.plusDays(5))), slots);
+    }
+
     @Test
     void testUpdateBooking() {
         Booking booking = new Booking();
@@ -103,6 +203,250 @@ public class BookingServiceImplIntegrationTest {
         assertEquals(BookingStatus.APPROVED, updatedBookingDto.getStatus());
     }
 
+    @Test
+    void testCreateAll() {
+        Item otherItem = new Item();
+        otherItem.setName("Other item");
+        otherItem.setDescription("Other description");
+        otherItem.setAvailable(true);
+        otherItem.setOwner(owner);
+        entityManager.persist(otherItem);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        entityManager.persist(new Booking(null, start, start.plusHours(2), otherItem, booker,
+                BookingStatus.APPROVED));
+
+        List<BookingBatchResultDto> results = bookingService.createAll(List.of(
+                new BookingInputDto(item.getId(), start, start.plusHours(1)),
+                new BookingInputDto(item.getId(), start.plusMinutes(30), start.plusHours(2)),
+                new BookingInputDto(item.getId(), start.plusHours(1), start.plusHours(2)),
+                new BookingInputDto(otherItem.getId(), start.plusHours(1), start.plusHours(3)),
+                new BookingInputDto(999L, start, start.plusHours(1)),
+                new BookingInputDto(item.getId(), start.plusHours(5), start.plusHours(4))), booker.getId());
+
+        assertEquals(6, results.size());
+        assertNotNull(results.get(0).getBooking().getId());
+        assertEquals(BookingStatus.WAITING, results.get(0).getBooking().getStatus());
+        assertEquals("Вещь с ID=" + item.getId() + " уже забронирована на указанный период!",
+                results.get(1).getError());
+        assertNotNull(results.get(2).getBooking());
+        assertEquals("Вещь с ID=" + otherItem.getId() + " уже забронирована на указанный период!",
+                results.get(3).getError());
+        assertEquals("Вещь с ID=999 не найдена!", results.get(4).getError());
+        assertEquals("Дата начала бронирования должна быть раньше даты окончания!", results.get(5).getError());
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), results.stream().map(BookingBatchResultDto::getIndex).toList());
+        assertEquals(2, bookingService.getBookings("WAITING", booker.getId()).size());
+        assertFalse(bookingService.getFreeSlots(item.getId(), start, start.plusHours(2)).stream()
+                .anyMatch(slot -> slot.getStart().isBefore(start.plusHours(2))));
+    }
+
+    @Test
+    void testRolledBackCreatesLeaveNoIntervals() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingService.create(new BookingInputDto(item.getId(), start, start.plusHours(1)), booker.getId());
+        bookingService.createAll(List.of(new BookingInputDto(item.getId(), start.plusHours(2),
+                start.plusHours(3))), booker.getId());
+        assertFalse(intervalIndex.isFree(item.getId(), start, start.plusHours(3)));
+
+        TestTransaction.flagForRollback();
+        TestTransaction.end();
+
+        assertTrue(intervalIndex.isFree(item.getId(), start, start.plusHours(3)));
+        TestTransaction.start();
+    }
+
+    @Test
+    void testCreateAllByOwnerAndUnknownUser() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<BookingInputDto> bookings = List.of(new BookingInputDto(item.getId(), start, start.plusHours(1)));
+
+        List<BookingBatchResultDto> results = bookingService.createAll(bookings, owner.getId());
+
+        assertEquals("Вещь с ID=" + item.getId() + " недоступна для бронирования самим владельцем!",
+                results.get(0).getError());
+        assertThrows(UserNotFoundException.class, () -> bookingService.createAll(bookings, 999L));
+    }
+
+    @Test
+    void testExportBookingsOwner() throws Exception {
+        User otherOwner = new User();
+        otherOwner.setEmail("other@example.com");
+        otherOwner.setName("Other");
+        otherOwner.setRegistrationDate(Instant.now());
+        entityManager.persist(otherOwner);
+        Item otherItem = new Item();
+        otherItem.setName("Other item");
+        otherItem.setDescription("Other description");
+        otherItem.setAvailable(true);
+        otherItem.setOwner(otherOwner);
+        entityManager.persist(otherItem);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        entityManager.persist(new Booking(null, start.minusDays(2), start.minusDays(1), item, booker,
+                BookingStatus.APPROVED));
+        entityManager.persist(new Booking(null, start.plusDays(1), start.plusDays(2), item, booker,
+                BookingStatus.WAITING));
+        entityManager.persist(new Booking(null, start.plusDays(1), start.plusDays(2), otherItem, booker,
+                BookingStatus.WAITING));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        bookingService.exportBookingsOwner(owner.getId()).writeTo(output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"status\":\"WAITING\""));
+        assertTrue(lines[0].contains("\"itemName\":\"Item\""));
+        assertTrue(lines[1].contains("\"status\":\"APPROVED\""));
+        assertTrue(lines[1].contains("\"bookerId\":" + booker.getId()));
+        assertThrows(UserNotFoundException.class, () -> bookingService.exportBookingsOwner(999L));
+    }
+
+    @Test
+    void testUpdateBookingTwice() {
+        Booking booking = new Booking(null, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), item,
+                booker, BookingStatus.WAITING);
+        entityManager.persist(booking);
+
+        bookingService.update(booking.getId(), owner.getId(), true);
+        ValidationException exception = assertThrows(ValidationException.class, () ->
+                bookingService.update(booking.getId(), owner.getId(), false));
+
+        assertEquals("Решение по бронированию уже принято!", exception.getMessage());
+        assertEquals(BookingStatus.APPROVED, bookingService.getBookingById(booking.getId(), owner.getId())
+                .getStatus());
+    }
+
+    @Test
+    void testCancelBookingByBooker() {
+        Booking booking = new Booking(null, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), item,
+                booker, BookingStatus.APPROVED);
+        entityManager.persist(booking);
+
+        BookingDto canceled = bookingService.update(booking.getId(), booker.getId(), false);
+        ValidationException exception = assertThrows(ValidationException.class, () ->
+                bookingService.update(booking.getId(), owner.getId(), true));
+
+        assertEquals(BookingStatus.CANCELED, canceled.getStatus());
+        assertEquals("Бронирование было отменено!", exception.getMessage());
+    }
+
+    @Test
+    void testRejectBookingByOwnerRunsOneUpdate() {
+        Booking booking = new Booking(null, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), item,
+                booker, BookingStatus.WAITING);
+        entityManager.persist(booking);
+        // the booking with its item and owner, and one guarded UPDATE
+        assertEquals(2, countQueries(() -> bookingService.update(booking.getId(), owner.getId(), false)));
+        assertEquals(BookingStatus.REJECTED, bookingRepository.findById(booking.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void testApproveBookingByBooker() {
+        Booking booking = new Booking(null, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), item,
+                booker, BookingStatus.WAITING);
+        entityManager.persist(booking);
+
+        BookingNotFoundException exception = assertThrows(BookingNotFoundException.class, () ->
+                bookingService.update(booking.getId(), booker.getId(), true));
+
+        assertEquals("Подтвердить бронирование может только владелец вещи!", exception.getMessage());
+    }
+
+    @Test
+    void testExpireWaitingBooking() {
+        BookingExpiryService expiryService = new BookingExpiryService(bookingRepository, intervalIndex,
+                eventRepository, statsService, TransactionOperations.withoutTransaction(), new SimpleMeterRegistry(),
+                300_000);
+        LocalDateTime start = LocalDateTime.now().minusMinutes(10).truncatedTo(ChronoUnit.SECONDS);
+        Booking booking = new Booking(null, start, start.plusHours(2), item, booker, BookingStatus.WAITING);
+        entityManager.persist(booking);
+
+        int expired = expiryService.expireDue(LocalDateTime.now());
+        ValidationException exception = assertThrows(ValidationException.class, () ->
+                bookingService.update(booking.getId(), owner.getId(), true));
+
+        assertTrue(expired >= 1);
+        assertEquals(List.of(booking.getId()), bookingService.getBookings("EXPIRED", booker.getId()).stream()
+                .map(BookingDto::getId).toList());
+        assertEquals("Срок подтверждения бронирования истек!", exception.getMessage());
+    }
+
+    @Test
+    void testBookingStats() {
+        LocalDateTime now = LocalDateTime.now();
+        statsService.reconcile(now);
+        BookingDto approved = bookingService.create(new BookingInputDto(item.getId(), now.plusHours(1),
+                now.plusHours(2)), booker.getId());
+        BookingDto rejected = bookingService.create(new BookingInputDto(item.getId(), now.plusHours(3),
+                now.plusHours(4)), booker.getId());
+        bookingService.update(approved.getId(), owner.getId(), true);
+        bookingService.update(rejected.getId(), owner.getId(), false);
+
+        statsService.rollup(now.plusMinutes(90));
+
+        BookingStatsDto expected = new BookingStatsDto(2, 1, 0, 1, 0, 1, 0);
+        assertEquals(expected, bookingService.getStatsOwner(owner.getId()));
+        assertEquals(expected, bookingService.getStats(booker.getId()));
+        assertEquals(new BookingStatsDto(), bookingService.getStats(owner.getId()));
+        assertEquals(0, statsService.reconcile(now.plusMinutes(90)));
+
+        long[] drift = new long[BookingStatsRepository.SIZE];
+        drift[BookingStatsRepository.ALL] = 5;
+        statsRepository.add(Map.of(new BookingStatsRepository.Key(booker.getId(),
+                BookingStatsRepository.Role.BOOKER), drift));
+
+        assertEquals(1, statsService.reconcile(now.plusMinutes(90)));
+        assertEquals(expected, bookingService.getStats(booker.getId()));
+
+        // bookings made before the counters existed
+        entityManager.getEntityManager().createNativeQuery("DELETE FROM booking_stats").executeUpdate();
+
+        assertEquals(2, statsService.reconcile(now.plusMinutes(90)));
+        assertEquals(expected, bookingService.getStatsOwner(owner.getId()));
+        assertEquals(expected, bookingService.getStats(booker.getId()));
+    }
+
+    @Test
+    void testBookingStatsRecountMatchesRollupAtBoundaries() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        statsService.reconcile(now);
+        BookingDto booking = bookingService.create(new BookingInputDto(item.getId(), now.plusHours(1),
+                now.plusHours(2)), booker.getId());
+
+        statsService.rollup(booking.getStart());
+
+        assertEquals(new BookingStatsDto(1, 1, 0, 0, 1, 0, 0), bookingService.getStats(booker.getId()));
+        assertEquals(0, statsService.reconcile(booking.getStart()));
+
+        statsService.rollup(booking.getEnd());
+
+        assertEquals(new BookingStatsDto(1, 0, 1, 0, 1, 0, 0), bookingService.getStats(booker.getId()));
+        assertEquals(0, statsService.reconcile(booking.getEnd()));
+    }
+
+    @Test
+    void testBookingEventsAreRelayedToFeed() {
+        InMemoryBookingEventSink sink = new InMemoryBookingEventSink(10);
+        BookingEventRelay relay = new BookingEventRelay(eventRepository, sink, 1);
+        BookingDto created = bookingService.create(new BookingInputDto(item.getId(),
+                LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2)), booker.getId());
+        bookingService.update(created.getId(), owner.getId(), true);
+
+        assertTrue(bookingService.getEvents(0L, 10).isEmpty());
+        assertEquals(2, relay.relay());
+        assertEquals(0, relay.relay());
+
+        List<BookingEventDto> events = bookingService.getEvents(0L, 10);
+        assertEquals(List.of(BookingStatus.WAITING, BookingStatus.APPROVED),
+                events.stream().map(BookingEventDto::getStatus).toList());
+        assertEquals(events, sink.getEvents());
+        assertEquals(created.getId(), events.get(1).getBookingId());
+        assertEquals(List.of(events.get(1)), bookingService.getEvents(events.get(0).getOffset(), 10));
+    }
+
+    @Test
+    void testUpdateUnknownBooking() {
+        assertThrows(BookingNotFoundException.class, () -> bookingService.update(999L, owner.getId(), true));
+    }
+
     @Test
     void testGetBookingById() {
         Booking booking = new Booking();
@@ -120,6 +464,38 @@ public class BookingServiceImplIntegrationTest {
         assertEquals(booking.getId(), bookingDto.getId());
     }
 
+    @Test
+    void testGetBookingByIdChecksAccessWithoutExtraQueries() {
+        Booking booking = new Booking(null, LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2),
+                item, booker, BookingStatus.WAITING);
+        entityManager.persist(booking);
+
+        // the booking with its item, owner and booker
+        assertEquals(1, countQueries(() -> bookingService.getBookingById(booking.getId(), owner.getId())));
+        assertEquals(1, countQueries(() -> bookingService.getBookingById(booking.getId(), booker.getId())));
+    }
+
+    @Test
+    void testGetBookingsCarriesItemAndBookerNamesOnly() {
+        for (int i = 0; i < 5; i++) {
+            Item other = new Item(null, "Item " + i, "Description", true, owner, null, null, null);
+            entityManager.persist(other);
+            entityManager.persist(new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                    other, booker, BookingStatus.APPROVED));
+            entityManager.persist(new Comment(null, "Comment " + i, other, booker, LocalDateTime.now()));
+        }
+        List<List<BookingDto>> result = new ArrayList<>();
+        // the booker and the bookings with their items, owners and bookers, the comments are not loaded
+        assertEquals(2, countQueries(() -> result.add(bookingService.getBookings("ALL", booker.getId()))));
+        assertEquals(5, result.get(0).size());
+        for (BookingDto bookingDto : result.get(0)) {
+            assertTrue(bookingDto.getItem().getName().startsWith("Item "));
+            assertEquals(owner.getId(), bookingDto.getItem().getOwnerId());
+            assertEquals(booker.getId(), bookingDto.getBooker().getId());
+            assertEquals(booker.getName(), bookingDto.getBooker().getName());
+        }
+    }
+
     @Test
     void testGetBookings() {
         Booking booking1 = new Booking();
@@ -529,6 +905,82 @@ public class BookingServiceImplIntegrationTest {
         assertEquals(1, bookings.size());
     }
 
+    @Test
+    void testGetBookingsPagesWithCursor() {
+        LocalDateTime start = LocalDateTime.now().minusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 5; i++) {
+            entityManager.persist(new Booking(null, start.plusDays(i), start.plusDays(i).plusHours(1), item, booker,
+                    BookingStatus.APPROVED));
+        }
+
+        BookingPageDto firstPage = bookingService.getBookings("PAST", booker.getId(), null, 0, 2, null);
+        BookingPageDto secondPage = bookingService.getBookings("PAST", booker.getId(), null, 0, 2,
+                firstPage.getNextCursor());
+        BookingPageDto lastPage = bookingService.getBookings("PAST", booker.getId(), null, 0, 2,
+                secondPage.getNextCursor());
+
+        assertEquals(2, firstPage.getBookings().size());
+        assertEquals(start.plusDays(4), firstPage.getBookings().get(0).getStart());
+        assertEquals(start.plusDays(2), secondPage.getBookings().get(0).getStart());
+        assertEquals(1, lastPage.getBookings().size());
+        assertEquals(start, lastPage.getBookings().get(0).getStart());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    void testGetBookingsOwnerPageWithOffset() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 5; i++) {
+            entityManager.persist(new Booking(null, start.plusDays(i), start.plusDays(i).plusHours(1), item, booker,
+                    BookingStatus.WAITING));
+        }
+
+        BookingPageDto page = bookingService.getBookingsOwner("FUTURE", owner.getId(), null, 1, 2, null);
+        BookingPageDto nextPage = bookingService.getBookingsOwner("FUTURE", owner.getId(), null, 0, 2,
+                page.getNextCursor());
+
+        assertEquals(List.of(start.plusDays(3), start.plusDays(2)), page.getBookings().stream()
+                .map(BookingDto::getStart)
+                .toList());
+        assertEquals(List.of(start.plusDays(1), start), nextPage.getBookings().stream()
+                .map(BookingDto::getStart)
+                .toList());
+        assertThrows(ValidationException.class, () -> bookingService.getBookingsOwner("FUTURE", owner.getId(),
+                null, 1_001, 2, null));
+    }
+
+    @Test
+    void testGetBookingsWithInvalidCursor() {
+        assertThrows(ValidationException.class, () -> bookingService.getBookings("ALL", booker.getId(), null, 0,
+                2, "not a cursor"));
+    }
+
+    @Test
+    void testGetBookingsOwnerFilteredByItem() {
+        Item otherItem = new Item();
+        otherItem.setName("Other item");
+        otherItem.setDescription("Other description");
+        otherItem.setAvailable(true);
+        otherItem.setOwner(owner);
+        entityManager.persist(otherItem);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        entityManager.persist(new Booking(null, start, start.plusHours(1), item, booker, BookingStatus.WAITING));
+        entityManager.persist(new Booking(null, start, start.plusHours(1), otherItem, booker,
+                BookingStatus.WAITING));
+        entityManager.persist(new Booking(null, start.plusDays(1), start.plusDays(1).plusHours(1), otherItem, booker,
+                BookingStatus.REJECTED));
+
+        BookingPageDto waiting = bookingService.getBookingsOwner("WAITING", owner.getId(), otherItem.getId(), 0,
+                null, null);
+        BookingPageDto future = bookingService.getBookings("FUTURE", booker.getId(), otherItem.getId(), 0, null,
+                null);
+
+        assertEquals(1, waiting.getBookings().size());
+        assertEquals(otherItem.getId(), waiting.getBookings().get(0).getItem().getId());
+        assertEquals(2, future.getBookings().size());
+        assertNull(future.getNextCursor());
+    }
+
     @Test
     void testGetBookingsOwnerUnknownState() {
         ValidationException exception = assertThrows(ValidationException.class, () -> {
@@ -569,4 +1021,14 @@ public class BookingServiceImplIntegrationTest {
 
 
 
+
+    private long countQueries(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
 }
@@ -0,0 +1,95 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InMemoryItemSearchEngineTest {
+
+    private ItemRepository repository;
+    private InMemoryItemSearchEngine searchEngine;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ItemRepository.class);
+        when(repository.streamSearchRows()).thenReturn(Stream.of(
+                new Object[]{1L, "Дрель Makita", "Ударная дрель", true},
+                new Object[]{2L, "Дрель Bosch", "Сломана", false},
+                new Object[]{3L, "Отвертка", "Аккумуляторная, как дрель", true},
+                new Object[]{4L, "Drill", "Cordless drill with battery", true},
+                new Object[]{5L, "Дрель-шуруповерт", null, true}));
+        searchEngine = new InMemoryItemSearchEngine(repository, TransactionOperations.withoutTransaction());
+    }
+
+    @Test
+    void testSearchMatchesPrefixesOfAllWordsOfAvailableItems() {
+        assertEquals(List.of(1L, 3L, 5L), searchEngine.search("дрел", 0, null));
+        assertEquals(List.of(1L), searchEngine.search("ДРЕЛЬ mak", 0, null));
+        assertEquals(List.of(4L), searchEngine.search("cordless battery", 0, null));
+        assertEquals(List.of(), searchEngine.search("bosch", 0, null));
+        assertEquals(List.of(), searchEngine.search("дрель пила", 0, null));
+        assertEquals(List.of(), searchEngine.search(" , ", 0, null));
+    }
+
+    @Test
+    void testSearchMatchesFragmentsInsideWords() {
+        assertEquals(List.of(5L), searchEngine.search("уруп", 0, null));
+        assertEquals(List.of(3L), searchEngine.search("муляторн верт", 0, null));
+        assertEquals(List.of(4L), searchEngine.search("rill", 0, null));
+        assertEquals(List.of(1L), searchEngine.search("kit дарн", 0, null));
+        assertEquals(List.of(), searchEngine.search("ll", 0, null));
+    }
+
+    @Test
+    void testSearchPages() {
+        assertEquals(List.of(3L, 5L), searchEngine.search("дрель", 1, 5));
+        assertEquals(List.of(1L), searchEngine.search("дрель", 0, 1));
+        assertEquals(List.of(), searchEngine.search("дрель", 3, 1));
+    }
+
+    @Test
+    void testFuzzySearchMatchesWordsWithTyposBestFirst() {
+        List<ItemSearchHit> hits = searchEngine.searchFuzzy("дрелб", 0, null);
+
+        assertEquals(List.of(1L, 3L, 5L), hits.stream().map(ItemSearchHit::getItemId).toList());
+        assertEquals(0.5, hits.get(0).getScore());
+        assertEquals(List.of(1L), searchEngine.searchFuzzy("дрель makta", 0, null).stream()
+                .map(ItemSearchHit::getItemId).toList());
+        assertEquals(0.75, searchEngine.searchFuzzy("дрель makta", 0, null).get(0).getScore());
+        assertEquals(List.of(4L), searchEngine.searchFuzzy("batery cordles", 0, null).stream()
+                .map(ItemSearchHit::getItemId).toList());
+        assertEquals(List.of(3L), searchEngine.searchFuzzy("дрелб", 1, 1).stream()
+                .map(ItemSearchHit::getItemId).toList());
+        assertEquals(List.of(), searchEngine.searchFuzzy("bosh", 0, null));
+        assertEquals(List.of(), searchEngine.searchFuzzy("ab", 0, null));
+    }
+
+    @Test
+    void testItemWritesUpdateIndex() {
+        searchEngine.build();
+
+        searchEngine.onItemSaved(new Item(2L, "Дрель Bosch", "Починена", true, null, null, null, null));
+        searchEngine.onItemSaved(new Item(1L, "Перфоратор Makita", "Ударный", true, null, null, null, null));
+        searchEngine.onItemSaved(new Item(6L, "Пила", "Цепная", true, null, null, null, null));
+        searchEngine.onItemDeleted(5L);
+
+        assertEquals(List.of(2L, 3L), searchEngine.search("дрель", 0, null));
+        assertEquals(List.of(1L), searchEngine.search("makita", 0, null));
+        assertEquals(List.of(6L), searchEngine.search("цеп", 0, null));
+        assertEquals(List.of(), searchEngine.search("шуруповерт", 0, null));
+        verify(repository, times(1)).streamSearchRows();
+    }
+
+    @Test
+    void testWritesBeforeLoadAreLeftToLoad() {
+        searchEngine.onItemSaved(new Item(6L, "Пила", "Цепная", true, null, null, null, null));
+
+        assertEquals(List.of(), searchEngine.search("пила", 0, null));
+    }
+}
@@ -10,7 +10,9 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.booking.dto.FreeSlotDto;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -40,7 +42,7 @@ public class ItemControllerTest {
 
     @Test
     void testCreateItem() throws Exception {
-        ItemDto itemDto = new ItemDto(null, "Item Name", "Item Description", true, null, null, null, null, null);
+        ItemDto itemDto = new ItemDto(null, "Item Name", "Item Description", true, null, null, null, null, null, null, null, null);
         when(itemService.create(any(ItemDto.class), anyLong())).thenReturn(itemDto);
 
         mockMvc.perform(post("/items")
@@ -54,7 +56,7 @@ public class ItemControllerTest {
 
     @Test
     void testGetItemById() throws Exception {
-        ItemDto itemDto = new ItemDto(1L, "Item Name", "Item Description", true, null, null, null, null, null);
+        ItemDto itemDto = new ItemDto(1L, "Item Name", "Item Description", true, null, null, null, null, null, null, null, null);
         when(itemService.getItemById(1L, 1L)).thenReturn(itemDto);
 
         mockMvc.perform(get("/items/1")
@@ -66,8 +68,8 @@ public class ItemControllerTest {
 
     @Test
     void testGetItemsByOwner() throws Exception {
-        ItemDto itemDto1 = new ItemDto(1L, "Item 1", "Description 1", true, null, null, null, null, null);
-        ItemDto itemDto2 = new ItemDto(2L, "Item 2", "Description 2", true, null, null, null, null, null);
+        ItemDto itemDto1 = new ItemDto(1L, "Item 1", "Description 1", true, null, null, null, null, null, null, null, null);
+        ItemDto itemDto2 = new ItemDto(2L, "Item 2", "Description 2", true, null, null, null, null, null, null, null, null);
         List<ItemDto> items = Arrays.asList(itemDto1, itemDto2);
         when(itemService.getItemsByOwner(1L)).thenReturn(items);
 
@@ -88,18 +90,59 @@ public class ItemControllerTest {
 
     @Test
     void testGetItemsBySearchQuery() throws Exception {
-        ItemDto itemDto = new ItemDto(1L, "Item Name", "Item Description", true, null, null, null, null, null);
-        when(itemService.getItemsBySearchQuery("Item")).thenReturn(Arrays.asList(itemDto));
+        ItemDto itemDto = new ItemDto(1L, "Item Name", "Item Description", true, null, null, null, null, null, null, null, null);
+        when(itemService.getItemsBySearchQuery("Item", 10, 5, false, null, null)).thenReturn(Arrays.asList(itemDto));
 
         mockMvc.perform(get("/items/search")
-                        .param("text", "Item"))
+                        .param("text", "Item")
+                        .param("from", "10")
+                        .param("size", "5"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(1));
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].score").doesNotExist());
+    }
+
+    @Test
+    void testGetItemsBySearchQueryFreeForPeriod() throws Exception {
+        ItemDto itemDto = new ItemDto(1L, "Tent", "Tent", true, null, null, null, null, null, null, null, null);
+        when(itemService.getItemsBySearchQuery("tent", 0, null, false, LocalDate.of(2030, 6, 3),
+                LocalDate.of(2030, 6, 7))).thenReturn(List.of(itemDto));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "tent")
+                        .param("start", "2030-06-03")
+                        .param("end", "2030-06-07"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Tent"));
+    }
+
+    @Test
+    void testGetSuggestions() throws Exception {
+        when(itemService.getSuggestions("др", 5)).thenReturn(List.of("дрель", "дрели"));
+
+        mockMvc.perform(get("/items/suggest")
+                        .param("prefix", "др")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("дрель"))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void testGetItemsByFuzzySearchQuery() throws Exception {
+        ItemDto itemDto = new ItemDto(1L, "Item Name", "Item Description", true, null, null, null, null, null, null, null, 0.5);
+        when(itemService.getItemsBySearchQuery("Itm", 0, null, true, null, null)).thenReturn(Arrays.asList(itemDto));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "Itm")
+                        .param("fuzzy", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].score").value(0.5));
     }
 
     @Test
     void testUpdateItem() throws Exception {
-        ItemDto itemDto = new ItemDto(1L, "Updated Name", "Updated Description", false, null, null, null, null, null);
+        ItemDto itemDto = new ItemDto(1L, "Updated Name", "Updated Description", false, null, null, null, null, null, null, null, null);
         when(itemService.update(any(ItemDto.class), eq(1L), eq(1L))).thenReturn(itemDto);
 
         mockMvc.perform(patch("/items/1")
@@ -126,21 +169,40 @@ public class ItemControllerTest {
 
     @Test
     void testGetCommentsByItemId() throws Exception {
-        CommentDto commentDto1 = new CommentDto(1L, "Comment 1", null, "Booker", LocalDateTime.now());
-        CommentDto commentDto2 = new CommentDto(2L, "Comment 2", null, "Booker", LocalDateTime.now().plusDays(1));
-        List<CommentDto> comments = Arrays.asList(commentDto1, commentDto2);
-        when(itemService.getCommentsByItemId(1L)).thenReturn(comments);
+        CommentDto commentDto1 = new CommentDto(2L, "Comment 2", null, "Booker", LocalDateTime.now().plusDays(1));
+        CommentDto commentDto2 = new CommentDto(1L, "Comment 1", null, "Booker", LocalDateTime.now());
+        when(itemService.getComments(1L, "abc", 2))
+                .thenReturn(new CommentPageDto(Arrays.asList(commentDto1, commentDto2), "next"));
 
         mockMvc.perform(get("/items/1/comments")
-                        .header("X-Sharer-User-Id", 1L))
-                .andExpect(status().isNotFound());
+                        .param("cursor", "abc")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].text").value("Comment 2"));
+    }
+
+    @Test
+    void testGetAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 6, 3, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 6, 7, 0, 0);
+        List<FreeSlotDto> slots = List.of(new FreeSlotDto(from, from.plusDays(1)),
+                new FreeSlotDto(from.plusDays(2), to));
+        when(itemService.getAvailability(1L, from, to)).thenReturn(slots);
+
+        mockMvc.perform(get("/items/1/availability")
+                        .param("from", "2030-06-03T00:00:00")
+                        .param("to", "2030-06-07T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
     }
 
     @Test
     void testGetByRequestId() throws Exception {
-        ItemDto itemDto1 = new ItemDto(1L, "Item 1", "Description 1", true, null, null, null, null, null);
-        ItemDto itemDto2 = new ItemDto(2L, "Item 2", "Description 2", true, null, null, null, null, null);
-        List<ItemDto> items = Arrays.asList(itemDto1, itemDto2);
+        ItemShortDto itemDto1 = new ItemShortDto(1L, "Item 1", 1L);
+        ItemShortDto itemDto2 = new ItemShortDto(2L, "Item 2", 1L);
+        List<ItemShortDto> items = Arrays.asList(itemDto1, itemDto2);
         when(itemService.getByRequestId(1L)).thenReturn(items);
 
         mockMvc.perform(get("/items/request/1")
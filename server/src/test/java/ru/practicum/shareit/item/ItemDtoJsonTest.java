@@ -15,10 +15,10 @@ public class ItemDtoJsonTest {
 
     @Test
     void testSerializeItemDto() throws Exception {
-        ItemDto itemDto = new ItemDto(1L, "Item Name", "Item Description", true, null, null, null, null, null);
+        ItemDto itemDto = new ItemDto(1L, "Item Name", "Item Description", true, null, null, null, null, null, null, null, null);
         String json = objectMapper.writeValueAsString(itemDto);
 
-        assertEquals("{\"id\":1,\"name\":\"Item Name\",\"description\":\"Item Description\",\"available\":true,\"requestId\":null,\"lastBooking\":null,\"nextBooking\":null,\"comments\":null}", json);
+        assertEquals("{\"id\":1,\"name\":\"Item Name\",\"description\":\"Item Description\",\"available\":true,\"requestId\":null,\"lastBooking\":null,\"nextBooking\":null,\"comments\":null,\"commentCount\":null,\"lastCommentAt\":null}", json);
     }
 
     @Test
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemSearchCacheTest {
+
+    private MeterRegistry meterRegistry;
+    private ItemSearchCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ItemSearchCache(meterRegistry, true, 100);
+    }
+
+    @Test
+    void testCachesPagesByTextAndPage() {
+        cache.put("дрель", 0, 10, false, List.of(itemDto(1L)), cache.getWrites());
+
+        assertEquals(1L, cache.get("дрель", 0, 10, false).get(0).getId());
+        assertNull(cache.get("дрель", 10, 10, false));
+        assertNull(cache.get("дрель", 0, 10, true));
+        assertEquals(1.0, meterRegistry.get("shareit.item.search.cache.hits").functionCounter().count());
+        assertEquals(1.0 / 3, meterRegistry.get("shareit.item.search.cache.hit.ratio").gauge().value());
+    }
+
+    @Test
+    void testWritesDropOnlyPagesTheyCanChange() {
+        long writes = cache.getWrites();
+        cache.put("дрель", 0, 10, false, List.of(itemDto(1L)), writes);
+        cache.put("палатка", 0, 10, false, List.of(itemDto(2L)), writes);
+        cache.put("велосипед", 0, 10, false, List.of(), writes);
+        cache.put("велосипед", 0, 10, true, List.of(), writes);
+
+        cache.onItemSaved(new Item(3L, "Дрели", "Ударная", true, null, null, null, null));
+        assertNull(cache.get("дрель", 0, 10, false));
+        assertNotNull(cache.get("палатка", 0, 10, false));
+
+        cache.onItemSaved(new Item(4L, "Велосипед", "Горный", false, null, null, null, null));
+        cache.onItemSaved(new Item(5L, "Белосипед", "Детский", true, null, null, null, null));
+        assertNotNull(cache.get("велосипед", 0, 10, false));
+        assertNull(cache.get("велосипед", 0, 10, true));
+
+        cache.onItemDeleted(2L);
+        assertNull(cache.get("палатка", 0, 10, false));
+        assertEquals(3.0, meterRegistry.get("shareit.item.search.cache.invalidations").counter().count());
+    }
+
+    @Test
+    void testIndexFollowsReplacedAndEvictedPages() {
+        cache.put("дрель", 0, 10, false, List.of(itemDto(1L)), cache.getWrites());
+        cache.put("дрель", 0, 10, false, List.of(itemDto(2L)), cache.getWrites());
+
+        cache.onItemDeleted(1L);
+        assertNotNull(cache.get("дрель", 0, 10, false));
+        cache.onItemDeleted(2L);
+        assertNull(cache.get("дрель", 0, 10, false));
+
+        for (long id = 1; id <= 1_000; id++) {
+            cache.put("палатка", (int) id, 10, false, List.of(itemDto(id)), cache.getWrites());
+        }
+        for (long id = 1; id <= 1_000; id++) {
+            cache.onItemDeleted(id);
+        }
+        cache.onItemSaved(new Item(3L, "Палатка", "Двухместная", true, null, null, null, null));
+        assertEquals(0, meterRegistry.get("shareit.item.search.cache.size").gauge().value());
+        assertEquals(1.0 + 100, meterRegistry.get("shareit.item.search.cache.invalidations").counter().count());
+    }
+
+    @Test
+    void testResultReadBeforeWriteIsNotCached() {
+        long writes = cache.getWrites();
+        cache.onItemDeleted(1L);
+
+        cache.put("дрель", 0, 10, false, List.of(itemDto(1L)), writes);
+
+        assertNull(cache.get("дрель", 0, 10, false));
+    }
+
+    @Test
+    void testDisabledCacheKeepsNothing() {
+        ItemSearchCache disabled = new ItemSearchCache(new SimpleMeterRegistry(), false, 100);
+
+        disabled.put("дрель", 0, 10, false, List.of(itemDto(1L)), disabled.getWrites());
+
+        assertNull(disabled.get("дрель", 0, 10, false));
+    }
+
+    private static ItemDto itemDto(Long id) {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(id);
+        return itemDto;
+    }
+}
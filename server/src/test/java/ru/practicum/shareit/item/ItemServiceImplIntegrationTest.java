@@ -1,5 +1,8 @@
 package ru.practicum.shareit.item;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,17 +13,31 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.BookedDaysIndex;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingBatchRepository;
+import ru.practicum.shareit.booking.BookingEventRepository;
+import ru.practicum.shareit.booking.BookingExpiryService;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
+import ru.practicum.shareit.booking.BookingPointerIndex;
+import ru.practicum.shareit.booking.BookingStatsRepository;
+import ru.practicum.shareit.booking.BookingStatsService;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingServiceImpl;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.BookingWriteLanes;
+import ru.practicum.shareit.exception.ItemNotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.service.ValidationService;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.UserServiceImpl;
+import ru.practicum.shareit.util.CommitHooks;
 
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,7 +47,10 @@ import static org.junit.jupiter.api.Assertions.*;
 @DataJpaTest
 @ActiveProfiles("test")
 @Import({ItemMapper.class, ItemServiceImpl.class, ValidationService.class, UserServiceImpl.class, UserMapper.class,
-        BookingServiceImpl.class, BookingMapper.class})
+        BookingServiceImpl.class, BookingMapper.class, BookingIntervalIndex.class, BookingPointerIndex.class,
+        BookingExpiryService.class, BookingEventRepository.class, BookingStatsService.class,
+        BookingStatsRepository.class, SimpleMeterRegistry.class, BookingWriteLanes.class, BookingBatchRepository.class,
+        LikeItemSearchEngine.class, ItemSearchCache.class, BookedDaysIndex.class, ItemCommentStats.class})
 public class ItemServiceImplIntegrationTest {
 
     @Autowired
@@ -42,6 +62,12 @@ public class ItemServiceImplIntegrationTest {
     @Autowired
     private ItemServiceImpl itemService;
 
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private ItemCommentStats commentStats;
+
     private User user1;
     private User user2;
 
@@ -88,7 +114,7 @@ public class ItemServiceImplIntegrationTest {
     void testCreateItem() {
 
         ItemDto itemDto = new ItemDto();
-        itemDto.setOwner(user1);
+        itemDto.setOwnerId(user1.getId());
         itemDto.setName("Item Name");
         itemDto.setDescription("Item Description");
         itemDto.setAvailable(true);
@@ -126,6 +152,64 @@ public class ItemServiceImplIntegrationTest {
         assertEquals(2, items.size());
     }
 
+    @Test
+    void testGetItemsByOwnerQueryCountDoesNotDependOnItemCount() {
+        User booker = user2;
+        User smallOwner = user1;
+        User largeOwner = new User();
+        largeOwner.setEmail("large-owner@example.com");
+        largeOwner.setName("Large Owner");
+        largeOwner.setRegistrationDate(Instant.now());
+        entityManager.persist(largeOwner);
+
+        for (int i = 0; i < 2; i++) {
+            persistItemWithHistory(smallOwner, booker, i);
+        }
+        for (int i = 0; i < 20; i++) {
+            persistItemWithHistory(largeOwner, booker, i);
+        }
+        entityManager.flush();
+        commentStats.verify();
+
+        long smallOwnerQueries = countQueries(() -> assertEquals(2, itemService.getItemsByOwner(smallOwner.getId())
+                .stream()
+                .filter(itemDto -> itemDto.getLastBooking() != null && itemDto.getNextBooking() != null)
+                .filter(itemDto -> itemDto.getCommentCount() == 1)
+                .count()));
+        long largeOwnerQueries = countQueries(() -> assertEquals(20, itemService.getItemsByOwner(largeOwner.getId())
+                .stream()
+                .filter(itemDto -> itemDto.getLastBooking() != null && itemDto.getNextBooking() != null)
+                .filter(itemDto -> itemDto.getCommentCount() == 1)
+                .count()));
+
+        assertTrue(smallOwnerQueries > 0);
+        assertEquals(smallOwnerQueries, largeOwnerQueries);
+    }
+
+    private void persistItemWithHistory(User owner, User booker, int index) {
+        Item item = new Item();
+        item.setOwner(owner);
+        item.setName("Item " + index);
+        item.setDescription("Description " + index);
+        item.setAvailable(true);
+        entityManager.persist(item);
+
+        entityManager.persist(new Booking(null, LocalDateTime.now().minusDays(3), LocalDateTime.now().minusDays(2),
+                item, booker, BookingStatus.APPROVED));
+        entityManager.persist(new Booking(null, LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(3),
+                item, booker, BookingStatus.WAITING));
+        entityManager.persist(new Comment(null, "Comment " + index, item, booker, LocalDateTime.now()));
+    }
+
+    private long countQueries(Runnable action) {
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
     @Test
     void testDeleteItem() {
 
@@ -162,11 +246,101 @@ public class ItemServiceImplIntegrationTest {
         entityManager.persist(item1);
         entityManager.persist(item2);
 
-        List<ItemDto> items = itemService.getItemsBySearchQuery("Item");
+        List<ItemDto> items = itemService.getItemsBySearchQuery("Item", 0, null, false, null, null);
 
         assertEquals(2, items.size());
     }
 
+    @Test
+    void testSearchSkipsUnavailableItemsAndPages() {
+        for (int i = 1; i <= 5; i++) {
+            Item item = new Item();
+            item.setOwner(user1);
+            item.setName("Drill " + i);
+            item.setDescription(i == 3 ? "Broken" : "Works");
+            item.setAvailable(i != 2);
+            entityManager.persist(item);
+        }
+
+        List<ItemDto> all = itemService.getItemsBySearchQuery("drill", 0, null, false, null, null);
+        List<ItemDto> page = itemService.getItemsBySearchQuery("drill", 1, 2, false, null, null);
+        List<ItemDto> byDescription = itemService.getItemsBySearchQuery("broken", 0, null, false, null, null);
+
+        assertEquals(List.of("Drill 1", "Drill 3", "Drill 4", "Drill 5"), all.stream().map(ItemDto::getName).toList());
+        assertEquals(List.of("Drill 3", "Drill 4"), page.stream().map(ItemDto::getName).toList());
+        assertEquals(List.of("Drill 3"), byDescription.stream().map(ItemDto::getName).toList());
+        assertTrue(itemService.getItemsBySearchQuery("%", 0, null, false, null, null).isEmpty());
+        assertThrows(ValidationException.class,
+                () -> itemService.getItemsBySearchQuery("drill", -1, null, false, null, null));
+        assertThrows(ValidationException.class,
+                () -> itemService.getItemsBySearchQuery("drill", 0, 0, false, null, null));
+    }
+
+    @Test
+    void testSearchWithPeriodSkipsItemsApprovedForIt() {
+        LocalDate start = LocalDate.now().plusDays(10);
+        List<Item> tents = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            Item item = new Item();
+            item.setOwner(user1);
+            item.setName("Tent " + i);
+            item.setDescription("Tent");
+            item.setAvailable(true);
+            tents.add(entityManager.persist(item));
+        }
+        Booking overlapping = entityManager.persist(new Booking(null, start.plusDays(4).atTime(10, 0),
+                start.plusDays(6).atStartOfDay(), tents.get(0), user2, BookingStatus.WAITING));
+        Booking before = entityManager.persist(new Booking(null, start.minusDays(2).atStartOfDay(),
+                start.atStartOfDay(), tents.get(1), user2, BookingStatus.WAITING));
+        entityManager.persist(new Booking(null, start.atStartOfDay(), start.plusDays(1).atStartOfDay(),
+                tents.get(2), user2, BookingStatus.WAITING));
+        bookingService.update(overlapping.getId(), user1.getId(), true);
+        bookingService.update(before.getId(), user1.getId(), true);
+        CommitHooks.runAfterCommit();
+
+        List<ItemDto> free = itemService.getItemsBySearchQuery("tent", 0, null, false, start, start.plusDays(4));
+        List<ItemDto> page = itemService.getItemsBySearchQuery("tent", 1, 1, false, start, start.plusDays(4));
+
+        assertEquals(List.of("Tent 2", "Tent 3", "Tent 4"), free.stream().map(ItemDto::getName).toList());
+        assertEquals(List.of("Tent 3"), page.stream().map(ItemDto::getName).toList());
+        assertThrows(ValidationException.class,
+                () -> itemService.getItemsBySearchQuery("tent", 0, null, false, start, null));
+        assertThrows(ValidationException.class,
+                () -> itemService.getItemsBySearchQuery("tent", 0, null, false, start, start.minusDays(1)));
+        assertThrows(ValidationException.class, () -> itemService.getItemsBySearchQuery("tent", 0, null, false,
+                LocalDate.now().minusDays(1), start));
+    }
+
+    @Test
+    void testSearchWithPeriodPagesPastBookedChunk() {
+        LocalDate start = LocalDate.now().plusDays(10);
+        for (int i = 1; i <= 105; i++) {
+            Item item = new Item();
+            item.setOwner(user1);
+            item.setName("Lamp " + i);
+            item.setDescription("Lamp");
+            item.setAvailable(true);
+            entityManager.persist(item);
+            if (i <= 101) {
+                Booking booking = entityManager.persist(new Booking(null, start.atStartOfDay(),
+                        start.plusDays(1).atStartOfDay(), item, user2, BookingStatus.WAITING));
+                bookingService.update(booking.getId(), user1.getId(), true);
+            }
+        }
+        CommitHooks.runAfterCommit();
+
+        List<ItemDto> page = itemService.getItemsBySearchQuery("lamp", 1, 2, false, start, start);
+
+        assertEquals(List.of("Lamp 103", "Lamp 104"), page.stream().map(ItemDto::getName).toList());
+    }
+
+    @Test
+    void testGetSuggestionsValidatesLimit() {
+        assertTrue(itemService.getSuggestions(" ", 10).isEmpty());
+        assertThrows(ValidationException.class, () -> itemService.getSuggestions("dr", 0));
+        assertThrows(ValidationException.class, () -> itemService.getSuggestions("dr", null));
+    }
+
     @Test
     void testUpdateItem() {
 
@@ -179,7 +353,7 @@ public class ItemServiceImplIntegrationTest {
 
         entityManager.persist(item);
 
-        ItemDto updateDto = new ItemDto(item.getId(), "Updated Name", "Updated Description", false, null, null, null, null, null);
+        ItemDto updateDto = new ItemDto(item.getId(), "Updated Name", "Updated Description", false, null, null, null, null, null, null, null, null);
         ItemDto updatedItemDto = itemService.update(updateDto, user1.getId(), item.getId());
 
         assertEquals("Updated Name", updatedItemDto.getName());
@@ -214,6 +388,86 @@ public class ItemServiceImplIntegrationTest {
         assertEquals(2, comments.size());
     }
 
+    @Test
+    void testGetCommentsPagesNewestFirstWithCursor() {
+        Item item = new Item(null, "Item", "Description", true, user1, null, null, null);
+        entityManager.persist(item);
+        LocalDateTime created = LocalDateTime.now().minusDays(1).withNano(0);
+        for (int i = 1; i <= 5; i++) {
+            entityManager.persist(new Comment(null, "Comment " + i, item, user2, created.plusMinutes(i)));
+        }
+
+        CommentPageDto first = itemService.getComments(item.getId(), null, 2);
+        CommentPageDto second = itemService.getComments(item.getId(), first.getNextCursor(), 2);
+        CommentPageDto last = itemService.getComments(item.getId(), second.getNextCursor(), 2);
+
+        assertEquals(List.of("Comment 5", "Comment 4"), first.getComments().stream().map(CommentDto::getText).toList());
+        assertEquals(List.of("Comment 3", "Comment 2"),
+                second.getComments().stream().map(CommentDto::getText).toList());
+        assertEquals(List.of("Comment 1"), last.getComments().stream().map(CommentDto::getText).toList());
+        assertNull(last.getNextCursor());
+        assertThrows(ValidationException.class, () -> itemService.getComments(item.getId(), null, 0));
+        assertThrows(ValidationException.class, () -> itemService.getComments(item.getId(), "not a cursor", 2));
+        assertThrows(ItemNotFoundException.class, () -> itemService.getComments(-1L, null, 2));
+    }
+
+    @Test
+    void testItemCarriesCountAndLatestComments() {
+        Item item = new Item(null, "Item", "Description", true, user1, null, null, null);
+        Item other = new Item(null, "Other", "Description", true, user1, null, null, null);
+        entityManager.persist(item);
+        entityManager.persist(other);
+        LocalDateTime created = LocalDateTime.now().minusDays(1).withNano(0);
+        for (int i = 1; i <= 12; i++) {
+            entityManager.persist(new Comment(null, "Comment " + i, item, user2, created.plusMinutes(i)));
+        }
+        entityManager.persist(new Comment(null, "Other comment", other, user2, created));
+        entityManager.flush();
+
+        // the comments were written around the service, so their aggregates are recounted
+        assertEquals(2, commentStats.verify());
+        entityManager.clear();
+        ItemDto itemDto = itemService.getItemById(item.getId(), user2.getId());
+        List<ItemDto> owned = itemService.getItemsByOwner(user1.getId());
+
+        assertEquals(12L, itemDto.getCommentCount());
+        assertEquals(created.plusMinutes(12), itemDto.getLastCommentAt());
+        assertEquals(10, itemDto.getComments().size());
+        assertEquals("Comment 12", itemDto.getComments().get(0).getText());
+        assertEquals("Comment 3", itemDto.getComments().get(9).getText());
+        assertEquals(12L, owned.get(0).getCommentCount());
+        assertNull(owned.get(0).getComments());
+        assertEquals(1L, owned.get(1).getCommentCount());
+        assertEquals(created, owned.get(1).getLastCommentAt());
+    }
+
+    @Test
+    void testCreateCommentCountsItAndVerifyFixesDrift() {
+        Item item = new Item(null, "Item", "Description", true, user1, null, null, null);
+        entityManager.persist(item);
+        entityManager.persist(new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                item, user2, BookingStatus.APPROVED));
+        CommentDto commentDto = new CommentDto();
+        commentDto.setText("Good");
+
+        itemService.createComment(commentDto, item.getId(), user2.getId());
+        itemService.createComment(commentDto, item.getId(), user2.getId());
+        entityManager.clear();
+
+        Item counted = itemRepository.findById(item.getId()).orElseThrow();
+        assertEquals(2L, counted.getCommentCount());
+        assertEquals(itemService.getComments(item.getId(), null, 1).getComments().get(0).getCreated(),
+                counted.getLastCommentAt());
+        assertEquals(0, commentStats.verify());
+
+        entityManager.getEntityManager().createNativeQuery("update items set comment_count = 7 where id = :id")
+                .setParameter("id", item.getId())
+                .executeUpdate();
+        assertEquals(1, commentStats.verify());
+        entityManager.clear();
+        assertEquals(2L, itemRepository.findById(item.getId()).orElseThrow().getCommentCount());
+    }
+
     @Test
     void testGetByRequestId() {
 
@@ -234,7 +488,7 @@ public class ItemServiceImplIntegrationTest {
         entityManager.persist(item1);
         entityManager.persist(item2);
 
-        List<ItemDto> items = itemService.getByRequestId(1L);
+        List<ItemShortDto> items = itemService.getByRequestId(1L);
 
         assertEquals(1, items.size());
     }
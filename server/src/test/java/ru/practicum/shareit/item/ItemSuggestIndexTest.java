@@ -0,0 +1,74 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ItemSuggestIndexTest {
+
+    private ItemRepository repository;
+    private ItemSuggestIndex suggestIndex;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ItemRepository.class);
+        when(repository.streamNameRows()).thenReturn(Stream.of(
+                new Object[]{1L, "Дрель Makita", true},
+                new Object[]{2L, "Дрель Bosch", false},
+                new Object[]{3L, "Дрель-шуруповерт", true},
+                new Object[]{4L, "Дрели набор", true},
+                new Object[]{5L, "Душ походный", true},
+                new Object[]{6L, "Палатка", true}));
+        when(repository.streamBookingCounts()).thenReturn(Stream.of(
+                new Object[]{1L, 2L},
+                new Object[]{2L, 50L},
+                new Object[]{4L, 7L},
+                new Object[]{6L, 1L}));
+        suggestIndex = new ItemSuggestIndex(repository, TransactionOperations.withoutTransaction());
+    }
+
+    @Test
+    void testSuggestsWordsOfAvailableItemsMostBookedFirst() {
+        assertEquals(List.of("дрели", "дрель", "душ"), suggestIndex.suggest("Д", 10));
+        assertEquals(List.of("дрели", "дрель"), suggestIndex.suggest("др", 10));
+        assertEquals(List.of("дрели"), suggestIndex.suggest("др", 1));
+        assertEquals(List.of("дрель"), suggestIndex.suggest("дрель", 10));
+        assertEquals(List.of("makita"), suggestIndex.suggest("дрель ma", 10));
+        assertEquals(List.of(), suggestIndex.suggest("bosch", 10));
+        assertEquals(List.of(), suggestIndex.suggest("пила", 10));
+        assertEquals(List.of(), suggestIndex.suggest(" ", 10));
+    }
+
+    @Test
+    void testItemWritesUpdateTrie() {
+        suggestIndex.build();
+
+        suggestIndex.onItemSaved(new Item(2L, "Дрель Bosch", "Починена", true, null, null, null, null));
+        suggestIndex.onItemSaved(new Item(5L, "Палатка", null, true, null, null, null, null));
+        suggestIndex.onItemDeleted(4L);
+
+        assertEquals(List.of("дрель"), suggestIndex.suggest("др", 10));
+        assertEquals(List.of("палатка"), suggestIndex.suggest("п", 10));
+        assertEquals(List.of(), suggestIndex.suggest("ду", 10));
+        assertEquals(List.of("bosch"), suggestIndex.suggest("b", 10));
+        verify(repository, times(1)).streamNameRows();
+    }
+
+    @Test
+    void testRefreshMovesWeights() {
+        suggestIndex.build();
+        when(repository.streamBookingCounts()).thenReturn(Stream.of(
+                new Object[]{1L, 20L},
+                new Object[]{4L, 7L}));
+
+        suggestIndex.refreshWeights();
+
+        assertEquals(List.of("дрель", "дрели"), suggestIndex.suggest("др", 10));
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostgresItemSearchEngineTest {
+
+    @Test
+    void testEveryWordBecomesRequiredPrefixTerm() {
+        assertEquals("дрель:* & makita:*", PostgresItemSearchEngine.toTsQuery("Дрель  Makita"));
+    }
+
+    @Test
+    void testQueryOperatorsAreDropped() {
+        assertEquals("drill:* & saw:*", PostgresItemSearchEngine.toTsQuery("drill | !saw:* & ('"));
+        assertEquals("", PostgresItemSearchEngine.toTsQuery(" & | ! "));
+    }
+}
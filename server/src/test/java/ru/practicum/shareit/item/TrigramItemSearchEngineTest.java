@@ -0,0 +1,42 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TrigramItemSearchEngineTest {
+
+    @Test
+    void testEveryWordIsSubstringCondition() {
+        assertEquals("SELECT id FROM items WHERE available = TRUE" +
+                " AND (LOWER(name) LIKE :word0 OR LOWER(description) LIKE :word0)" +
+                " AND (LOWER(name) LIKE :word1 OR LOWER(description) LIKE :word1)" +
+                " ORDER BY id LIMIT :limit OFFSET :offset", TrigramItemSearchEngine.toSql(2));
+    }
+
+    @Test
+    void testLongWordsUseTrigramsAndShortWordsUseFullText() {
+        NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        when(jdbcTemplate.queryForList(any(String.class), any(MapSqlParameterSource.class), eq(Long.class)))
+                .thenReturn(List.of(1L));
+        TrigramItemSearchEngine searchEngine = new TrigramItemSearchEngine(jdbcTemplate);
+
+        searchEngine.search("Дрел a", 0, 10);
+        searchEngine.search("sa w", 0, 10);
+
+        verify(jdbcTemplate).queryForList(eq(TrigramItemSearchEngine.toSql(2)), argThat(
+                (MapSqlParameterSource parameters) -> "%дрел%".equals(parameters.getValue("word0"))
+                        && "%a%".equals(parameters.getValue("word1"))), eq(Long.class));
+        verify(jdbcTemplate).queryForList(argThat((String sql) -> sql.contains("to_tsquery")), argThat(
+                (MapSqlParameterSource parameters) -> "sa:* & w:*".equals(parameters.getValue("query"))),
+                eq(Long.class));
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.BookedDaysIndex;
 import ru.practicum.shareit.booking.BookingServiceImpl;
 import ru.practicum.shareit.exception.RequestNotFoundException;
 import ru.practicum.shareit.item.ItemServiceImpl;
@@ -24,7 +25,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
 @Import({RequestServiceImpl.class, ValidationService.class, RequestMapper.class, UserServiceImpl.class,
-        UserMapper.class, ItemServiceImpl.class, BookingServiceImpl.class})
+        UserMapper.class, ItemServiceImpl.class, BookingServiceImpl.class, BookedDaysIndex.class})
 @ActiveProfiles("test")
 class RequestServiceImplIntegrationTest {
 
@@ -11,7 +11,6 @@ import ru.practicum.shareit.booking.BookingService;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.item.CommentDto;
 import ru.practicum.shareit.item.Item;
-import ru.practicum.shareit.item.ItemDto;
 import ru.practicum.shareit.item.ItemService;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserDto;
@@ -66,19 +65,6 @@ class ValidationServiceTest {
         assertTrue(result);
     }
 
-    @Test
-    void testIsItemOwner() {
-        Long itemId = 1L;
-        Long userId = 1L;
-        ItemDto itemDto = new ItemDto();
-        itemDto.setId(itemId);
-        when(itemService.getItemsByOwner(userId)).thenReturn(Arrays.asList(itemDto));
-
-        boolean result = validationService.isItemOwner(itemId, userId);
-
-        assertTrue(result);
-    }
-
     @Test
     void testFindUserById() {
         Long userId = 1L;
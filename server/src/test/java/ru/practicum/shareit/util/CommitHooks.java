@@ -0,0 +1,22 @@
+package ru.practicum.shareit.util;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs the actions deferred by {@link Transactions#afterCommit} in a test transaction that is rolled back,
+ * as if it had committed.
+ */
+public final class CommitHooks {
+
+    private CommitHooks() {
+    }
+
+    /**
+     * Runs the deferred actions registered so far.
+     */
+    public static void runAfterCommit() {
+        TransactionSynchronizationManager.getSynchronizations().stream()
+                .filter(Transactions.AfterCommit.class::isInstance)
+                .forEach(synchronization -> synchronization.afterCommit());
+    }
+}
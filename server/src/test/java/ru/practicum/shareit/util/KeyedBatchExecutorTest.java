@@ -0,0 +1,86 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyedBatchExecutorTest {
+
+    @Test
+    void testRequestsOfOneKeyAreHandledOneBatchAtATime() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger batches = new AtomicInteger();
+        List<Integer> handled = new ArrayList<>();
+        KeyedBatchExecutor<Integer, Integer> executor = new KeyedBatchExecutor<>(4, 50, "test-lane-", batch -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            batches.incrementAndGet();
+            for (KeyedBatchExecutor.Entry<Integer, Integer> entry : batch) {
+                handled.add(entry.getRequest());
+                entry.complete(entry.getRequest() * 2);
+            }
+            running.decrementAndGet();
+        });
+        int threads = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        ExecutorService callers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<CompletableFuture<Integer>>> submitted = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int request = i;
+                submitted.add(callers.submit(() -> {
+                    start.await();
+                    return executor.submit(42, request);
+                }));
+            }
+            start.countDown();
+            for (Future<CompletableFuture<Integer>> future : submitted) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            for (int i = 0; i < threads; i++) {
+                assertEquals(i * 2, results.get(i).get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(1, maxRunning.get());
+        assertEquals(threads, handled.size());
+        assertTrue(batches.get() <= threads);
+    }
+
+    @Test
+    void testFailureOfHandlerFailsUncompletedEntries() {
+        KeyedBatchExecutor<String, String> executor = new KeyedBatchExecutor<>(2, 10, "test-lane-", batch -> {
+            if (batch.get(0).getRequest().equals("first")) {
+                batch.get(0).complete("done");
+                return;
+            }
+            throw new IllegalArgumentException("boom");
+        });
+
+        assertEquals("done", executor.executeDirectly("first"));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> KeyedBatchExecutor.await(executor.submit(1, "second")));
+        assertEquals("boom", exception.getMessage());
+    }
+
+    @Test
+    void testEntryNotCompletedByHandlerFails() {
+        KeyedBatchExecutor<String, String> executor = new KeyedBatchExecutor<>(1, 10, "test-lane-", batch -> {
+        });
+
+        assertThrows(IllegalStateException.class, () -> executor.executeDirectly("request"));
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2030, 1, 1, 12, 0, 30, 500);
+
+    @Test
+    void testDecodeReturnsEncodedKeys() {
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.encode(TIME, 42L));
+
+        assertEquals(TIME, cursor.getTime());
+        assertEquals(42L, cursor.getId());
+        KeysetScrollPosition position = cursor.toScrollPosition("start");
+        assertEquals(List.of("start", "id"), List.copyOf(position.getKeys().keySet()));
+        assertEquals(TIME, position.getKeys().get("start"));
+        assertTrue(position.scrollsForward());
+    }
+
+    @Test
+    void testDecodeRejectsMalformedCursor() {
+        assertThrows(ValidationException.class, () -> KeysetCursor.decode("not a cursor"));
+        assertThrows(ValidationException.class, () -> KeysetCursor.decode("MjAzMC0wMS0wMQ"));
+    }
+}
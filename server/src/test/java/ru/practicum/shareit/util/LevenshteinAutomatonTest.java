@@ -0,0 +1,40 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LevenshteinAutomatonTest {
+
+    @Test
+    void testMatchesWordsWithinMaxEdits() {
+        TreeSet<String> dictionary = new TreeSet<>(List.of("дрель", "дрели", "дрелька", "дверь", "отвертка",
+                "отвёртка", "пила", "drill", "dril", "grill", "grille"));
+
+        assertEquals(Map.of("дрель", 0, "дрели", 1, "дверь", 2, "дрелька", 2),
+                new LevenshteinAutomaton("дрель", 2).matches(dictionary));
+        assertEquals(Map.of("отвертка", 1, "отвёртка", 2), new LevenshteinAutomaton("отверка", 2).matches(dictionary));
+        assertEquals(Map.of("drill", 2, "dril", 2), new LevenshteinAutomaton("dirll", 2).matches(dictionary));
+        assertEquals(Map.of("drill", 0, "dril", 1, "grill", 1), new LevenshteinAutomaton("drill", 1).matches(dictionary));
+        assertEquals(Map.of("пила", 0), new LevenshteinAutomaton("пила", 0).matches(dictionary));
+        assertEquals(Map.of(), new LevenshteinAutomaton("молоток", 2).matches(dictionary));
+        assertEquals(Map.of(), new LevenshteinAutomaton("дрель", 2).matches(new TreeSet<>()));
+    }
+
+    @Test
+    void testStateTracksDistanceOfInputRead() {
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton("kitten", 3);
+        int[] state = automaton.start();
+        for (char c : "sitting".toCharArray()) {
+            state = automaton.step(state, c);
+        }
+
+        assertEquals(3, automaton.distance(state));
+        assertEquals(true, automaton.isMatch(state));
+        assertEquals(false, automaton.canMatch(automaton.step(automaton.step(automaton.step(state, 'x'), 'x'), 'x')));
+    }
+}
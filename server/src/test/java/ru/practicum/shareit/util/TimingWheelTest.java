@@ -0,0 +1,54 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTest {
+
+    @Test
+    void testValueIsDueAtItsDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(1_000, 8, 0);
+
+        assertTrue(wheel.add("soon", 2_500));
+        assertTrue(wheel.add("later", 7_000));
+        assertFalse(wheel.add("past", 0));
+
+        assertTrue(wheel.advance(2_999).isEmpty());
+        assertEquals(List.of("soon"), wheel.advance(3_000));
+        assertTrue(wheel.advance(6_999).isEmpty());
+        assertEquals(List.of("later"), wheel.advance(7_000));
+    }
+
+    @Test
+    void testDeadlinesBeyondLowestWheelCascadeDown() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 4, 5);
+        Random random = new Random(7);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            long deadline = 20 + random.nextInt(100_000);
+            deadlines.put(i, deadline);
+            assertTrue(wheel.add(i, deadline));
+        }
+
+        List<Integer> seen = new ArrayList<>();
+        for (long now = 0; now <= 100_100; now += 1 + random.nextInt(250)) {
+            for (Integer value : wheel.advance(now)) {
+                long deadline = deadlines.get(value);
+                assertTrue(deadline <= now, "value " + value + " returned before its deadline");
+                assertTrue(now - deadline < 10 + 250, "value " + value + " returned too late");
+                seen.add(value);
+            }
+        }
+
+        assertEquals(deadlines.size(), seen.size());
+        assertEquals(deadlines.keySet(), new HashSet<>(seen));
+    }
+}
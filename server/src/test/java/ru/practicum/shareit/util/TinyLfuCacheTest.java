@@ -0,0 +1,77 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TinyLfuCacheTest {
+
+    @Test
+    void testFrequentEntriesSurviveScanOfOneOffKeys() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 10_000; i++) {
+            if (cache.get("hot" + i % 50) == null) {
+                cache.put("hot" + i % 50, i % 50);
+            }
+            if (cache.get("cold" + i) == null) {
+                cache.put("cold" + i, i);
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, cache.get("hot" + i));
+        }
+        assertEquals(100, cache.size());
+        assertTrue(cache.getEvictions() >= 10_000 - 50);
+    }
+
+    @Test
+    void testCountsHitsAndMisses() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(10);
+        assertEquals(0, cache.getHitRatio());
+
+        assertNull(cache.get("a"));
+        cache.put("a", 1);
+        assertEquals(1, cache.get("a"));
+        assertEquals(1, cache.get("a"));
+        cache.put("a", 2);
+        assertEquals(2, cache.get("a"));
+
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.75, cache.getHitRatio());
+    }
+
+    @Test
+    void testRemoveIf() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(10);
+        for (int i = 0; i < 10; i++) {
+            cache.put("k" + i, i);
+            cache.get("k" + i);
+        }
+
+        cache.removeIf((key, value) -> value % 2 == 0);
+
+        assertEquals(5, cache.size());
+        assertNull(cache.get("k0"));
+        assertEquals(1, cache.get("k1"));
+    }
+
+    @Test
+    void testPutReturnsEvictedKeyAndRemove() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(2);
+        assertNull(cache.put("a", 1));
+        assertNull(cache.put("b", 2));
+        cache.get("a");
+
+        assertEquals("b", cache.put("c", 3));
+        assertEquals(1, cache.remove("a"));
+        assertNull(cache.remove("a"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testRejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new TinyLfuCache<>(0));
+    }
+}